@@ -0,0 +1,94 @@
+package com.bluelinelabs.conductor;
+
+import android.support.annotation.NonNull;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+import com.bluelinelabs.conductor.Controller.RetainViewMode;
+import com.bluelinelabs.conductor.ControllerChangeHandler.ControllerChangeListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks a Router, and every Router nested below it, for states that should never be observable once all pending
+ * changes have run. This lives in the conductor package so that it can look at the Router's own bookkeeping.
+ */
+public final class RouterInvariants {
+
+    private RouterInvariants() { }
+
+    /**
+     * Returns a description of every violation found, or an empty list if there are none.
+     *
+     * @param hostStarted Whether the hosting Activity is currently started. Views are legitimately kept across
+     *                    Activity stops, so they're only checked for release while it is.
+     */
+    @NonNull
+    public static List<String> check(@NonNull Router router, boolean hostStarted) {
+        List<String> violations = new ArrayList<>();
+        check(router, "/", hostStarted, true, violations);
+        return violations;
+    }
+
+    private static void check(@NonNull Router router, @NonNull String path, boolean hostStarted, boolean hostAttached, @NonNull List<String> violations) {
+        if (!router.destroyingControllers.isEmpty()) {
+            violations.add(path + ": " + router.destroyingControllers.size() + " controller(s) were removed but never finished being destroyed");
+        }
+
+        for (ControllerChangeListener changeListener : router.getChangeListeners()) {
+            if (changeListener instanceof ViewGroup && changeListener != router.container) {
+                violations.add(path + ": change listener " + changeListener + " belongs to a container this router no longer uses");
+            }
+        }
+
+        for (RouterTransaction transaction : router.getBackstack()) {
+            Controller controller = transaction.controller;
+            String controllerPath = path + controller.getClass().getSimpleName() + "#" + controller.getInstanceId();
+
+            if (controller.isDestroyed() || controller.isBeingDestroyed()) {
+                violations.add(controllerPath + ": destroyed controller is still in the backstack");
+            }
+
+            if (controller.isAttached() && (controller.isDestroyed() || controller.getView() == null)) {
+                violations.add(controllerPath + ": attached without a view, or after being destroyed");
+            }
+
+            if (controller.isAttached() && !hostAttached) {
+                violations.add(controllerPath + ": attached while its host controller isn't");
+            }
+
+            if (hostStarted && !controller.isAttached() && controller.getView() != null && controller.getRetainViewMode() == RetainViewMode.RELEASE_DETACH) {
+                violations.add(controllerPath + ": detached, but kept its view despite RetainViewMode.RELEASE_DETACH");
+            }
+
+            for (Router childRouter : controller.getChildRouters()) {
+                String childPath = controllerPath + "/";
+                if (childRouter.hasHost()) {
+                    if (controller.getView() == null) {
+                        violations.add(childPath + ": child router is still hosted after its host controller released its view");
+                    } else if (!isDescendant(childRouter.container, controller.getView())) {
+                        violations.add(childPath + ": child router is hosted in a container outside of its host controller's view");
+                    }
+                }
+
+                check(childRouter, childPath, hostStarted, controller.isAttached(), violations);
+            }
+        }
+    }
+
+    private static boolean isDescendant(ViewGroup container, @NonNull View view) {
+        View current = container;
+        while (current != null) {
+            if (current == view) {
+                return true;
+            }
+
+            ViewParent parent = current.getParent();
+            current = parent instanceof View ? (View)parent : null;
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,176 @@
+package com.bluelinelabs.conductor.benchmarks;
+
+import android.app.Activity;
+import android.view.Menu;
+import android.view.MenuInflater;
+
+import com.bluelinelabs.conductor.Conductor;
+import com.bluelinelabs.conductor.Controller;
+import com.bluelinelabs.conductor.Router;
+import com.bluelinelabs.conductor.RouterTransaction;
+import com.bluelinelabs.conductor.benchmarks.AllocationTracker.Measurement;
+import com.bluelinelabs.conductor.benchmarks.BenchmarkRunner.Operation;
+import com.bluelinelabs.conductor.util.ActivityProxy;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.fakes.RoboMenu;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Fails when a warmed up navigation operation allocates noticeably more the more often it runs, or noticeably more
+ * than the baseline recorded for it on the current JVM. Measurements are written to
+ * {@code build/benchmark-results/allocation-results.properties}, or straight to the baselines file while recording
+ * them.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class AllocationTests {
+
+    private static final int DEPTH = 10;
+    private static final int FAN_OUT = 2;
+
+    private static final AllocationTracker tracker = new AllocationTracker();
+
+    private Activity activity;
+    private Router router;
+
+    @AfterClass
+    public static void writeMeasurements() throws IOException {
+        String baselinesFile = System.getProperty("conductor.benchmarks.baselinesFile");
+        if (tracker.isRecording() && baselinesFile != null) {
+            tracker.writeMeasurements(new File(baselinesFile));
+        } else {
+            String outputDir = System.getProperty("conductor.benchmarks.outputDir", "build/benchmark-results");
+            tracker.writeMeasurements(new File(outputDir, "allocation-results.properties"));
+        }
+    }
+
+    @Before
+    public void setup() {
+        assumeTrue(tracker.isSupported());
+
+        ActivityProxy activityProxy = new ActivityProxy().create(null).start().resume();
+        activity = activityProxy.getActivity();
+        router = Conductor.attachRouter(activity, activityProxy.getView(), null);
+
+        List<RouterTransaction> backstack = new ArrayList<>(DEPTH);
+        for (int i = 0; i < DEPTH; i++) {
+            backstack.add(RouterTransaction.with(new FanOutController(FAN_OUT)));
+        }
+        router.setBackstack(backstack, null);
+    }
+
+    @Test
+    public void push() {
+        assertWithinBudget("push", new Operation() {
+            @Override
+            public void run() {
+                router.pushController(RouterTransaction.with(new FanOutController(FAN_OUT)));
+            }
+
+            @Override
+            public void tearDown() {
+                router.popCurrentController();
+            }
+        });
+    }
+
+    @Test
+    public void pop() {
+        assertWithinBudget("pop", new Operation() {
+            @Override
+            public void setUp() {
+                router.pushController(RouterTransaction.with(new FanOutController(FAN_OUT)));
+            }
+
+            @Override
+            public void run() {
+                router.popCurrentController();
+            }
+        });
+    }
+
+    @Test
+    public void handleBack() {
+        assertWithinBudget("handleBack", new Operation() {
+            @Override
+            public void setUp() {
+                router.pushController(RouterTransaction.with(new FanOutController(FAN_OUT)));
+            }
+
+            @Override
+            public void run() {
+                router.handleBack();
+            }
+        });
+    }
+
+    @Test
+    public void activityStartStop() {
+        assertWithinBudget("activityStartStop", new Operation() {
+            @Override
+            public void run() {
+                router.onActivityStopped(activity);
+                router.onActivityStarted(activity);
+            }
+        });
+    }
+
+    @Test
+    public void optionsMenu() {
+        for (RouterTransaction transaction : router.getBackstack()) {
+            setHasOptionsMenu(transaction.controller());
+        }
+
+        final Menu menu = new RoboMenu(activity);
+        final MenuInflater inflater = activity.getMenuInflater();
+
+        assertWithinBudget("optionsMenu", new Operation() {
+            @Override
+            public void run() {
+                router.onCreateOptionsMenu(menu, inflater);
+                router.onPrepareOptionsMenu(menu);
+            }
+        });
+    }
+
+    private void assertWithinBudget(String name, Operation operation) {
+        Measurement measurement = tracker.measure(name, operation);
+
+        assertTrue(name + " allocated " + measurement.secondHalfMedian + " bytes per run after allocating " + measurement.firstHalfMedian + " bytes per run earlier on",
+                measurement.secondHalfMedian <= tracker.withTolerance(measurement.firstHalfMedian));
+
+        // Baselines recorded on other JVMs say nothing about this one. Record one for it with
+        // -Pconductor.benchmarks.recordBaselines=true to compare against.
+        long budget = tracker.getBudget(name);
+        if (tracker.isRecording() || budget < 0) {
+            return;
+        }
+
+        assertTrue(name + " allocated " + measurement.median + " bytes, over its budget of " + budget + " (baseline " + tracker.getBaseline(name) + " on " + tracker.getEnvironment() + ")",
+                measurement.median <= budget);
+    }
+
+    private static void setHasOptionsMenu(Controller controller) {
+        controller.setHasOptionsMenu(true);
+
+        for (Router childRouter : controller.getChildRouters()) {
+            for (RouterTransaction transaction : childRouter.getBackstack()) {
+                setHasOptionsMenu(transaction.controller());
+            }
+        }
+    }
+
+}
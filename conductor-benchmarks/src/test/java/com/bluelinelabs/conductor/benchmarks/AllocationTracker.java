@@ -0,0 +1,217 @@
+package com.bluelinelabs.conductor.benchmarks;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.bluelinelabs.conductor.benchmarks.BenchmarkRunner.Operation;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Measures the bytes allocated on the current thread by a single {@link Operation}, and compares them against
+ * baselines recorded in {@code src/test/resources/allocation-baselines.properties}. Baselines are recorded by
+ * running the allocation tests with {@code -Pconductor.benchmarks.recordBaselines=true}.
+ * <p>
+ * Absolute numbers depend on the JVM and Robolectric version that produced them, so baselines are keyed by the
+ * JVM they were recorded on and only apply when running on that same JVM. Whether an operation keeps allocating more
+ * the more often it runs is checked everywhere.
+ */
+public class AllocationTracker {
+
+    private static final String PROPERTY_PREFIX = "conductor.benchmarks.";
+    private static final String BASELINES_RESOURCE = "/allocation-baselines.properties";
+
+    // Allocation counts under Robolectric jitter a little between runs, so only flag regressions beyond this.
+    private static final double TOLERANCE = 0.1;
+    private static final long MIN_SLACK_BYTES = 512;
+
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASUREMENT_ITERATIONS = 30;
+
+    /**
+     * The allocations of a warmed up operation. Runs are split into an earlier and a later half so that an operation
+     * whose allocations grow with every run stands out regardless of the JVM it runs on.
+     */
+    public static class Measurement {
+
+        public final long median;
+        public final long firstHalfMedian;
+        public final long secondHalfMedian;
+
+        Measurement(@NonNull long[] allocations) {
+            final int half = allocations.length / 2;
+            median = median(allocations, 0, allocations.length);
+            firstHalfMedian = median(allocations, 0, half);
+            secondHalfMedian = median(allocations, half, allocations.length);
+        }
+
+        private static long median(@NonNull long[] allocations, int from, int to) {
+            long[] sorted = Arrays.copyOfRange(allocations, from, to);
+            Arrays.sort(sorted);
+            return sorted[sorted.length / 2];
+        }
+
+    }
+
+    @Nullable private final com.sun.management.ThreadMXBean threadMXBean;
+    private final String environment = currentEnvironment();
+    private final Properties baselines = new Properties();
+    private final Properties measured = new Properties();
+
+    public AllocationTracker() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemorySupported()) {
+            threadMXBean = (com.sun.management.ThreadMXBean)bean;
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            threadMXBean = null;
+        }
+
+        InputStream stream = AllocationTracker.class.getResourceAsStream(BASELINES_RESOURCE);
+        if (stream != null) {
+            try {
+                baselines.load(stream);
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to read allocation baselines", e);
+            } finally {
+                closeQuietly(stream);
+            }
+        }
+    }
+
+    public boolean isSupported() {
+        return threadMXBean != null;
+    }
+
+    public boolean isRecording() {
+        return Boolean.getBoolean(PROPERTY_PREFIX + "recordBaselines");
+    }
+
+    /**
+     * Returns the name baselines recorded on the current JVM are stored under.
+     */
+    @NonNull
+    public String getEnvironment() {
+        return environment;
+    }
+
+    /**
+     * Returns the number of bytes allocated by single runs of the operation once warmed up.
+     */
+    @NonNull
+    public Measurement measure(@NonNull String name, @NonNull Operation operation) {
+        if (threadMXBean == null) {
+            throw new IllegalStateException("Per-thread allocation counting isn't supported by this JVM");
+        }
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            runOnce(operation);
+        }
+
+        long[] allocations = new long[MEASUREMENT_ITERATIONS];
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            allocations[i] = runOnce(operation);
+        }
+
+        Measurement measurement = new Measurement(allocations);
+        measured.setProperty(key(name), String.valueOf(measurement.median));
+        return measurement;
+    }
+
+    /**
+     * Records a number of bytes measured some other way, such as the heap retained by an object, so that it's
+     * compared against and recorded as a baseline the same way allocations are.
+     */
+    public void record(@NonNull String name, long bytes) {
+        measured.setProperty(key(name), String.valueOf(bytes));
+    }
+
+    /**
+     * Returns the baseline recorded for the given operation on the current JVM, or -1 if there is none.
+     */
+    public long getBaseline(@NonNull String name) {
+        String baseline = baselines.getProperty(key(name));
+        return baseline != null ? Long.parseLong(baseline.trim()) : -1;
+    }
+
+    public long getBudget(@NonNull String name) {
+        long baseline = getBaseline(name);
+        return baseline < 0 ? -1 : withTolerance(baseline);
+    }
+
+    /**
+     * Returns the most bytes that still count as allocating the same as the given number of bytes.
+     */
+    public long withTolerance(long allocated) {
+        return allocated + Math.max((long)(allocated * TOLERANCE), MIN_SLACK_BYTES);
+    }
+
+    /**
+     * Writes all measurements taken so far to the given file, in the same format as the baselines resource.
+     */
+    public void writeMeasurements(@NonNull File file) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Unable to create " + parent);
+        }
+
+        Properties merged = new Properties();
+        if (file.exists()) {
+            InputStream inputStream = new FileInputStream(file);
+            try {
+                merged.load(inputStream);
+            } finally {
+                closeQuietly(inputStream);
+            }
+        }
+        merged.putAll(measured);
+
+        OutputStream outputStream = new FileOutputStream(file);
+        try {
+            merged.store(outputStream, "Median bytes allocated per operation after warmup. Regenerate with -Pconductor.benchmarks.recordBaselines=true");
+        } finally {
+            closeQuietly(outputStream);
+        }
+    }
+
+    @NonNull
+    private String key(@NonNull String name) {
+        return environment + "." + name;
+    }
+
+    // The JVM's name and version, for example OpenJDK_64-Bit_Server_VM_25.392-b08, stripped down to a usable key.
+    @NonNull
+    private static String currentEnvironment() {
+        String vm = System.getProperty("java.vm.name") + " " + System.getProperty("java.vm.version");
+        return vm.replaceAll("[^A-Za-z0-9.\\-]+", "_");
+    }
+
+    private long runOnce(@NonNull Operation operation) {
+        operation.setUp();
+
+        final long threadId = Thread.currentThread().getId();
+        //noinspection ConstantConditions
+        long start = threadMXBean.getThreadAllocatedBytes(threadId);
+        operation.run();
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - start;
+
+        operation.tearDown();
+        return allocated;
+    }
+
+    private static void closeQuietly(@NonNull Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) { }
+    }
+
+}
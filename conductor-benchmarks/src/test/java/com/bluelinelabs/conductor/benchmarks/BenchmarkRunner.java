@@ -0,0 +1,173 @@
+package com.bluelinelabs.conductor.benchmarks;
+
+import android.support.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A minimal benchmark harness in the spirit of JMH, for code that has to run under Robolectric. Each operation is
+ * warmed up, then timed one invocation at a time so that untimed setup and teardown can restore state between runs.
+ * Results are collected per suite and written out as JSON for regression tracking.
+ */
+public class BenchmarkRunner {
+
+    private static final String PROPERTY_PREFIX = "conductor.benchmarks.";
+
+    /**
+     * A single benchmarked operation. Only {@link #run()} is timed.
+     */
+    public static abstract class Operation {
+        public void setUp() { }
+        public abstract void run();
+        public void tearDown() { }
+    }
+
+    private final String suiteName;
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final List<BenchmarkResult> results = new ArrayList<>();
+
+    public BenchmarkRunner(@NonNull String suiteName) {
+        this.suiteName = suiteName;
+        warmupIterations = Integer.getInteger(PROPERTY_PREFIX + "warmupIterations", 10);
+        measurementIterations = Integer.getInteger(PROPERTY_PREFIX + "measurementIterations", 30);
+    }
+
+    @NonNull
+    public BenchmarkResult measure(@NonNull String name, @NonNull Map<String, Object> params, @NonNull Operation operation) {
+        for (int i = 0; i < warmupIterations; i++) {
+            runOnce(operation);
+        }
+
+        long[] timings = new long[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++) {
+            timings[i] = runOnce(operation);
+        }
+
+        BenchmarkResult result = new BenchmarkResult(name, params, timings);
+        results.add(result);
+        return result;
+    }
+
+    /**
+     * Adds timings that were collected outside of this runner, such as by a randomized run, to this suite's results.
+     */
+    @NonNull
+    public BenchmarkResult addResult(@NonNull String name, @NonNull Map<String, Object> params, @NonNull long[] timings) {
+        BenchmarkResult result = new BenchmarkResult(name, params, timings);
+        results.add(result);
+        return result;
+    }
+
+    public void writeResults() throws IOException {
+        File outputDir = new File(System.getProperty(PROPERTY_PREFIX + "outputDir", "build/benchmark-results"));
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IOException("Unable to create " + outputDir);
+        }
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(new File(outputDir, suiteName + ".json")), "UTF-8");
+        try {
+            writer.write("{\"suite\":" + quote(suiteName) + ",\"warmupIterations\":" + warmupIterations
+                    + ",\"measurementIterations\":" + measurementIterations + ",\"results\":[");
+            for (int i = 0; i < results.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(results.get(i).toJson());
+            }
+            writer.write("]}\n");
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static long runOnce(@NonNull Operation operation) {
+        operation.setUp();
+        long start = System.nanoTime();
+        operation.run();
+        long elapsed = System.nanoTime() - start;
+        operation.tearDown();
+        return elapsed;
+    }
+
+    @NonNull
+    static Map<String, Object> params(@NonNull Object... keysAndValues) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            params.put((String)keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return params;
+    }
+
+    @NonNull
+    static String quote(@NonNull String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    public static class BenchmarkResult {
+
+        public final String name;
+        public final Map<String, Object> params;
+        public final long minNanos;
+        public final long medianNanos;
+        public final long p90Nanos;
+        public final double meanNanos;
+
+        BenchmarkResult(@NonNull String name, @NonNull Map<String, Object> params, @NonNull long[] timings) {
+            this.name = name;
+            this.params = params;
+
+            long[] sorted = Arrays.copyOf(timings, timings.length);
+            Arrays.sort(sorted);
+
+            long total = 0;
+            for (long timing : sorted) {
+                total += timing;
+            }
+
+            minNanos = sorted[0];
+            medianNanos = sorted[sorted.length / 2];
+            p90Nanos = sorted[(int)Math.ceil(sorted.length * 0.9) - 1];
+            meanNanos = (double)total / sorted.length;
+        }
+
+        @NonNull
+        String toJson() {
+            StringBuilder builder = new StringBuilder();
+            builder.append("{\"name\":").append(quote(name)).append(",\"params\":{");
+
+            boolean first = true;
+            for (Map.Entry<String, Object> param : params.entrySet()) {
+                if (!first) {
+                    builder.append(',');
+                }
+                first = false;
+
+                builder.append(quote(param.getKey())).append(':');
+                if (param.getValue() instanceof Number) {
+                    builder.append(param.getValue());
+                } else {
+                    builder.append(quote(String.valueOf(param.getValue())));
+                }
+            }
+
+            builder.append("},\"minNanos\":").append(minNanos)
+                    .append(",\"medianNanos\":").append(medianNanos)
+                    .append(",\"p90Nanos\":").append(p90Nanos)
+                    .append(",\"meanNanos\":").append(String.format(Locale.US, "%.1f", meanNanos))
+                    .append('}');
+            return builder.toString();
+        }
+    }
+
+}
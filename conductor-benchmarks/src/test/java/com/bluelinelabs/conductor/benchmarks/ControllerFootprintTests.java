@@ -0,0 +1,153 @@
+package com.bluelinelabs.conductor.benchmarks;
+
+import android.support.annotation.NonNull;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import com.bluelinelabs.conductor.Controller;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the heap footprint of a Controller that was only constructed. Shallow sizes are estimated from the field
+ * layout of a 64-bit JVM with compressed oops. Retained sizes are the heap growth per instance across a large batch.
+ * Both are compared against the baselines recorded for the current JVM next to the allocation baselines, and written
+ * to {@code build/benchmark-results/controller-footprint.properties}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class ControllerFootprintTests {
+
+    private static final int BATCH_SIZE = 5000;
+    private static final int GC_PASSES = 4;
+
+    private static final int OBJECT_HEADER_BYTES = 12;
+    private static final int REFERENCE_BYTES = 4;
+    private static final int OBJECT_ALIGNMENT = 8;
+
+    private static final AllocationTracker tracker = new AllocationTracker();
+
+    private interface Factory {
+        Controller create();
+    }
+
+    @AfterClass
+    public static void writeMeasurements() throws IOException {
+        String baselinesFile = System.getProperty("conductor.benchmarks.baselinesFile");
+        if (tracker.isRecording() && baselinesFile != null) {
+            tracker.writeMeasurements(new File(baselinesFile));
+        } else {
+            String outputDir = System.getProperty("conductor.benchmarks.outputDir", "build/benchmark-results");
+            tracker.writeMeasurements(new File(outputDir, "controller-footprint.properties"));
+        }
+    }
+
+    @Test
+    public void shallowSize() {
+        long shallowSize = estimateShallowSize(Controller.class);
+        tracker.record("footprint.shallow", shallowSize);
+
+        assertWithinBaseline("footprint.shallow", shallowSize);
+    }
+
+    @Test
+    public void retainedSize() {
+        long retained = measureRetainedBytes(new Factory() {
+            @Override
+            public Controller create() {
+                return new EmptyController();
+            }
+        });
+        tracker.record("footprint.retained", retained);
+
+        // Each instance also takes up a slot in the batch array. Anything beyond that and the Controller itself was
+        // allocated up front rather than when it's first needed.
+        long expected = estimateShallowSize(EmptyController.class) + REFERENCE_BYTES;
+        assertTrue("An untouched Controller retained " + retained + " bytes rather than its own " + expected, retained <= tracker.withTolerance(expected));
+
+        assertWithinBaseline("footprint.retained", retained);
+    }
+
+    private static void assertWithinBaseline(@NonNull String name, long bytes) {
+        long budget = tracker.getBudget(name);
+        if (tracker.isRecording() || budget < 0) {
+            return;
+        }
+
+        assertTrue(name + " was " + bytes + " bytes, over its budget of " + budget + " (baseline " + tracker.getBaseline(name) + " on " + tracker.getEnvironment() + ")", bytes <= budget);
+    }
+
+    private static long measureRetainedBytes(@NonNull Factory factory) {
+        // Warm up class loading and anything allocated once per process before taking the baseline.
+        factory.create();
+
+        Controller[] controllers = new Controller[BATCH_SIZE];
+        long before = usedHeapBytes();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            controllers[i] = factory.create();
+        }
+        long after = usedHeapBytes();
+
+        assertTrue(controllers[BATCH_SIZE - 1] != null);
+        return (after - before) / BATCH_SIZE;
+    }
+
+    private static long usedHeapBytes() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < GC_PASSES; i++) {
+            System.gc();
+            System.runFinalization();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long estimateShallowSize(@NonNull Class<?> cls) {
+        long size = OBJECT_HEADER_BYTES;
+        for (Class<?> current = cls; current != null; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    size += fieldSize(field.getType());
+                }
+            }
+        }
+        return (size + OBJECT_ALIGNMENT - 1) / OBJECT_ALIGNMENT * OBJECT_ALIGNMENT;
+    }
+
+    private static int fieldSize(@NonNull Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == boolean.class || type == byte.class) {
+            return 1;
+        } else {
+            return REFERENCE_BYTES;
+        }
+    }
+
+    public static class EmptyController extends Controller {
+
+        @NonNull
+        @Override
+        protected View onCreateView(@NonNull LayoutInflater inflater, @NonNull ViewGroup container) {
+            return new FrameLayout(inflater.getContext());
+        }
+
+    }
+
+}
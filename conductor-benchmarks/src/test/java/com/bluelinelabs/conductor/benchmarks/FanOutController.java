@@ -0,0 +1,67 @@
+package com.bluelinelabs.conductor.benchmarks;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import com.bluelinelabs.conductor.Controller;
+import com.bluelinelabs.conductor.Router;
+import com.bluelinelabs.conductor.RouterTransaction;
+import com.bluelinelabs.conductor.util.AttachFakingFrameLayout;
+import com.bluelinelabs.conductor.util.TestController;
+
+/**
+ * A Controller hosting a configurable number of child routers, each with a single {@link TestController} as its root.
+ */
+public class FanOutController extends Controller {
+
+    private static final String KEY_FAN_OUT = "FanOutController.fanOut";
+    private static final int FIRST_CHILD_CONTAINER_ID = 1000;
+
+    public FanOutController(int fanOut) {
+        this(createArgs(fanOut));
+    }
+
+    public FanOutController(Bundle args) {
+        super(args);
+    }
+
+    @NonNull
+    @Override
+    protected View onCreateView(@NonNull LayoutInflater inflater, @NonNull ViewGroup container) {
+        FrameLayout view = new AttachFakingFrameLayout(inflater.getContext());
+
+        final int fanOut = getArgs().getInt(KEY_FAN_OUT);
+        for (int i = 0; i < fanOut; i++) {
+            FrameLayout childContainer = new AttachFakingFrameLayout(inflater.getContext());
+            childContainer.setId(FIRST_CHILD_CONTAINER_ID + i);
+            view.addView(childContainer);
+        }
+
+        return view;
+    }
+
+    @Override
+    protected void onAttach(@NonNull View view) {
+        super.onAttach(view);
+
+        final int fanOut = getArgs().getInt(KEY_FAN_OUT);
+        for (int i = 0; i < fanOut; i++) {
+            Router childRouter = getChildRouter((ViewGroup)view.findViewById(FIRST_CHILD_CONTAINER_ID + i));
+            if (!childRouter.hasRootController()) {
+                childRouter.setRoot(RouterTransaction.with(new TestController()));
+            }
+        }
+    }
+
+    @NonNull
+    private static Bundle createArgs(int fanOut) {
+        Bundle args = new Bundle();
+        args.putInt(KEY_FAN_OUT, fanOut);
+        return args;
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.bluelinelabs.conductor.benchmarks;
+
+import com.bluelinelabs.conductor.Conductor;
+import com.bluelinelabs.conductor.LifecycleEventLog;
+import com.bluelinelabs.conductor.Router;
+import com.bluelinelabs.conductor.RouterTransaction;
+import com.bluelinelabs.conductor.benchmarks.BenchmarkRunner.Operation;
+import com.bluelinelabs.conductor.util.ActivityProxy;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.bluelinelabs.conductor.benchmarks.BenchmarkRunner.params;
+
+/**
+ * Compares navigation with the {@link LifecycleEventLog} turned off against navigation with it recording, and measures
+ * how long exporting a full log takes. Results are written to
+ * {@code build/benchmark-results/LifecycleEventLogBenchmarks.json}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class LifecycleEventLogBenchmarks {
+
+    private static final int[] CAPACITIES = { 0, LifecycleEventLog.DEFAULT_CAPACITY, 4096 };
+    private static final int FAN_OUT = 4;
+
+    private static final BenchmarkRunner runner = new BenchmarkRunner("LifecycleEventLogBenchmarks");
+
+    private final List<ActivityProxy> activityProxies = new ArrayList<>();
+
+    @AfterClass
+    public static void writeResults() throws IOException {
+        runner.writeResults();
+    }
+
+    @After
+    public void tearDown() {
+        for (ActivityProxy activityProxy : activityProxies) {
+            activityProxy.pause().stop(true).destroy();
+        }
+        activityProxies.clear();
+
+        LifecycleEventLog.setCapacity(LifecycleEventLog.DEFAULT_CAPACITY);
+    }
+
+    @Test
+    public void pushPop() {
+        for (int capacity : CAPACITIES) {
+            LifecycleEventLog.setCapacity(capacity);
+
+            final Router router = createRouter();
+            runner.measure("pushPop", params("capacity", capacity, "fanOut", FAN_OUT), new Operation() {
+                @Override
+                public void run() {
+                    router.pushController(RouterTransaction.with(new FanOutController(FAN_OUT)));
+                    router.popCurrentController();
+                }
+            });
+        }
+    }
+
+    @Test
+    public void export() {
+        for (int capacity : CAPACITIES) {
+            if (capacity == 0) {
+                continue;
+            }
+            LifecycleEventLog.setCapacity(capacity);
+
+            // Fill the log up completely before exporting it.
+            Router router = createRouter();
+            while (LifecycleEventLog.exportAsString().split("\n").length < capacity) {
+                router.pushController(RouterTransaction.with(new FanOutController(FAN_OUT)));
+                router.popCurrentController();
+            }
+
+            runner.measure("exportAsString", params("capacity", capacity), new Operation() {
+                @Override
+                public void run() {
+                    LifecycleEventLog.exportAsString();
+                }
+            });
+
+            runner.measure("exportAsBytes", params("capacity", capacity), new Operation() {
+                @Override
+                public void run() {
+                    LifecycleEventLog.exportAsBytes();
+                }
+            });
+        }
+    }
+
+    private Router createRouter() {
+        ActivityProxy activityProxy = new ActivityProxy().create(null).start().resume();
+        activityProxies.add(activityProxy);
+        Router router = Conductor.attachRouter(activityProxy.getActivity(), activityProxy.getView(), null);
+        router.setRoot(RouterTransaction.with(new FanOutController(FAN_OUT)));
+        return router;
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.bluelinelabs.conductor.benchmarks;
+
+import android.os.Bundle;
+
+import com.bluelinelabs.conductor.Conductor;
+import com.bluelinelabs.conductor.NavigationRecorder;
+import com.bluelinelabs.conductor.NavigationRecorder.Step;
+import com.bluelinelabs.conductor.Router;
+import com.bluelinelabs.conductor.RouterTransaction;
+import com.bluelinelabs.conductor.benchmarks.BenchmarkRunner.Operation;
+import com.bluelinelabs.conductor.util.ActivityProxy;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.bluelinelabs.conductor.benchmarks.BenchmarkRunner.params;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Replays navigation recordings offline. A scripted session is always recorded and replayed; a recording captured
+ * in an app can be replayed as well by passing its path with {@code -Pconductor.benchmarks.recording=<file>}.
+ * Replay timings are written to {@code build/benchmark-results/NavigationReplayTests.json}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class NavigationReplayTests {
+
+    private static final BenchmarkRunner runner = new BenchmarkRunner("NavigationReplayTests");
+
+    @AfterClass
+    public static void writeResults() throws IOException {
+        runner.writeResults();
+    }
+
+    @Test
+    public void replayScriptedSession() throws IOException {
+        ActivityProxy activityProxy = new ActivityProxy().create(null).start().resume();
+        Router router = Conductor.attachRouter(activityProxy.getActivity(), activityProxy.getView(), null);
+        NavigationRecorder recorder = new NavigationRecorder();
+        router.setNavigationRecorder(recorder);
+
+        router.setRoot(RouterTransaction.with(new FanOutController(2)).tag("root"));
+        router.pushController(RouterTransaction.with(new FanOutController(2)).tag("a"));
+        router.pushController(RouterTransaction.with(new FanOutController(0)).tag("b"));
+        router.handleBack();
+        router.pushController(RouterTransaction.with(new FanOutController(0)).tag("c"));
+        router.replaceTopController(RouterTransaction.with(new FanOutController(2)).tag("d"));
+        activityProxy.pause().saveInstanceState(new Bundle()).stop(false);
+        activityProxy.start().resume();
+        router.pushController(RouterTransaction.with(new FanOutController(0)).tag("e"));
+        router.popToTag("a");
+        router.pushController(RouterTransaction.with(new FanOutController(0)).tag("f"));
+        router.popToRoot();
+        router.setBackstack(Arrays.asList(router.getBackstack().get(0), RouterTransaction.with(new FanOutController(0)).tag("g")), null);
+        router.switchToBackstack("other", RouterTransaction.with(new FanOutController(2)).tag("other"), null);
+        router.pushController(RouterTransaction.with(new FanOutController(0)).tag("h"));
+        router.switchToBackstack(Router.DEFAULT_BACKSTACK, null, null);
+        router.removeBackstack("other");
+
+        List<Step> steps = NavigationRecorder.readSteps(recorder.toByteArray());
+        List<NavigationRecorder.Operation> operations = new ArrayList<>();
+        for (Step step : steps) {
+            operations.add(step.getOperation());
+        }
+        assertTrue(operations.contains(NavigationRecorder.Operation.HANDLE_BACK));
+        assertTrue(operations.contains(NavigationRecorder.Operation.POP_TO_TAG));
+        assertTrue(operations.contains(NavigationRecorder.Operation.ACTIVITY_STOPPED));
+        assertTrue(operations.contains(NavigationRecorder.Operation.SAVE_INSTANCE_STATE));
+        assertTrue(operations.contains(NavigationRecorder.Operation.SWITCH_TO_BACKSTACK));
+        assertTrue(operations.contains(NavigationRecorder.Operation.REMOVE_BACKSTACK));
+
+        NavigationReplayer replayer = new NavigationReplayer();
+        replayer.replay(steps);
+
+        assertEquals(replayer.getAnomalies().toString(), 0, replayer.getAnomalies().size());
+        assertEquals(getTags(router), getTags(replayer.getRouter()));
+
+        measureReplay("scripted", steps);
+    }
+
+    @Test
+    public void replayRecordingFromFile() throws IOException {
+        String path = System.getProperty("conductor.benchmarks.recording");
+        assumeTrue(path != null);
+
+        List<Step> steps = NavigationRecorder.readSteps(readFile(new File(path)));
+
+        NavigationReplayer replayer = new NavigationReplayer();
+        replayer.replay(steps);
+        assertEquals(replayer.getAnomalies().toString(), 0, replayer.getAnomalies().size());
+
+        measureReplay(new File(path).getName(), steps);
+    }
+
+    private static void measureReplay(String recordingName, final List<Step> steps) {
+        runner.measure("replay", params("recording", recordingName, "steps", steps.size()), new Operation() {
+            NavigationReplayer replayer;
+
+            @Override
+            public void setUp() {
+                replayer = new NavigationReplayer();
+            }
+
+            @Override
+            public void run() {
+                replayer.replay(steps);
+            }
+        });
+    }
+
+    private static List<String> getTags(Router router) {
+        List<String> tags = new ArrayList<>();
+        for (RouterTransaction transaction : router.getBackstack()) {
+            tags.add(transaction.tag());
+        }
+        return tags;
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        byte[] bytes = new byte[(int)file.length()];
+        InputStream in = new FileInputStream(file);
+        try {
+            int offset = 0;
+            int read;
+            while (offset < bytes.length && (read = in.read(bytes, offset, bytes.length - offset)) != -1) {
+                offset += read;
+            }
+        } finally {
+            in.close();
+        }
+        return bytes;
+    }
+
+}
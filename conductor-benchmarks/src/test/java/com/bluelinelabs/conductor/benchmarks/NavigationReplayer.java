@@ -0,0 +1,226 @@
+package com.bluelinelabs.conductor.benchmarks;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.bluelinelabs.conductor.Conductor;
+import com.bluelinelabs.conductor.Controller;
+import com.bluelinelabs.conductor.NavigationRecorder.Operation;
+import com.bluelinelabs.conductor.NavigationRecorder.RecordedTransaction;
+import com.bluelinelabs.conductor.NavigationRecorder.Step;
+import com.bluelinelabs.conductor.Router;
+import com.bluelinelabs.conductor.RouterTransaction;
+import com.bluelinelabs.conductor.util.ActivityProxy;
+import com.bluelinelabs.conductor.util.TestController;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replays a recording made by a {@link com.bluelinelabs.conductor.NavigationRecorder} against a Router hosted in a
+ * Robolectric Activity, standing in a {@link TestController} for every recorded Controller. Only operations that are
+ * {@link Operation#isReplayed() replayed} are performed. After every step, the Router is checked for anomalies, such
+ * as destroyed Controllers left in the backstack or removed Controllers that never get destroyed.
+ */
+public class NavigationReplayer {
+
+    private enum ActivityState { STARTED, RESUMED, PAUSED, STOPPED, DESTROYED }
+
+    private final ActivityProxy activityProxy;
+    private final Router router;
+    private ActivityState activityState = ActivityState.RESUMED;
+
+    private final Map<Integer, Controller> controllers = new HashMap<>();
+    private final Map<String, List<Controller>> inactiveBackstacks = new HashMap<>();
+    private final Map<Operation, long[]> timings = new LinkedHashMap<>();
+    private final List<String> anomalies = new ArrayList<>();
+    private int stepIndex;
+
+    public NavigationReplayer() {
+        activityProxy = new ActivityProxy().create(null).start().resume();
+        router = Conductor.attachRouter(activityProxy.getActivity(), activityProxy.getView(), null);
+    }
+
+    @NonNull
+    public Router getRouter() {
+        return router;
+    }
+
+    public void replay(@NonNull List<Step> steps) {
+        for (Step step : steps) {
+            if (step.getOperation().isReplayed()) {
+                final long start = System.nanoTime();
+                perform(step);
+                addTiming(step.getOperation(), System.nanoTime() - start);
+
+                checkInvariants(step);
+            }
+            stepIndex++;
+        }
+    }
+
+    /**
+     * Returns the total time spent on, and number of times each operation was replayed, as {total nanos, count}.
+     */
+    @NonNull
+    public Map<Operation, long[]> getTimings() {
+        return timings;
+    }
+
+    @NonNull
+    public List<String> getAnomalies() {
+        return anomalies;
+    }
+
+    private void perform(@NonNull Step step) {
+        if (activityState == ActivityState.DESTROYED) {
+            anomalies.add("Step " + stepIndex + ": " + step.getOperation() + " was recorded after the Activity was destroyed");
+            return;
+        }
+
+        switch (step.getOperation()) {
+            case PUSH:
+                router.pushController(createTransaction(step.getTransactions().get(0)));
+                break;
+            case REPLACE_TOP:
+                router.replaceTopController(createTransaction(step.getTransactions().get(0)));
+                break;
+            case POP:
+                Controller controller = controllers.get(step.getTransactions().get(0).getControllerId());
+                if (controller != null) {
+                    router.popController(controller);
+                }
+                break;
+            case SET_BACKSTACK:
+                List<RouterTransaction> backstack = new ArrayList<>();
+                for (RecordedTransaction recordedTransaction : step.getTransactions()) {
+                    RouterTransaction existingTransaction = findTransaction(controllers.get(recordedTransaction.getControllerId()));
+                    backstack.add(existingTransaction != null ? existingTransaction : createTransaction(recordedTransaction));
+                }
+                router.setBackstack(backstack, null);
+                break;
+            case ACTIVITY_STARTED:
+                if (activityState == ActivityState.STOPPED) {
+                    activityProxy.start();
+                    activityState = ActivityState.STARTED;
+                }
+                break;
+            case ACTIVITY_RESUMED:
+                if (activityState == ActivityState.STARTED || activityState == ActivityState.PAUSED) {
+                    activityProxy.resume();
+                    activityState = ActivityState.RESUMED;
+                }
+                break;
+            case ACTIVITY_PAUSED:
+                if (activityState == ActivityState.RESUMED) {
+                    activityProxy.pause();
+                    activityState = ActivityState.PAUSED;
+                }
+                break;
+            case ACTIVITY_STOPPED:
+                if (activityState == ActivityState.PAUSED || activityState == ActivityState.STARTED) {
+                    activityProxy.stop(false);
+                    activityState = ActivityState.STOPPED;
+                }
+                break;
+            case ACTIVITY_DESTROYED:
+                if (activityState == ActivityState.RESUMED) {
+                    activityProxy.pause();
+                }
+                if (activityState != ActivityState.STOPPED) {
+                    activityProxy.stop(true);
+                }
+                activityProxy.destroy();
+                activityState = ActivityState.DESTROYED;
+                break;
+            case SAVE_INSTANCE_STATE:
+                activityProxy.saveInstanceState(new Bundle());
+                break;
+            case SWITCH_TO_BACKSTACK: {
+                List<Controller> previousControllers = new ArrayList<>();
+                for (RouterTransaction transaction : router.getBackstack()) {
+                    previousControllers.add(transaction.controller());
+                }
+                inactiveBackstacks.put(router.getActiveBackstackName(), previousControllers);
+
+                RouterTransaction rootTransaction = step.getTransactions().isEmpty() ? null : createTransaction(step.getTransactions().get(0));
+                router.switchToBackstack(step.getBackstackName(), rootTransaction, null);
+                inactiveBackstacks.remove(step.getBackstackName());
+                break;
+            }
+            case REMOVE_BACKSTACK:
+                router.removeBackstack(step.getBackstackName());
+                inactiveBackstacks.remove(step.getBackstackName());
+                break;
+        }
+    }
+
+    @NonNull
+    private RouterTransaction createTransaction(@NonNull RecordedTransaction recordedTransaction) {
+        Controller controller = controllers.get(recordedTransaction.getControllerId());
+        if (controller == null || controller.isDestroyed() || findTransaction(controller) != null) {
+            // Either a new controller, or one that was brought back by a cache in the recorded app.
+            controller = new TestController();
+            controllers.put(recordedTransaction.getControllerId(), controller);
+        }
+        return RouterTransaction.with(controller).tag(recordedTransaction.getTag());
+    }
+
+    @Nullable
+    private RouterTransaction findTransaction(@Nullable Controller controller) {
+        if (controller != null) {
+            for (RouterTransaction transaction : router.getBackstack()) {
+                if (transaction.controller() == controller) {
+                    return transaction;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void checkInvariants(@NonNull Step step) {
+        List<RouterTransaction> backstack = router.getBackstack();
+        for (RouterTransaction transaction : backstack) {
+            if (transaction.controller().isDestroyed()) {
+                anomalies.add("Step " + stepIndex + " (" + step.getOperation() + "): destroyed controller " + transaction.controller().getInstanceId() + " is still in the backstack");
+            }
+        }
+
+        if (activityState == ActivityState.RESUMED && !backstack.isEmpty()) {
+            Controller top = backstack.get(backstack.size() - 1).controller();
+            if (!top.isAttached()) {
+                anomalies.add("Step " + stepIndex + " (" + step.getOperation() + "): top controller " + top.getInstanceId() + " isn't attached");
+            }
+        }
+
+        for (Controller controller : controllers.values()) {
+            if (findTransaction(controller) == null && !isInactive(controller) && !controller.isDestroyed() && !controller.isBeingDestroyed() && controller.getRouter() != null) {
+                anomalies.add("Step " + stepIndex + " (" + step.getOperation() + "): removed controller " + controller.getInstanceId() + " was never destroyed");
+            }
+        }
+    }
+
+    private boolean isInactive(@NonNull Controller controller) {
+        for (List<Controller> inactiveControllers : inactiveBackstacks.values()) {
+            if (inactiveControllers.contains(controller)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addTiming(@NonNull Operation operation, long nanos) {
+        long[] timing = timings.get(operation);
+        if (timing == null) {
+            timing = new long[2];
+            timings.put(operation, timing);
+        }
+        timing[0] += nanos;
+        timing[1]++;
+    }
+
+}
@@ -0,0 +1,307 @@
+package com.bluelinelabs.conductor.benchmarks;
+
+import android.os.Bundle;
+
+import com.bluelinelabs.conductor.Conductor;
+import com.bluelinelabs.conductor.Controller;
+import com.bluelinelabs.conductor.Router;
+import com.bluelinelabs.conductor.RouterInvariants;
+import com.bluelinelabs.conductor.RouterTransaction;
+import com.bluelinelabs.conductor.util.ActivityProxy;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import static com.bluelinelabs.conductor.benchmarks.BenchmarkRunner.params;
+import static org.junit.Assert.fail;
+
+/**
+ * Drives long random sequences of navigation across nested child routers, {@link StressController pager} pages and
+ * Activity stops, configuration changes and process death, checking {@link RouterInvariants} and looking for leaked
+ * controllers after every step. The same fixed seed is used on every run unless another one is passed with
+ * {@code -Pconductor.benchmarks.stressSeed=<seed>}, and failures report the seed they were found with. The number of
+ * steps defaults to 2000 and can be changed with {@code -Pconductor.benchmarks.stressSteps=<steps>}. Per-operation
+ * timings are written to {@code build/benchmark-results/NavigationStressTests.json}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class NavigationStressTests {
+
+    private static final String PROPERTY_PREFIX = "conductor.benchmarks.";
+    private static final int HISTORY_SIZE = 20;
+    private static final int MAX_DEPTH = 8;
+    private static final long DEFAULT_SEED = 0x5eed;
+
+    private enum Op {
+        PUSH(20),
+        HANDLE_BACK(14),
+        REPLACE_TOP(6),
+        POP_TO_ROOT(2),
+        SET_BACKSTACK(4),
+        CHILD_PUSH(14),
+        CHILD_POP(10),
+        PAGE(12),
+        ACTIVITY_STOP_START(6),
+        CONFIGURATION_CHANGE(3),
+        PROCESS_DEATH(3);
+
+        final int weight;
+
+        Op(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static final BenchmarkRunner runner = new BenchmarkRunner("NavigationStressTests");
+
+    private final long[][] timings = new long[Op.values().length][];
+    private final int[] counts = new int[Op.values().length];
+    private final LinkedList<String> history = new LinkedList<>();
+
+    private Random random;
+    private long seed;
+    private ActivityProxy activityProxy;
+    private Router router;
+
+    @AfterClass
+    public static void writeResults() throws IOException {
+        runner.writeResults();
+    }
+
+    @Before
+    public void setup() {
+        StressController.instances.clear();
+
+        seed = Long.getLong(PROPERTY_PREFIX + "stressSeed", DEFAULT_SEED);
+        random = new Random(seed);
+
+        activityProxy = new ActivityProxy().create(null).start().resume();
+        router = Conductor.attachRouter(activityProxy.getActivity(), activityProxy.getView(), null);
+        router.setRoot(RouterTransaction.with(newController()));
+    }
+
+    @Test
+    public void randomNavigation() {
+        final int steps = Integer.getInteger(PROPERTY_PREFIX + "stressSteps", 2000);
+        for (Op op : Op.values()) {
+            timings[op.ordinal()] = new long[steps];
+        }
+
+        for (int step = 0; step < steps; step++) {
+            Op op = nextOp();
+
+            long start = System.nanoTime();
+            String description = perform(op);
+            ShadowLooper.idleMainLooper();
+            timings[op.ordinal()][counts[op.ordinal()]++] = System.nanoTime() - start;
+
+            history.add(step + ": " + description);
+            if (history.size() > HISTORY_SIZE) {
+                history.removeFirst();
+            }
+
+            List<String> violations = RouterInvariants.check(router, true);
+            violations.addAll(findLeakedControllers());
+            if (!violations.isEmpty()) {
+                fail("Invariants violated after step " + step + " with seed " + seed + ":\n  " + join(violations)
+                        + "\nLast steps:\n  " + join(history));
+            }
+        }
+
+        addTimingResults();
+    }
+
+    private Op nextOp() {
+        int totalWeight = 0;
+        for (Op op : Op.values()) {
+            totalWeight += op.weight;
+        }
+
+        int pick = random.nextInt(totalWeight);
+        for (Op op : Op.values()) {
+            pick -= op.weight;
+            if (pick < 0) {
+                return op;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private String perform(Op op) {
+        switch (op) {
+            case PUSH:
+                if (router.getBackstackSize() < MAX_DEPTH) {
+                    router.pushController(RouterTransaction.with(newController()));
+                }
+                return "push, depth " + router.getBackstackSize();
+            case HANDLE_BACK:
+                if (router.getBackstackSize() > 1) {
+                    router.handleBack();
+                }
+                return "handleBack, depth " + router.getBackstackSize();
+            case REPLACE_TOP:
+                router.replaceTopController(RouterTransaction.with(newController()));
+                return "replaceTopController";
+            case POP_TO_ROOT:
+                router.popToRoot();
+                return "popToRoot";
+            case SET_BACKSTACK: {
+                List<RouterTransaction> backstack = new ArrayList<>(router.getBackstack());
+                if (random.nextBoolean() && backstack.size() > 1) {
+                    backstack.remove(random.nextInt(backstack.size() - 1));
+                }
+                Collections.shuffle(backstack, random);
+                if (random.nextBoolean()) {
+                    backstack.add(RouterTransaction.with(newController()));
+                }
+                router.setBackstack(backstack, null);
+                return "setBackstack, depth " + backstack.size();
+            }
+            case CHILD_PUSH: {
+                Router childRouter = randomAttachedChildRouter();
+                if (childRouter != null && childRouter.getBackstackSize() < MAX_DEPTH) {
+                    childRouter.pushController(RouterTransaction.with(newLeafController()));
+                    return "child push, depth " + childRouter.getBackstackSize();
+                }
+                return "child push, skipped";
+            }
+            case CHILD_POP: {
+                Router childRouter = randomAttachedChildRouter();
+                if (childRouter != null && childRouter.getBackstackSize() > 1) {
+                    childRouter.handleBack();
+                    return "child handleBack, depth " + childRouter.getBackstackSize();
+                }
+                return "child handleBack, skipped";
+            }
+            case PAGE: {
+                List<StressController> pagers = new ArrayList<>();
+                for (Controller controller : collectControllers(router, new ArrayList<Controller>())) {
+                    if (controller instanceof StressController && ((StressController)controller).getKind() == StressController.KIND_PAGER && controller.isAttached()) {
+                        pagers.add((StressController)controller);
+                    }
+                }
+                if (!pagers.isEmpty()) {
+                    int page = random.nextInt(StressController.PAGE_COUNT);
+                    pagers.get(random.nextInt(pagers.size())).pageTo(page);
+                    return "page to " + page;
+                }
+                return "page, skipped";
+            }
+            case ACTIVITY_STOP_START:
+                activityProxy.pause().stop(false);
+                List<String> stoppedViolations = RouterInvariants.check(router, false);
+                if (!stoppedViolations.isEmpty()) {
+                    fail("Invariants violated while stopped with seed " + seed + ":\n  " + join(stoppedViolations));
+                }
+                activityProxy.start().resume();
+                return "activity stop/start";
+            case CONFIGURATION_CHANGE:
+                activityProxy.rotate();
+                activityProxy.getActivity().isChangingConfigurations = false;
+                router.rebindIfNeeded();
+                return "configuration change";
+            case PROCESS_DEATH: {
+                Bundle savedState = new Bundle();
+                activityProxy.pause().saveInstanceState(savedState).stop(true).destroy();
+
+                activityProxy = new ActivityProxy().create(savedState).start().resume();
+                router = Conductor.attachRouter(activityProxy.getActivity(), activityProxy.getView(), savedState);
+                router.rebindIfNeeded();
+                return "process death, depth " + router.getBackstackSize();
+            }
+        }
+        throw new IllegalStateException("Unhandled operation " + op);
+    }
+
+    private Router randomAttachedChildRouter() {
+        List<Router> childRouters = new ArrayList<>();
+        for (Controller controller : collectControllers(router, new ArrayList<Controller>())) {
+            if (controller.isAttached()) {
+                for (Router childRouter : controller.getChildRouters()) {
+                    if (childRouter.hasRootController()) {
+                        childRouters.add(childRouter);
+                    }
+                }
+            }
+        }
+        return childRouters.isEmpty() ? null : childRouters.get(random.nextInt(childRouters.size()));
+    }
+
+    private List<String> findLeakedControllers() {
+        Set<Controller> reachable = Collections.newSetFromMap(new IdentityHashMap<Controller, Boolean>());
+        reachable.addAll(collectControllers(router, new ArrayList<Controller>()));
+
+        List<String> leaks = new ArrayList<>();
+        for (StressController controller : StressController.instances) {
+            if (!reachable.contains(controller) && !controller.isDestroyed()) {
+                leaks.add(controller.getClass().getSimpleName() + "#" + controller.getInstanceId() + ": removed from every router, but never destroyed");
+            }
+        }
+
+        // Destroyed controllers can't come back, so there's no need to keep checking them.
+        StressController.instances.retainAll(reachable);
+        return leaks;
+    }
+
+    private StressController newController() {
+        int kind = random.nextInt(3);
+        return new StressController(kind, random.nextInt(4) == 0);
+    }
+
+    private StressController newLeafController() {
+        return new StressController(StressController.KIND_LEAF, random.nextInt(4) == 0);
+    }
+
+    private void addTimingResults() {
+        for (Op op : Op.values()) {
+            int count = counts[op.ordinal()];
+            if (count == 0) {
+                continue;
+            }
+
+            long[] opTimings = new long[count];
+            System.arraycopy(timings[op.ordinal()], 0, opTimings, 0, count);
+
+            runner.addResult(op.name().toLowerCase(Locale.US), params("seed", seed, "count", count), opTimings);
+        }
+    }
+
+    private static List<Controller> collectControllers(Router router, List<Controller> controllers) {
+        for (RouterTransaction transaction : router.getBackstack()) {
+            Controller controller = transaction.controller();
+            controllers.add(controller);
+
+            for (Router childRouter : controller.getChildRouters()) {
+                collectControllers(childRouter, controllers);
+            }
+        }
+        return controllers;
+    }
+
+    private static String join(List<String> lines) {
+        StringBuilder builder = new StringBuilder();
+        for (String line : lines) {
+            if (builder.length() > 0) {
+                builder.append("\n  ");
+            }
+            builder.append(line);
+        }
+        return builder.toString();
+    }
+
+}
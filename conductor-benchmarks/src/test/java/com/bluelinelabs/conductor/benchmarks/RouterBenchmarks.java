@@ -0,0 +1,241 @@
+package com.bluelinelabs.conductor.benchmarks;
+
+import android.os.Bundle;
+
+import com.bluelinelabs.conductor.Conductor;
+import com.bluelinelabs.conductor.Router;
+import com.bluelinelabs.conductor.RouterTransaction;
+import com.bluelinelabs.conductor.benchmarks.BenchmarkRunner.Operation;
+import com.bluelinelabs.conductor.util.ActivityProxy;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.bluelinelabs.conductor.benchmarks.BenchmarkRunner.params;
+
+/**
+ * Benchmarks for the core {@link Router} operations across a range of backstack depths and child router fan-outs.
+ * Results are written to {@code build/benchmark-results/RouterBenchmarks.json}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class RouterBenchmarks {
+
+    private static final int[] DEPTHS = { 1, 10, 50 };
+    private static final int[] FAN_OUTS = { 0, 4 };
+
+    private static final String BASE_TAG = "base";
+    private static final int POP_TO_TAG_COUNT = 5;
+
+    private static final BenchmarkRunner runner = new BenchmarkRunner("RouterBenchmarks");
+
+    private final List<ActivityProxy> activityProxies = new ArrayList<>();
+
+    @AfterClass
+    public static void writeResults() throws IOException {
+        runner.writeResults();
+    }
+
+    @After
+    public void tearDown() {
+        for (ActivityProxy activityProxy : activityProxies) {
+            activityProxy.pause().stop(true).destroy();
+        }
+        activityProxies.clear();
+    }
+
+    @Test
+    public void push() {
+        for (int depth : DEPTHS) {
+            for (final int fanOut : FAN_OUTS) {
+                final Router router = createRouter(depth, fanOut);
+                runner.measure("push", params("depth", depth, "fanOut", fanOut), new Operation() {
+                    @Override
+                    public void run() {
+                        router.pushController(RouterTransaction.with(new FanOutController(fanOut)));
+                    }
+
+                    @Override
+                    public void tearDown() {
+                        router.popCurrentController();
+                    }
+                });
+            }
+        }
+    }
+
+    @Test
+    public void pop() {
+        for (int depth : DEPTHS) {
+            for (final int fanOut : FAN_OUTS) {
+                final Router router = createRouter(depth, fanOut);
+                runner.measure("pop", params("depth", depth, "fanOut", fanOut), new Operation() {
+                    @Override
+                    public void setUp() {
+                        router.pushController(RouterTransaction.with(new FanOutController(fanOut)));
+                    }
+
+                    @Override
+                    public void run() {
+                        router.popCurrentController();
+                    }
+                });
+            }
+        }
+    }
+
+    @Test
+    public void replaceTopController() {
+        for (int depth : DEPTHS) {
+            for (final int fanOut : FAN_OUTS) {
+                final Router router = createRouter(depth, fanOut);
+                runner.measure("replaceTopController", params("depth", depth, "fanOut", fanOut), new Operation() {
+                    @Override
+                    public void run() {
+                        router.replaceTopController(RouterTransaction.with(new FanOutController(fanOut)));
+                    }
+                });
+            }
+        }
+    }
+
+    @Test
+    public void setBackstack() {
+        for (final int depth : DEPTHS) {
+            for (final int fanOut : FAN_OUTS) {
+                final Router router = createRouter(depth, fanOut);
+                runner.measure("setBackstack", params("depth", depth, "fanOut", fanOut), new Operation() {
+                    List<RouterTransaction> backstack;
+
+                    @Override
+                    public void setUp() {
+                        backstack = createBackstack(depth, fanOut);
+                    }
+
+                    @Override
+                    public void run() {
+                        router.setBackstack(backstack, null);
+                    }
+                });
+            }
+        }
+    }
+
+    @Test
+    public void popToTag() {
+        for (int depth : DEPTHS) {
+            for (final int fanOut : FAN_OUTS) {
+                final Router router = createRouter(depth, fanOut);
+                runner.measure("popToTag", params("depth", depth, "fanOut", fanOut, "popped", POP_TO_TAG_COUNT), new Operation() {
+                    @Override
+                    public void setUp() {
+                        for (int i = 0; i < POP_TO_TAG_COUNT; i++) {
+                            router.pushController(RouterTransaction.with(new FanOutController(fanOut)));
+                        }
+                    }
+
+                    @Override
+                    public void run() {
+                        router.popToTag(BASE_TAG);
+                    }
+                });
+            }
+        }
+    }
+
+    @Test
+    public void saveInstanceState() {
+        for (int depth : DEPTHS) {
+            for (final int fanOut : FAN_OUTS) {
+                final Router router = createRouter(depth, fanOut);
+                runner.measure("saveInstanceState", params("depth", depth, "fanOut", fanOut), new Operation() {
+                    @Override
+                    public void run() {
+                        router.saveInstanceState(new Bundle());
+                    }
+                });
+            }
+        }
+    }
+
+    @Test
+    public void restoreInstanceState() {
+        for (int depth : DEPTHS) {
+            for (final int fanOut : FAN_OUTS) {
+                final Bundle savedState = new Bundle();
+                createRouter(depth, fanOut).saveInstanceState(savedState);
+
+                runner.measure("restoreInstanceState", params("depth", depth, "fanOut", fanOut), new Operation() {
+                    Router restoredRouter;
+                    ActivityProxy activityProxy;
+
+                    @Override
+                    public void setUp() {
+                        activityProxy = new ActivityProxy().create(null).start().resume();
+                        restoredRouter = Conductor.attachRouter(activityProxy.getActivity(), activityProxy.getView(), null);
+                    }
+
+                    @Override
+                    public void run() {
+                        restoredRouter.restoreInstanceState(new Bundle(savedState));
+                        restoredRouter.rebindIfNeeded();
+                    }
+
+                    @Override
+                    public void tearDown() {
+                        activityProxy.pause().stop(true).destroy();
+                    }
+                });
+            }
+        }
+    }
+
+    @Test
+    public void handleBack() {
+        for (int depth : DEPTHS) {
+            for (final int fanOut : FAN_OUTS) {
+                final Router router = createRouter(depth, fanOut);
+                runner.measure("handleBack", params("depth", depth, "fanOut", fanOut), new Operation() {
+                    @Override
+                    public void setUp() {
+                        router.pushController(RouterTransaction.with(new FanOutController(fanOut)));
+                    }
+
+                    @Override
+                    public void run() {
+                        router.handleBack();
+                    }
+                });
+            }
+        }
+    }
+
+    private Router createRouter(int depth, int fanOut) {
+        ActivityProxy activityProxy = new ActivityProxy().create(null).start().resume();
+        activityProxies.add(activityProxy);
+        Router router = Conductor.attachRouter(activityProxy.getActivity(), activityProxy.getView(), null);
+        router.setBackstack(createBackstack(depth, fanOut), null);
+        return router;
+    }
+
+    private static List<RouterTransaction> createBackstack(int depth, int fanOut) {
+        List<RouterTransaction> backstack = new ArrayList<>(depth);
+        for (int i = 0; i < depth; i++) {
+            RouterTransaction transaction = RouterTransaction.with(new FanOutController(fanOut));
+            if (i == depth - 1) {
+                transaction.tag(BASE_TAG);
+            }
+            backstack.add(transaction);
+        }
+        return backstack;
+    }
+
+}
@@ -0,0 +1,190 @@
+package com.bluelinelabs.conductor.benchmarks;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import com.bluelinelabs.conductor.Controller;
+import com.bluelinelabs.conductor.Router;
+import com.bluelinelabs.conductor.RouterTransaction;
+import com.bluelinelabs.conductor.support.RouterPagerAdapter;
+import com.bluelinelabs.conductor.util.AttachFakingFrameLayout;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * A Controller used by {@link NavigationStressTests}. Depending on its kind it's either a leaf, hosts a couple of
+ * child routers, or hosts a {@link RouterPagerAdapter} driven the same way a ViewPager with an offscreen page limit
+ * of one would drive it. Every instance, including those restored from saved state, is registered so the stress
+ * test can find controllers that were removed without ever being destroyed.
+ */
+public class StressController extends Controller {
+
+    public static final int KIND_LEAF = 0;
+    public static final int KIND_NESTED = 1;
+    public static final int KIND_PAGER = 2;
+
+    public static final int NESTED_CHILD_COUNT = 2;
+    public static final int PAGE_COUNT = 5;
+
+    private static final String KEY_KIND = "StressController.kind";
+    private static final String KEY_RETAIN_VIEW = "StressController.retainView";
+    private static final String KEY_CURRENT_PAGE = "StressController.currentPage";
+    private static final String KEY_PAGER_STATE = "StressController.pagerState";
+
+    private static final int FIRST_CHILD_CONTAINER_ID = 2000;
+    private static final int PAGER_CONTAINER_ID = 2100;
+
+    static final Set<StressController> instances = Collections.newSetFromMap(new IdentityHashMap<StressController, Boolean>());
+
+    @Nullable private final RouterPagerAdapter pagerAdapter;
+    private final SparseArray<Object> pages = new SparseArray<>();
+    private ViewGroup pagerContainer;
+    private int currentPage;
+
+    public StressController(int kind, boolean retainView) {
+        this(createArgs(kind, retainView));
+    }
+
+    public StressController(Bundle args) {
+        super(args);
+        instances.add(this);
+
+        if (args.getBoolean(KEY_RETAIN_VIEW)) {
+            setRetainViewMode(RetainViewMode.RETAIN_DETACH);
+        }
+
+        if (getKind() == KIND_PAGER) {
+            pagerAdapter = new RouterPagerAdapter(this) {
+                @Override
+                public void configureRouter(@NonNull Router router, int position) {
+                    if (!router.hasRootController()) {
+                        router.setRoot(RouterTransaction.with(new StressController(position % 2 == 0 ? KIND_LEAF : KIND_NESTED, false)));
+                    }
+                }
+
+                @Override
+                public int getCount() {
+                    return PAGE_COUNT;
+                }
+            };
+        } else {
+            pagerAdapter = null;
+        }
+    }
+
+    public int getKind() {
+        return getArgs().getInt(KEY_KIND);
+    }
+
+    @NonNull
+    @Override
+    protected View onCreateView(@NonNull LayoutInflater inflater, @NonNull ViewGroup container) {
+        FrameLayout view = new AttachFakingFrameLayout(inflater.getContext());
+
+        if (getKind() == KIND_NESTED) {
+            for (int i = 0; i < NESTED_CHILD_COUNT; i++) {
+                FrameLayout childContainer = new AttachFakingFrameLayout(inflater.getContext());
+                childContainer.setId(FIRST_CHILD_CONTAINER_ID + i);
+                view.addView(childContainer);
+            }
+        } else if (getKind() == KIND_PAGER) {
+            pagerContainer = new AttachFakingFrameLayout(inflater.getContext());
+            pagerContainer.setId(PAGER_CONTAINER_ID);
+            view.addView(pagerContainer);
+        }
+
+        return view;
+    }
+
+    @Override
+    protected void onAttach(@NonNull View view) {
+        super.onAttach(view);
+
+        if (getKind() == KIND_NESTED) {
+            for (int i = 0; i < NESTED_CHILD_COUNT; i++) {
+                Router childRouter = getChildRouter((ViewGroup)view.findViewById(FIRST_CHILD_CONTAINER_ID + i));
+                if (!childRouter.hasRootController()) {
+                    childRouter.setRoot(RouterTransaction.with(new StressController(KIND_LEAF, false)));
+                }
+            }
+        } else if (getKind() == KIND_PAGER) {
+            pageTo(currentPage);
+        }
+    }
+
+    @Override
+    protected void onDestroyView(@NonNull View view) {
+        super.onDestroyView(view);
+
+        // A ViewPager that goes away doesn't destroy its items, so the page routers are rebound on the next view.
+        pages.clear();
+        pagerContainer = null;
+    }
+
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+
+        outState.putInt(KEY_CURRENT_PAGE, currentPage);
+        if (pagerAdapter != null) {
+            outState.putParcelable(KEY_PAGER_STATE, pagerAdapter.saveState());
+        }
+    }
+
+    @Override
+    protected void onRestoreInstanceState(@NonNull Bundle savedInstanceState) {
+        super.onRestoreInstanceState(savedInstanceState);
+
+        currentPage = savedInstanceState.getInt(KEY_CURRENT_PAGE);
+        if (pagerAdapter != null) {
+            pagerAdapter.restoreState(savedInstanceState.getParcelable(KEY_PAGER_STATE), getClass().getClassLoader());
+        }
+    }
+
+    /**
+     * Moves the pager to the passed page, instantiating the pages next to it and destroying those further away.
+     * Has no effect other than remembering the page while this controller has no view.
+     */
+    public void pageTo(int page) {
+        currentPage = page;
+        if (pagerAdapter == null || pagerContainer == null) {
+            return;
+        }
+
+        int firstPage = Math.max(0, page - 1);
+        int lastPage = Math.min(PAGE_COUNT - 1, page + 1);
+
+        for (int i = pages.size() - 1; i >= 0; i--) {
+            int position = pages.keyAt(i);
+            if (position < firstPage || position > lastPage) {
+                pagerAdapter.destroyItem(pagerContainer, position, pages.valueAt(i));
+                pages.removeAt(i);
+            }
+        }
+
+        for (int position = firstPage; position <= lastPage; position++) {
+            if (pages.get(position) == null) {
+                pages.put(position, pagerAdapter.instantiateItem(pagerContainer, position));
+            }
+        }
+
+        pagerAdapter.setPrimaryItem(pagerContainer, page, pages.get(page));
+    }
+
+    @NonNull
+    private static Bundle createArgs(int kind, boolean retainView) {
+        Bundle args = new Bundle();
+        args.putInt(KEY_KIND, kind);
+        args.putBoolean(KEY_RETAIN_VIEW, retainView);
+        return args;
+    }
+
+}
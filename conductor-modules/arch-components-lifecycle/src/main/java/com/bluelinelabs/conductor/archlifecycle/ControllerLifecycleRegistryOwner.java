@@ -68,6 +68,12 @@ public class ControllerLifecycleRegistryOwner extends LifecycleListener implemen
             public void postDestroy(@NonNull Controller controller) {
                 lifecycleRegistry.markState(State.DESTROYED);
             }
+
+            @Override
+            public void onReset(@NonNull Controller controller) {
+                lifecycleRegistry.handleLifecycleEvent(Event.ON_CREATE);
+                lifecycleRegistry.markState(State.CREATED);
+            }
         });
     }
 
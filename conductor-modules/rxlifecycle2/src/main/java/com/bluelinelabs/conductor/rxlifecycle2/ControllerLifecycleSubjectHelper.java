@@ -64,6 +64,11 @@ public class ControllerLifecycleSubjectHelper {
             public void preDestroy(@NonNull Controller controller) {
                 subject.onNext(ControllerEvent.DESTROY);
             }
+
+            @Override
+            public void onReset(@NonNull Controller controller) {
+                subject.onNext(ControllerEvent.CREATE);
+            }
         });
 
         return subject;
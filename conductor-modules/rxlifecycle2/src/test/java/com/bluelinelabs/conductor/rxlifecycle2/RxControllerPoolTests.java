@@ -0,0 +1,92 @@
+package com.bluelinelabs.conductor.rxlifecycle2;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import com.bluelinelabs.conductor.Conductor;
+import com.bluelinelabs.conductor.Router;
+import com.bluelinelabs.conductor.RouterTransaction;
+import com.bluelinelabs.conductor.util.ActivityProxy;
+import com.bluelinelabs.conductor.util.TestController;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.reactivex.functions.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class RxControllerPoolTests {
+
+    private Router router;
+
+    @Before
+    public void setup() {
+        ActivityProxy activityProxy = new ActivityProxy().create(null).start().resume();
+        router = Conductor.attachRouter(activityProxy.getActivity(), activityProxy.getView(), null);
+        router.setRoot(RouterTransaction.with(new TestController()));
+        router.setControllerPoolSize(TestRxController.class, 1);
+    }
+
+    @Test
+    public void testReusedControllerLifecycle() {
+        TestRxController controller = router.obtainController(TestRxController.class, null);
+        router.pushController(RouterTransaction.with(controller));
+        router.popCurrentController();
+
+        assertTrue(controller.isDestroyed());
+
+        TestRxController reused = router.obtainController(TestRxController.class, null);
+        assertSame(controller, reused);
+
+        final List<ControllerEvent> events = new ArrayList<>();
+        reused.lifecycle().subscribe(new Consumer<ControllerEvent>() {
+            @Override
+            public void accept(ControllerEvent event) {
+                events.add(event);
+            }
+        });
+
+        router.pushController(RouterTransaction.with(reused));
+
+        assertEquals(Arrays.asList(ControllerEvent.CREATE, ControllerEvent.CONTEXT_AVAILABLE, ControllerEvent.CREATE_VIEW, ControllerEvent.ATTACH), events);
+
+        router.popCurrentController();
+
+        assertEquals(ControllerEvent.DESTROY, events.get(events.size() - 1));
+    }
+
+    public static class TestRxController extends RxController {
+
+        public TestRxController() {
+            super();
+        }
+
+        public TestRxController(@Nullable Bundle args) {
+            super(args);
+        }
+
+        @NonNull
+        @Override
+        protected View onCreateView(@NonNull LayoutInflater inflater, @NonNull ViewGroup container) {
+            return new FrameLayout(inflater.getContext());
+        }
+    }
+
+}
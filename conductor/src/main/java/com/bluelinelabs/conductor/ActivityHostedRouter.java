@@ -22,6 +22,8 @@ public class ActivityHostedRouter extends Router {
 
     public final void setHost(@NonNull LifecycleHandler lifecycleHandler, @NonNull ViewGroup container) {
         if (this.lifecycleHandler != lifecycleHandler || this.container != container) {
+            final boolean isFirstHost = this.lifecycleHandler == null;
+
             if (this.container != null && this.container instanceof ControllerChangeListener) {
                 removeChangeListener((ControllerChangeListener)this.container);
             }
@@ -34,6 +36,10 @@ public class ActivityHostedRouter extends Router {
             this.container = container;
 
             watchContainerAttach();
+
+            if (isFirstHost) {
+                Hooks.routerCreated(this);
+            }
         }
     }
 
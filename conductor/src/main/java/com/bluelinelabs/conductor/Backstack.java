@@ -16,6 +16,11 @@ class Backstack implements Iterable<RouterTransaction> {
     private static final String KEY_ENTRIES = "Backstack.entries";
 
     private final Deque<RouterTransaction> backstack = new ArrayDeque<>();
+    @Nullable private IdleDestroyQueue idleDestroyQueue;
+
+    void setIdleDestroyQueue(@Nullable IdleDestroyQueue idleDestroyQueue) {
+        this.idleDestroyQueue = idleDestroyQueue;
+    }
 
     @SuppressWarnings("BooleanMethodIsAlwaysInverted")
     boolean isEmpty() {
@@ -58,7 +63,7 @@ class Backstack implements Iterable<RouterTransaction> {
     @NonNull
     RouterTransaction pop() {
         RouterTransaction popped = backstack.pop();
-        popped.controller.destroy();
+        destroy(popped.controller);
         return popped;
     }
 
@@ -95,7 +100,7 @@ class Backstack implements Iterable<RouterTransaction> {
             }
 
             if (!contains) {
-                existingTransaction.controller.destroy();
+                destroy(existingTransaction.controller);
             }
         }
 
@@ -105,6 +110,16 @@ class Backstack implements Iterable<RouterTransaction> {
         }
     }
 
+    private void destroy(@NonNull Controller controller) {
+        // Controllers that are still attached are torn down by their change handler, so only the ones that
+        // are no longer visible can wait for the queue.
+        if (idleDestroyQueue != null && !controller.isAttached()) {
+            idleDestroyQueue.enqueue(controller);
+        } else {
+            controller.destroy();
+        }
+    }
+
     boolean contains(@NonNull RouterTransaction transaction) {
         return backstack.contains(transaction);
     }
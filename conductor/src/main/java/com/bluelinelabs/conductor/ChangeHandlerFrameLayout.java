@@ -7,15 +7,19 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
+import android.view.View;
 import android.view.ViewGroup;
 import android.widget.FrameLayout;
 
 import com.bluelinelabs.conductor.ControllerChangeHandler.ControllerChangeListener;
+import com.bluelinelabs.conductor.internal.ContainerAttachHandler;
 
 /**
  * A FrameLayout implementation that can be used to block user interactions while
  * {@link ControllerChangeHandler}s are performing changes. It is not required to use this
- * ViewGroup, but it can be helpful.
+ * ViewGroup, but it can be helpful. It also lets hosted {@link Controller}s know they've been
+ * attached or detached as soon as their views are added or removed, rather than once the change
+ * handler returns or completes.
  */
 public class ChangeHandlerFrameLayout extends FrameLayout implements ControllerChangeListener {
 
@@ -43,6 +47,27 @@ public class ChangeHandlerFrameLayout extends FrameLayout implements ControllerC
         return (inProgressTransactionCount > 0) || super.onInterceptTouchEvent(ev);
     }
 
+    // ViewGroup has called these since API 14, they were only made public in API 23.
+    @Override
+    public void onViewAdded(View child) {
+        super.onViewAdded(child);
+
+        ContainerAttachHandler attachHandler = ContainerAttachHandler.find(this);
+        if (attachHandler != null) {
+            attachHandler.onViewAdded(child);
+        }
+    }
+
+    @Override
+    public void onViewRemoved(View child) {
+        super.onViewRemoved(child);
+
+        ContainerAttachHandler attachHandler = ContainerAttachHandler.find(this);
+        if (attachHandler != null) {
+            attachHandler.onViewRemoved(child);
+        }
+    }
+
     @Override
     public void onChangeStarted(@Nullable Controller to, @Nullable Controller from, boolean isPush, @NonNull ViewGroup container, @NonNull ControllerChangeHandler handler) {
         inProgressTransactionCount++;
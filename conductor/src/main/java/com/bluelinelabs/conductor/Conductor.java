@@ -8,8 +8,11 @@ import android.support.annotation.UiThread;
 import android.view.ViewGroup;
 
 import com.bluelinelabs.conductor.internal.LifecycleHandler;
+import com.bluelinelabs.conductor.internal.SnapshotCache;
 import com.bluelinelabs.conductor.internal.ThreadUtils;
 
+import java.io.PrintWriter;
+
 /**
  * Point of initial interaction with Conductor. Used to attach a {@link Router} to your Activity.
  */
@@ -41,4 +44,91 @@ public final class Conductor {
         return router;
     }
 
+    /**
+     * Sets the maximum total size, in bytes, of the placeholder snapshots kept for Controllers that have enabled
+     * them through {@link Controller#setPlaceholderSnapshotEnabled(boolean)}. This limit is shared across all
+     * Routers. Passing 0 disables placeholder snapshots entirely.
+     *
+     * @param maxSizeBytes The maximum size of the snapshot cache, in bytes
+     */
+    @UiThread
+    public static void setSnapshotCacheSize(int maxSizeBytes) {
+        ThreadUtils.ensureMainThread();
+
+        SnapshotCache.setMaxSize(maxSizeBytes);
+    }
+
+    /**
+     * Sets a {@link ConductorTracer} to be notified around each {@link Controller} lifecycle phase and each stage of
+     * a {@link ControllerChangeHandler} change, or removes the current one if null is passed. No tracer is set by
+     * default. This is best called once, before any Routers are attached, so that no section is left open across
+     * tracers.
+     *
+     * @param tracer The tracer to notify, such as a {@link SystraceTracer}, or null to stop tracing
+     */
+    @UiThread
+    public static void setTracer(@Nullable ConductorTracer tracer) {
+        ThreadUtils.ensureMainThread();
+
+        Tracing.tracer = tracer;
+    }
+
+    /**
+     * Sets a {@link StrictModePolicy} used to catch developer callbacks that take too long on the main thread, or
+     * removes the current one if null is passed. No policy is set by default, in which case callbacks aren't timed.
+     *
+     * @param policy The policy to enforce, or null to stop timing callbacks
+     */
+    @UiThread
+    public static void setStrictModePolicy(@Nullable StrictModePolicy policy) {
+        ThreadUtils.ensureMainThread();
+
+        StrictModeChecks.policy = policy;
+    }
+
+    /**
+     * Writes a description of every {@link Router} attached to the given Activity to the given writer, as described in
+     * {@link Router#dump(String, PrintWriter)}. The same description is included in
+     * {@code adb shell dumpsys activity} output for the Activity.
+     *
+     * @param activity The Activity whose Routers should be described
+     * @param writer The writer to write to
+     */
+    @UiThread
+    public static void dump(@NonNull Activity activity, @NonNull PrintWriter writer) {
+        ThreadUtils.ensureMainThread();
+
+        LifecycleHandler lifecycleHandler = LifecycleHandler.findInActivity(activity);
+        if (lifecycleHandler != null) {
+            for (Router router : lifecycleHandler.getRouters()) {
+                router.dump("", writer);
+            }
+        }
+    }
+
+    /**
+     * Registers an observer to be notified of Router creation, Controller changes and Controller lifecycle events
+     * across every Router in the process. While no observers are registered, none of these events are dispatched.
+     *
+     * @param observer The observer to register
+     */
+    @UiThread
+    public static void addObserver(@NonNull ConductorObserver observer) {
+        ThreadUtils.ensureMainThread();
+
+        ConductorObservers.add(observer);
+    }
+
+    /**
+     * Unregisters a previously registered observer.
+     *
+     * @param observer The observer to unregister
+     */
+    @UiThread
+    public static void removeObserver(@NonNull ConductorObserver observer) {
+        ThreadUtils.ensureMainThread();
+
+        ConductorObservers.remove(observer);
+    }
+
 }
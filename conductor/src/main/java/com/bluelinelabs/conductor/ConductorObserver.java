@@ -0,0 +1,38 @@
+package com.bluelinelabs.conductor;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.ViewGroup;
+
+import com.bluelinelabs.conductor.Controller.LifecycleListener;
+
+/**
+ * Receives events from every {@link Router} and {@link Controller} in the process, including child Routers created
+ * along the way, without having to add listeners to each of them. Lifecycle events are delivered through the
+ * {@link LifecycleListener} methods, after any listeners added to the Controller itself. Register one through
+ * {@link Conductor#addObserver(ConductorObserver)}.
+ */
+public abstract class ConductorObserver extends LifecycleListener {
+
+    /**
+     * Called when a Router is created, either for an Activity or as a child of a Controller. A child Router being
+     * restored from saved state may not have a container yet.
+     */
+    public void onRouterCreated(@NonNull Router router) { }
+
+    /**
+     * Called when a Router has been asked to change from one Controller to another, before the change is queued up.
+     */
+    public void onChangeRequested(@NonNull Router router, @Nullable Controller to, @Nullable Controller from, boolean isPush, @Nullable ControllerChangeHandler changeHandler) { }
+
+    /**
+     * Called when a change has started, after the Router's own change listeners have been notified.
+     */
+    public void onChangeStarted(@NonNull Router router, @Nullable Controller to, @Nullable Controller from, boolean isPush, @NonNull ViewGroup container, @NonNull ControllerChangeHandler changeHandler) { }
+
+    /**
+     * Called when a change has completed, after the Router's own change listeners have been notified.
+     */
+    public void onChangeCompleted(@NonNull Router router, @Nullable Controller to, @Nullable Controller from, boolean isPush, @NonNull ViewGroup container, @NonNull ControllerChangeHandler changeHandler) { }
+
+}
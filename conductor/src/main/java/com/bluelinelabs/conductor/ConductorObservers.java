@@ -0,0 +1,76 @@
+package com.bluelinelabs.conductor;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.ViewGroup;
+
+import com.bluelinelabs.conductor.Controller.LifecycleListener;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Holds the observers registered through {@link Conductor#addObserver(ConductorObserver)}. Observers are kept in an
+ * array that is replaced on every change, so dispatching never allocates and costs a single length check while none
+ * are registered.
+ */
+final class ConductorObservers {
+
+    private static final ConductorObserver[] EMPTY = new ConductorObserver[0];
+
+    @NonNull private static ConductorObserver[] observers = EMPTY;
+
+    private ConductorObservers() {}
+
+    static void add(@NonNull ConductorObserver observer) {
+        if (!Arrays.asList(observers).contains(observer)) {
+            ConductorObserver[] newObservers = Arrays.copyOf(observers, observers.length + 1);
+            newObservers[observers.length] = observer;
+            observers = newObservers;
+        }
+    }
+
+    static void remove(@NonNull ConductorObserver observer) {
+        List<ConductorObserver> list = Arrays.asList(observers);
+        final int index = list.indexOf(observer);
+        if (index >= 0) {
+            ConductorObserver[] newObservers = new ConductorObserver[observers.length - 1];
+            System.arraycopy(observers, 0, newObservers, 0, index);
+            System.arraycopy(observers, index + 1, newObservers, index, newObservers.length - index);
+            observers = newObservers;
+        }
+    }
+
+    static boolean isEmpty() {
+        return observers.length == 0;
+    }
+
+    static void addLifecycleListeners(@NonNull List<LifecycleListener> listeners) {
+        listeners.addAll(Arrays.asList(observers));
+    }
+
+    static void dispatchRouterCreated(@NonNull Router router) {
+        for (ConductorObserver observer : observers) {
+            observer.onRouterCreated(router);
+        }
+    }
+
+    static void dispatchChangeRequested(@NonNull Router router, @Nullable Controller to, @Nullable Controller from, boolean isPush, @Nullable ControllerChangeHandler changeHandler) {
+        for (ConductorObserver observer : observers) {
+            observer.onChangeRequested(router, to, from, isPush, changeHandler);
+        }
+    }
+
+    static void dispatchChangeStarted(@NonNull Router router, @Nullable Controller to, @Nullable Controller from, boolean isPush, @NonNull ViewGroup container, @NonNull ControllerChangeHandler changeHandler) {
+        for (ConductorObserver observer : observers) {
+            observer.onChangeStarted(router, to, from, isPush, container, changeHandler);
+        }
+    }
+
+    static void dispatchChangeCompleted(@NonNull Router router, @Nullable Controller to, @Nullable Controller from, boolean isPush, @NonNull ViewGroup container, @NonNull ControllerChangeHandler changeHandler) {
+        for (ConductorObserver observer : observers) {
+            observer.onChangeCompleted(router, to, from, isPush, container, changeHandler);
+        }
+    }
+
+}
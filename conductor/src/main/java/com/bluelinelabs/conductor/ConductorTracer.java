@@ -0,0 +1,27 @@
+package com.bluelinelabs.conductor;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Receives the boundaries of the work Conductor does for each {@link Controller} lifecycle phase and each stage of a
+ * {@link ControllerChangeHandler} change. Sections are always properly nested and are only ever opened and closed
+ * on the main thread. Set one through {@link Conductor#setTracer(ConductorTracer)}.
+ *
+ * @see SystraceTracer
+ */
+public interface ConductorTracer {
+
+    /**
+     * Called when a section of work begins.
+     *
+     * @param sectionName A name for the section, made up of the phase followed by the simple name of the
+     *                    Controller or ControllerChangeHandler class doing the work.
+     */
+    void beginSection(@NonNull String sectionName);
+
+    /**
+     * Called when the most recently begun section of work has ended.
+     */
+    void endSection();
+
+}
@@ -2,12 +2,16 @@ package com.bluelinelabs.conductor;
 
 import android.annotation.TargetApi;
 import android.app.Activity;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentSender;
 import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Parcel;
 import android.os.Parcelable;
 import android.support.annotation.IdRes;
 import android.support.annotation.NonNull;
@@ -20,12 +24,24 @@ import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewStub;
+import android.widget.ImageView;
 
 import com.bluelinelabs.conductor.internal.ClassUtils;
+import com.bluelinelabs.conductor.internal.ContainerAttachHandler;
+import com.bluelinelabs.conductor.internal.InstanceIdGenerator;
+import com.bluelinelabs.conductor.internal.PlaceholderSnapshotter;
 import com.bluelinelabs.conductor.internal.RouterRequiringFunc;
+import com.bluelinelabs.conductor.internal.SnapshotCache;
+import com.bluelinelabs.conductor.internal.SnapshotCache.Snapshot;
+import com.bluelinelabs.conductor.internal.StagedInflater;
+import com.bluelinelabs.conductor.internal.StagedInflater.StagedInflationListener;
+import com.bluelinelabs.conductor.internal.TrimMemoryTier;
 import com.bluelinelabs.conductor.internal.ViewAttachHandler;
 import com.bluelinelabs.conductor.internal.ViewAttachHandler.ViewAttachListener;
+import com.bluelinelabs.conductor.internal.ViewSnapshotUtils;
 
+import java.io.PrintWriter;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
@@ -33,7 +49,6 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.UUID;
 
 /**
  * A Controller manages portions of the UI. It is similar to an Activity or Fragment in that it manages its
@@ -57,8 +72,11 @@ public abstract class Controller {
     private static final String KEY_VIEW_STATE_HIERARCHY = "Controller.viewState.hierarchy";
     static final String KEY_VIEW_STATE_BUNDLE = "Controller.viewState.bundle";
     private static final String KEY_RETAIN_VIEW_MODE = "Controller.retainViewMode";
+    private static final String KEY_SNAPSHOT_WHEN_COVERED = "Controller.snapshotWhenCovered";
+    private static final String KEY_OPAQUE = "Controller.opaque";
+    private static final String KEY_PLACEHOLDER_SNAPSHOT_ENABLED = "Controller.placeholderSnapshotEnabled";
 
-    private final Bundle args;
+    private Bundle args;
 
     Bundle viewState;
     private Bundle savedInstanceState;
@@ -81,41 +99,57 @@ public abstract class Controller {
     private ControllerChangeHandler overriddenPushHandler;
     private ControllerChangeHandler overriddenPopHandler;
     private RetainViewMode retainViewMode = RetainViewMode.RELEASE_DETACH;
+    private boolean snapshotWhenCovered;
+    private ImageView snapshotView;
+    private boolean opaque;
+    private boolean hiddenByOcclusion;
+    private boolean placeholderSnapshotEnabled;
+    private PlaceholderSnapshotter placeholderSnapshotter;
+    private boolean retainsViewWhileInactive;
     private ViewAttachHandler viewAttachHandler;
-    private final List<ControllerHostedRouter> childRouters = new ArrayList<>();
-    private final List<LifecycleListener> lifecycleListeners = new ArrayList<>();
-    private final ArrayList<String> requestedPermissions = new ArrayList<>();
-    private final ArrayList<RouterRequiringFunc> onRouterSetListeners = new ArrayList<>();
+    private StagedInflater stagedInflater;
+    private List<ControllerHostedRouter> childRouters = Collections.emptyList();
+    private List<LifecycleListener> lifecycleListeners = Collections.emptyList();
+    private List<String> requestedPermissions = Collections.emptyList();
+    private List<RouterRequiringFunc> onRouterSetListeners = Collections.emptyList();
     private WeakReference<View> destroyedView;
     private boolean isPerformingExitTransition;
     private boolean isContextAvailable;
+    private PoolState poolState;
 
     @NonNull
     static Controller newInstance(@NonNull Bundle bundle) {
         final String className = bundle.getString(KEY_CLASS_NAME);
         //noinspection ConstantConditions
-        Class cls = ClassUtils.classForName(className, false);
+        Class<? extends Controller> cls = ClassUtils.classForName(className, false);
+
+        Bundle args = bundle.getBundle(KEY_ARGS);
+        if (args != null) {
+            //noinspection ConstantConditions
+            args.setClassLoader(cls.getClassLoader());
+        }
+
+        //noinspection ConstantConditions
+        Controller controller = newInstance(cls, args);
+        controller.restoreInstanceState(bundle);
+        return controller;
+    }
+
+    @NonNull
+    static <T extends Controller> T newInstance(@NonNull Class<T> cls, @Nullable Bundle args) {
         Constructor[] constructors = cls.getConstructors();
         Constructor bundleConstructor = getBundleConstructor(constructors);
 
-        Controller controller;
         try {
             if (bundleConstructor != null) {
-                Bundle args = bundle.getBundle(KEY_ARGS);
-                if (args != null) {
-                    args.setClassLoader(cls.getClassLoader());
-                }
-                controller = (Controller)bundleConstructor.newInstance(args);
+                return cls.cast(bundleConstructor.newInstance(args));
             } else {
                 //noinspection ConstantConditions
-                controller = (Controller)getDefaultConstructor(constructors).newInstance();
+                return cls.cast(getDefaultConstructor(constructors).newInstance());
             }
         } catch (Exception e) {
-            throw new RuntimeException("An exception occurred while creating a new instance of " + className + ". " + e.getMessage(), e);
+            throw new RuntimeException("An exception occurred while creating a new instance of " + cls.getName() + ". " + e.getMessage(), e);
         }
-
-        controller.restoreInstanceState(bundle);
-        return controller;
     }
 
     /**
@@ -131,8 +165,9 @@ public abstract class Controller {
      * @param args Any arguments that need to be retained.
      */
     protected Controller(@Nullable Bundle args) {
-        this.args = args != null ? args : new Bundle(getClass().getClassLoader());
-        instanceId = UUID.randomUUID().toString();
+        // The args Bundle, instance ID and listener lists are all allocated on first use, as many controllers
+        // never need some or all of them.
+        this.args = args;
         ensureRequiredConstructor();
     }
 
@@ -149,6 +184,64 @@ public abstract class Controller {
     @NonNull
     protected abstract View onCreateView(@NonNull LayoutInflater inflater, @NonNull ViewGroup container);
 
+    /**
+     * Registers a portion of this Controller's view that should be inflated after the Controller has been
+     * attached rather than in {@link #onCreateView(LayoutInflater, ViewGroup)}. This allows very large layouts
+     * to get a skeleton on screen in their first frame and fill in the remaining sections over the following
+     * frames. Stages are run in the order they were added, as many per frame as fit within the inflation
+     * frame budget (see {@link #setInflationFrameBudget(long)}). Pending stages are paused while this
+     * Controller is detached and discarded when its view is destroyed, so they should be added from
+     * {@link #onCreateView(LayoutInflater, ViewGroup)}. Note that the saved view state of anything created
+     * by a stage will not be restored automatically, as it did not exist yet when the view state was restored.
+     *
+     * @param stage The stage to be run once this Controller has been attached
+     */
+    protected final void addInflationStage(@NonNull final InflationStage stage) {
+        getStagedInflater().addStage(new StagedInflater.Stage() {
+            @Override
+            public void inflate(@NonNull View view) {
+                stage.inflate(view);
+            }
+        });
+    }
+
+    /**
+     * Convenience method for deferring the inflation of a {@link ViewStub} within this Controller's view until
+     * after the Controller has been attached. See {@link #addInflationStage(InflationStage)}. Running the stage
+     * throws an {@link IllegalStateException} if no ViewStub with the passed ID is found in this Controller's view.
+     *
+     * @param viewStubId The ID of the ViewStub that should be inflated
+     */
+    protected final void addInflationStage(@IdRes final int viewStubId) {
+        addInflationStage(new InflationStage() {
+            @Override
+            public void inflate(@NonNull View view) {
+                View stub = view.findViewById(viewStubId);
+                if (!(stub instanceof ViewStub)) {
+                    throw new IllegalStateException(getClass().getSimpleName() + " added an inflation stage for a ViewStub that isn't in its view.");
+                }
+                ((ViewStub)stub).inflate();
+            }
+        });
+    }
+
+    /**
+     * Sets the amount of time per frame that may be spent running this Controller's inflation stages. At least
+     * one stage is always run per frame, regardless of this budget. Defaults to 8ms.
+     *
+     * @param budgetMs The per-frame time budget, in milliseconds
+     */
+    public final void setInflationFrameBudget(long budgetMs) {
+        getStagedInflater().setFrameBudget(budgetMs);
+    }
+
+    /**
+     * Returns whether or not this Controller has inflation stages that have not been run yet.
+     */
+    public final boolean hasPendingInflationStages() {
+        return stagedInflater != null && stagedInflater.hasPendingStages();
+    }
+
     /**
      * Returns the {@link Router} object that can be used for pushing or popping other Controllers
      */
@@ -161,6 +254,9 @@ public abstract class Controller {
      */
     @NonNull
     public Bundle getArgs() {
+        if (args == null) {
+            args = new Bundle(getClass().getClassLoader());
+        }
         return args;
     }
 
@@ -217,15 +313,25 @@ public abstract class Controller {
             if (createIfNeeded) {
                 childRouter = new ControllerHostedRouter(container.getId(), tag);
                 childRouter.setHost(this, container);
+                if (childRouters == Collections.<ControllerHostedRouter>emptyList()) {
+                    childRouters = new ArrayList<>();
+                }
                 childRouters.add(childRouter);
 
                 if (isPerformingExitTransition) {
                     childRouter.setDetachFrozen(true);
                 }
+
+                Hooks.routerCreated(childRouter);
             }
         } else if (!childRouter.hasHost()) {
-            childRouter.setHost(this, container);
-            childRouter.rebindIfNeeded();
+            final boolean traced = Hooks.beginSection("Controller.rebindChildRouter", this);
+            try {
+                childRouter.setHost(this, container);
+                childRouter.rebindIfNeeded();
+            } finally {
+                Hooks.endSection(traced);
+            }
         }
 
         return childRouter;
@@ -317,9 +423,16 @@ public abstract class Controller {
      */
     @NonNull
     public final String getInstanceId() {
+        if (instanceId == null) {
+            instanceId = InstanceIdGenerator.nextId();
+        }
         return instanceId;
     }
 
+    final boolean hasInstanceId() {
+        return instanceId != null;
+    }
+
     /**
      * Returns the Controller with the given instance id or {@code null} if no such Controller
      * exists. May return the Controller itself or a matching descendant
@@ -328,12 +441,13 @@ public abstract class Controller {
      */
     @Nullable
     final Controller findController(@NonNull String instanceId) {
-        if (this.instanceId.equals(instanceId)) {
+        // An id that has never been handed out can't be the one being searched for, so it isn't generated here.
+        if (instanceId.equals(this.instanceId)) {
             return this;
         }
 
         for (Router router : childRouters) {
-            Controller matchingChild = router.getControllerWithInstanceId(instanceId);
+            Controller matchingChild = router.findControllerWithInstanceId(instanceId);
             if (matchingChild != null) {
                 return matchingChild;
             }
@@ -426,6 +540,13 @@ public abstract class Controller {
      */
     protected void onAttach(@NonNull View view) { }
 
+    /**
+     * Called once all of the stages added with {@link #addInflationStage(InflationStage)} have been run.
+     *
+     * @param view The View for this Controller (passed for convenience)
+     */
+    protected void onInflationStagesCompleted(@NonNull View view) { }
+
     /**
      * Called when this Controller is detached from its host ViewGroup
      *
@@ -438,6 +559,17 @@ public abstract class Controller {
      */
     protected void onDestroy() { }
 
+    /**
+     * Called when a destroyed instance of this Controller is about to be reused by a {@link Router}'s controller pool.
+     * All state managed by Controller itself has already been reset at this point, but subclasses must reset any
+     * of their own fields here, as if this instance had just been constructed with the given args. Lifecycle listeners
+     * added during construction are kept and have been told about the reset already, any others have been removed.
+     * See {@link Router#setControllerPoolSize(Class, int)}.
+     *
+     * @param args The arguments this Controller is being reused with
+     */
+    protected void onReset(@NonNull Bundle args) { }
+
     /**
      * Called when this Controller's host Activity is started
      */
@@ -458,6 +590,18 @@ public abstract class Controller {
      */
     protected void onActivityStopped(@NonNull Activity activity) { }
 
+    /**
+     * Called when the system would like this Controller to release memory. Controllers holding on to caches
+     * (ex: decoded images) should trim or clear them here. Conductor will also release views retained by
+     * detached Controllers once memory is running low, either in the foreground or in the background. The
+     * Controller directly beneath the top of its backstack, which back navigation returns to, keeps its view until
+     * memory is critical. Merely having the UI hidden ({@link ComponentCallbacks2#TRIM_MEMORY_UI_HIDDEN}) doesn't
+     * release any views.
+     *
+     * @param level The memory trim level, as defined by {@link ComponentCallbacks2}
+     */
+    protected void onTrimMemory(int level) { }
+
     /**
      * Called to save this Controller's View state. As Views can be detached and destroyed as part of the
      * Controller lifecycle (ex: when another Controller has been pushed on top of it), care should be taken
@@ -506,7 +650,7 @@ public abstract class Controller {
      */
     public final void startActivityForResult(@NonNull final Intent intent, final int requestCode) {
         executeWithRouter(new RouterRequiringFunc() {
-            @Override public void execute() { router.startActivityForResult(instanceId, intent, requestCode); }
+            @Override public void execute() { router.startActivityForResult(getInstanceId(), intent, requestCode); }
         });
     }
 
@@ -515,7 +659,7 @@ public abstract class Controller {
      */
     public final void startActivityForResult(@NonNull final Intent intent, final int requestCode, @Nullable final Bundle options) {
         executeWithRouter(new RouterRequiringFunc() {
-            @Override public void execute() { router.startActivityForResult(instanceId, intent, requestCode, options); }
+            @Override public void execute() { router.startActivityForResult(getInstanceId(), intent, requestCode, options); }
         });
     }
 
@@ -524,7 +668,7 @@ public abstract class Controller {
      */
     public final void startIntentSenderForResult(@NonNull final IntentSender intent, final int requestCode, @Nullable final Intent fillInIntent, final int flagsMask,
                                                  final int flagsValues, final int extraFlags, @Nullable final Bundle options) throws IntentSender.SendIntentException {
-        router.startIntentSenderForResult(instanceId, intent, requestCode, fillInIntent, flagsMask, flagsValues, extraFlags, options);
+        router.startIntentSenderForResult(getInstanceId(), intent, requestCode, fillInIntent, flagsMask, flagsValues, extraFlags, options);
     }
 
     /**
@@ -535,7 +679,7 @@ public abstract class Controller {
      */
     public final void registerForActivityResult(final int requestCode) {
         executeWithRouter(new RouterRequiringFunc() {
-            @Override public void execute() { router.registerForActivityResult(instanceId, requestCode); }
+            @Override public void execute() { router.registerForActivityResult(getInstanceId(), requestCode); }
         });
     }
 
@@ -556,10 +700,13 @@ public abstract class Controller {
      */
     @TargetApi(Build.VERSION_CODES.M)
     public final void requestPermissions(@NonNull final String[] permissions, final int requestCode) {
+        if (requestedPermissions == Collections.<String>emptyList()) {
+            requestedPermissions = new ArrayList<>();
+        }
         requestedPermissions.addAll(Arrays.asList(permissions));
 
         executeWithRouter(new RouterRequiringFunc() {
-            @Override public void execute() { router.requestPermissions(instanceId, permissions, requestCode); }
+            @Override public void execute() { router.requestPermissions(getInstanceId(), permissions, requestCode); }
         });
     }
 
@@ -618,6 +765,9 @@ public abstract class Controller {
      * @param lifecycleListener The listener
      */
     public final void addLifecycleListener(@NonNull LifecycleListener lifecycleListener) {
+        if (lifecycleListeners == Collections.<LifecycleListener>emptyList()) {
+            lifecycleListeners = new ArrayList<>();
+        }
         if (!lifecycleListeners.contains(lifecycleListener)) {
             lifecycleListeners.add(lifecycleListener);
         }
@@ -646,8 +796,83 @@ public abstract class Controller {
      */
     public void setRetainViewMode(@NonNull RetainViewMode retainViewMode) {
         this.retainViewMode = retainViewMode != null ? retainViewMode : RetainViewMode.RELEASE_DETACH;
-        if (this.retainViewMode == RetainViewMode.RELEASE_DETACH && !attached) {
-            removeViewReference();
+        if (this.retainViewMode == RetainViewMode.RELEASE_DETACH) {
+            if (attached) {
+                startPlaceholderSnapshots();
+            } else {
+                removeViewReference();
+            }
+        } else if (placeholderSnapshotter != null) {
+            placeholderSnapshotter.stop();
+            SnapshotCache.remove(instanceId);
+        }
+    }
+
+    /**
+     * Returns whether or not this Controller will be replaced by a snapshot while covered. Defaults to false.
+     */
+    public boolean getSnapshotWhenCovered() {
+        return snapshotWhenCovered;
+    }
+
+    /**
+     * Sets whether or not this Controller's view should be replaced by a bitmap snapshot of itself while another
+     * Controller has been pushed on top of it without removing it (ex: a dialog). While covered, this Controller
+     * will be detached and its view released. The real view is restored once this Controller is visible again. This
+     * is useful for expensive views sitting under an overlay. As the point is to free the view, no snapshot is taken
+     * while the view would be retained anyway, such as with {@link RetainViewMode#RETAIN_DETACH}.
+     */
+    public void setSnapshotWhenCovered(boolean snapshotWhenCovered) {
+        this.snapshotWhenCovered = snapshotWhenCovered;
+    }
+
+    /**
+     * Returns whether or not this Controller has declared its view as opaque. Defaults to false.
+     */
+    public boolean isOpaque() {
+        return opaque;
+    }
+
+    /**
+     * Declares that this Controller's view is opaque and fills its container. When pushed without removing the
+     * Controllers below it, their views will be made {@link View#INVISIBLE} once the change has completed so they
+     * are no longer drawn, and made visible again when they're uncovered. Their lifecycle is not affected.
+     */
+    public void setOpaque(boolean opaque) {
+        this.opaque = opaque;
+        if (router != null) {
+            router.updateOccludedViews();
+        }
+    }
+
+    /**
+     * Returns whether or not this Controller keeps a placeholder snapshot of its released view. Defaults to false.
+     */
+    public boolean isPlaceholderSnapshotEnabled() {
+        return placeholderSnapshotEnabled;
+    }
+
+    /**
+     * Sets whether or not a low resolution snapshot of this Controller's view should be kept for when the view is
+     * released. The snapshot is taken while the view is attached, once nothing has been drawn for a short while, and
+     * is discarded if the view may have changed since. When this Controller is popped back to, the snapshot will be
+     * animated in immediately while the real view is created, which happens during the pop rather than before it.
+     * {@link #onChangeStarted(ControllerChangeHandler, ControllerChangeType)} is called once the real view exists.
+     * Snapshots are only kept with {@link RetainViewMode#RELEASE_DETACH} and are subject to a global size limit, set
+     * through {@link Conductor#setSnapshotCacheSize(int)}.
+     */
+    public void setPlaceholderSnapshotEnabled(boolean placeholderSnapshotEnabled) {
+        this.placeholderSnapshotEnabled = placeholderSnapshotEnabled;
+        if (placeholderSnapshotEnabled) {
+            startPlaceholderSnapshots();
+        } else {
+            if (placeholderSnapshotter != null) {
+                placeholderSnapshotter.stop();
+                placeholderSnapshotter = null;
+            }
+            if (instanceId != null) {
+                SnapshotCache.remove(instanceId);
+            }
         }
     }
 
@@ -757,10 +982,236 @@ public abstract class Controller {
         }
     }
 
+    final void replaceViewWithSnapshot() {
+        if (!snapshotWhenCovered || snapshotView != null || !attached || view.getParent() != router.container) {
+            return;
+        }
+
+        // A view that outlives its detach would be kept in memory next to its own snapshot.
+        if (retainViewMode != RetainViewMode.RELEASE_DETACH || retainsViewWhileInactive) {
+            return;
+        }
+
+        Bitmap bitmap = ViewSnapshotUtils.snapshot(view);
+        if (bitmap == null) {
+            return;
+        }
+
+        final ViewGroup container = router.container;
+
+        snapshotView = new ImageView(container.getContext());
+        snapshotView.setImageBitmap(bitmap);
+        container.addView(snapshotView, container.indexOfChild(view), view.getLayoutParams());
+        container.removeView(view);
+        ContainerAttachHandler.forContainer(container).checkViews();
+
+        // We're no longer attached, but will need to be once whatever is covering us has been popped.
+        needsAttach = true;
+    }
+
+    @Nullable
+    final View getViewForChange() {
+        return snapshotView != null ? snapshotView : view;
+    }
+
+    private void releaseSnapshot() {
+        if (snapshotView != null) {
+            if (snapshotView.getParent() instanceof ViewGroup) {
+                ((ViewGroup)snapshotView.getParent()).removeView(snapshotView);
+            }
+            ((BitmapDrawable)snapshotView.getDrawable()).getBitmap().recycle();
+
+            snapshotView = null;
+        }
+    }
+
+    final void setOccluded(boolean occluded) {
+        if (occluded && !hiddenByOcclusion && attached && view.getVisibility() == View.VISIBLE) {
+            hiddenByOcclusion = true;
+            view.setVisibility(View.INVISIBLE);
+        } else if (!occluded && hiddenByOcclusion) {
+            hiddenByOcclusion = false;
+            if (view != null) {
+                view.setVisibility(View.VISIBLE);
+            }
+        }
+    }
+
+    @Nullable
+    final View createPlaceholder(@NonNull ViewGroup container) {
+        if (view != null || !placeholderSnapshotEnabled) {
+            return null;
+        }
+
+        Snapshot snapshot = SnapshotCache.take(getInstanceId(), container);
+        if (snapshot == null) {
+            return null;
+        }
+
+        ImageView placeholder = new ImageView(container.getContext());
+        placeholder.setScaleType(ImageView.ScaleType.FIT_XY);
+        placeholder.setImageBitmap(snapshot.bitmap);
+        placeholder.setLayoutParams(new ViewGroup.LayoutParams(snapshot.width, snapshot.height));
+        return placeholder;
+    }
+
+    final void replacePlaceholder(@NonNull View placeholder) {
+        // If the placeholder has already been removed, the change was reversed before it completed.
+        if (placeholder.getParent() instanceof ViewGroup) {
+            ViewGroup container = (ViewGroup)placeholder.getParent();
+            View view = inflate(container);
+            if (view.getParent() == null) {
+                container.addView(view, container.indexOfChild(placeholder));
+            }
+            container.removeView(placeholder);
+            ContainerAttachHandler.forContainer(container).checkViews();
+        }
+    }
+
+    private void startPlaceholderSnapshots() {
+        if (placeholderSnapshotEnabled && attached && retainViewMode == RetainViewMode.RELEASE_DETACH) {
+            if (placeholderSnapshotter == null) {
+                placeholderSnapshotter = new PlaceholderSnapshotter(getInstanceId());
+            }
+            placeholderSnapshotter.start(view, router.container);
+        }
+    }
+
+    /**
+     * Marks this Controller as one to be returned to its Router's pool once destroyed. The lifecycle listeners it has
+     * registered so far, such as those backing lifecycle-aware base classes, are kept when it's reset for reuse.
+     */
+    final void setRecyclable() {
+        if (poolState == null) {
+            poolState = new PoolState(lifecycleListeners.isEmpty() ? Collections.<LifecycleListener>emptyList() : new ArrayList<>(lifecycleListeners));
+        }
+    }
+
+    final void setPooled(boolean pooled) {
+        if (poolState != null) {
+            poolState.pooled = pooled;
+        }
+    }
+
+    final boolean isPooled() {
+        return poolState != null && poolState.pooled;
+    }
+
+    final boolean canBeReused() {
+        return destroyed && !isPerformingExitTransition;
+    }
+
+    final void reset(@Nullable Bundle args) {
+        this.args = args;
+
+        // A new instance id is generated on first use, so that nothing can mistake this for the previous instance.
+        instanceId = null;
+
+        viewState = null;
+        savedInstanceState = null;
+        isBeingDestroyed = false;
+        destroyed = false;
+        attached = false;
+        hasOptionsMenu = false;
+        optionsMenuHidden = false;
+        viewIsAttached = false;
+        viewWasDetached = false;
+        router = null;
+        view = null;
+        parentController = null;
+        targetInstanceId = null;
+        needsAttach = false;
+        attachedToUnownedParent = false;
+        hasSavedViewState = false;
+        isDetachFrozen = false;
+        overriddenPushHandler = null;
+        overriddenPopHandler = null;
+        retainViewMode = RetainViewMode.RELEASE_DETACH;
+        snapshotWhenCovered = false;
+        snapshotView = null;
+        opaque = false;
+        hiddenByOcclusion = false;
+        placeholderSnapshotEnabled = false;
+        placeholderSnapshotter = null;
+        retainsViewWhileInactive = false;
+        viewAttachHandler = null;
+        stagedInflater = null;
+        childRouters = Collections.emptyList();
+        lifecycleListeners = poolState == null || poolState.constructorLifecycleListeners.isEmpty() ? Collections.<LifecycleListener>emptyList() : new ArrayList<>(poolState.constructorLifecycleListeners);
+        requestedPermissions = Collections.emptyList();
+        onRouterSetListeners = Collections.emptyList();
+        destroyedView = null;
+        isPerformingExitTransition = false;
+        isContextAvailable = false;
+        setPooled(false);
+
+        List<LifecycleListener> listeners = copyLifecycleListeners();
+        for (LifecycleListener lifecycleListener : listeners) {
+            lifecycleListener.onReset(this);
+        }
+
+        onReset(getArgs());
+    }
+
+    /**
+     * Keeps this Controller's view around after it's detached as part of a backstack that's no longer active, regardless
+     * of its {@link RetainViewMode}. The flag is cleared once the view is attached again.
+     */
+    final void setRetainsViewWhileInactive(boolean retainsViewWhileInactive) {
+        this.retainsViewWhileInactive = retainsViewWhileInactive;
+
+        if (!retainsViewWhileInactive && retainViewMode == RetainViewMode.RELEASE_DETACH && !attached && !isBeingDestroyed && view != null && view.getParent() == null) {
+            removeViewReference();
+        }
+    }
+
     final boolean getNeedsAttach() {
         return needsAttach;
     }
 
+    final void dump(@NonNull String prefix, @Nullable String tag, @NonNull PrintWriter writer) {
+        writer.print(prefix);
+        writer.print(getClass().getName());
+        writer.print(" instanceId=");
+        // Ids are assigned lazily, and dumping shouldn't be what assigns one.
+        writer.print(instanceId != null ? instanceId : "unassigned");
+        writer.print(" tag=");
+        writer.println(tag);
+
+        writer.print(prefix);
+        writer.print("  state=");
+        writer.print(getLifecycleStateName());
+        writer.print(" retainViewMode=");
+        writer.print(retainViewMode);
+        writer.print(" hasView=");
+        writer.print(view != null);
+        writer.print(" viewNodes=");
+        writer.print(view != null ? countViews(view) : 0);
+        writer.print(" viewStateBytes=");
+        writer.print(viewState != null ? getParceledSize(viewState) : 0);
+        writer.print(" savedStateBytes=");
+        writer.println(savedInstanceState != null ? getParceledSize(savedInstanceState) : 0);
+
+        for (ControllerHostedRouter childRouter : childRouters) {
+            childRouter.dump(prefix + "  ", writer);
+        }
+    }
+
+    @NonNull
+    private String getLifecycleStateName() {
+        if (destroyed) {
+            return "DESTROYED";
+        } else if (isBeingDestroyed) {
+            return "DESTROYING";
+        } else if (attached) {
+            return "ATTACHED";
+        } else if (view != null) {
+            return "DETACHED";
+        } else {
+            return "CREATED";
+        }
+    }
+
     final boolean didRequestPermission(@NonNull String permission) {
         return requestedPermissions.contains(permission);
     }
@@ -776,10 +1227,11 @@ public abstract class Controller {
 
             performOnRestoreInstanceState();
 
-            for (RouterRequiringFunc listener : onRouterSetListeners) {
+            List<RouterRequiringFunc> listeners = onRouterSetListeners;
+            onRouterSetListeners = Collections.emptyList();
+            for (RouterRequiringFunc listener : listeners) {
                 listener.execute();
             }
-            onRouterSetListeners.clear();
         } else {
             performOnRestoreInstanceState();
         }
@@ -789,7 +1241,7 @@ public abstract class Controller {
         final Context context = router.getActivity();
 
         if (context != null && !isContextAvailable) {
-            List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+            List<LifecycleListener> listeners = copyLifecycleListeners();
             for (LifecycleListener lifecycleListener : listeners) {
                 lifecycleListener.preContextAvailable(this);
             }
@@ -797,7 +1249,7 @@ public abstract class Controller {
             isContextAvailable = true;
             onContextAvailable(context);
 
-            listeners = new ArrayList<>(lifecycleListeners);
+            listeners = copyLifecycleListeners();
             for (LifecycleListener lifecycleListener : listeners) {
                 lifecycleListener.postContextAvailable(this, context);
             }
@@ -808,10 +1260,25 @@ public abstract class Controller {
         }
     }
 
+    @NonNull
+    private List<LifecycleListener> copyLifecycleListeners() {
+        // Listeners may add or remove themselves while being notified, so callers iterate over a copy.
+        if (lifecycleListeners.isEmpty() && !Hooks.hasObservers()) {
+            return Collections.emptyList();
+        }
+
+        List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+        Hooks.addObservers(listeners);
+        return listeners;
+    }
+
     final void executeWithRouter(@NonNull RouterRequiringFunc listener) {
         if (router != null) {
             listener.execute();
         } else {
+            if (onRouterSetListeners == Collections.<RouterRequiringFunc>emptyList()) {
+                onRouterSetListeners = new ArrayList<>();
+            }
             onRouterSetListeners.add(listener);
         }
     }
@@ -846,7 +1313,29 @@ public abstract class Controller {
         onActivityStopped(activity);
     }
 
+    /**
+     * @param depth This Controller's position in its backstack, counting from 0 at the top. Controllers in inactive
+     *              backstacks are never returned to by going back, so they're passed {@link Integer#MAX_VALUE}.
+     */
+    final void trimMemory(int level, int depth) {
+        onTrimMemory(level);
+
+        final int tier = TrimMemoryTier.fromLevel(level);
+        final int releaseTier = depth == 1 ? TrimMemoryTier.CRITICAL : TrimMemoryTier.LOW;
+
+        // Views kept around by RETAIN_DETACH are only a shortcut, as they can be recreated from the saved view state.
+        if (tier >= releaseTier && !attached && !isBeingDestroyed && view != null && view.getParent() == null) {
+            removeViewReference();
+        }
+
+        for (Router childRouter : childRouters) {
+            childRouter.onTrimMemory(level);
+        }
+    }
+
     final void activityDestroyed(@NonNull Activity activity) {
+        releaseSnapshot();
+
         if (activity.isChangingConfigurations()) {
             detach(view, true, false);
         } else {
@@ -854,7 +1343,7 @@ public abstract class Controller {
         }
 
         if (isContextAvailable) {
-            List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+            List<LifecycleListener> listeners = copyLifecycleListeners();
             for (LifecycleListener lifecycleListener : listeners) {
                 lifecycleListener.preContextUnavailable(this, activity);
             }
@@ -862,7 +1351,7 @@ public abstract class Controller {
             isContextAvailable = false;
             onContextUnavailable();
 
-            listeners = new ArrayList<>(lifecycleListeners);
+            listeners = copyLifecycleListeners();
             for (LifecycleListener lifecycleListener : listeners) {
                 lifecycleListener.postContextUnavailable(this);
             }
@@ -875,53 +1364,100 @@ public abstract class Controller {
             return;
         }
 
-        hasSavedViewState = false;
+        final boolean traced = Hooks.beginSection("Controller.onAttach", this);
+        try {
+            hasSavedViewState = false;
+            retainsViewWhileInactive = false;
 
-        List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
-        for (LifecycleListener lifecycleListener : listeners) {
-            lifecycleListener.preAttach(this, view);
-        }
+            List<LifecycleListener> listeners = copyLifecycleListeners();
+            for (LifecycleListener lifecycleListener : listeners) {
+                lifecycleListener.preAttach(this, view);
+            }
 
-        attached = true;
-        needsAttach = false;
+            attached = true;
+            needsAttach = false;
 
-        onAttach(view);
+            final long startTime = Hooks.callbackStarted(LifecycleEventLog.EVENT_ATTACH, this);
+            onAttach(view);
+            Hooks.callbackFinished(startTime, this, "onAttach");
 
-        if (hasOptionsMenu && !optionsMenuHidden) {
-            router.invalidateOptionsMenu();
-        }
+            if (hasOptionsMenu && !optionsMenuHidden) {
+                router.invalidateOptionsMenu();
+            }
 
-        listeners = new ArrayList<>(lifecycleListeners);
-        for (LifecycleListener lifecycleListener : listeners) {
-            lifecycleListener.postAttach(Controller.this, view);
+            listeners = copyLifecycleListeners();
+            for (LifecycleListener lifecycleListener : listeners) {
+                lifecycleListener.postAttach(Controller.this, view);
+            }
+
+            if (stagedInflater != null) {
+                stagedInflater.start(view);
+            }
+
+            startPlaceholderSnapshots();
+
+            // Child views were attached along with ours, so let them know now rather than waiting on their containers.
+            for (ControllerHostedRouter childRouter : childRouters) {
+                childRouter.onHostAttached();
+            }
+        } finally {
+            Hooks.endSection(traced);
         }
     }
 
     void detach(@NonNull View view, boolean forceViewRefRemoval, boolean blockViewRefRemoval) {
+        detach(view, forceViewRefRemoval, blockViewRefRemoval, !blockViewRefRemoval);
+    }
+
+    private void detach(@NonNull View view, boolean forceViewRefRemoval, boolean blockViewRefRemoval, boolean detachChildren) {
         if (!attachedToUnownedParent) {
             for (ControllerHostedRouter router : childRouters) {
                 router.prepareForHostDetach();
             }
+
+            // Detach children before ourselves, in the same order a ViewGroup would dispatch it. Activity stops are
+            // delivered to child routers directly, so only actual view detaches are passed down here.
+            if (detachChildren) {
+                for (ControllerHostedRouter router : childRouters) {
+                    router.onHostDetached();
+                }
+            }
         }
 
-        final boolean removeViewRef = !blockViewRefRemoval && (forceViewRefRemoval || retainViewMode == RetainViewMode.RELEASE_DETACH || isBeingDestroyed);
+        final boolean removeViewRef = !blockViewRefRemoval && (forceViewRefRemoval || (retainViewMode == RetainViewMode.RELEASE_DETACH && !retainsViewWhileInactive) || isBeingDestroyed);
 
         if (attached) {
-            List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
-            for (LifecycleListener lifecycleListener : listeners) {
-                lifecycleListener.preDetach(this, view);
-            }
+            final boolean traced = Hooks.beginSection("Controller.onDetach", this);
+            try {
+                List<LifecycleListener> listeners = copyLifecycleListeners();
+                for (LifecycleListener lifecycleListener : listeners) {
+                    lifecycleListener.preDetach(this, view);
+                }
 
-            attached = false;
-            onDetach(view);
+                attached = false;
 
-            if (hasOptionsMenu && !optionsMenuHidden) {
-                router.invalidateOptionsMenu();
-            }
+                if (stagedInflater != null) {
+                    stagedInflater.pause();
+                }
 
-            listeners = new ArrayList<>(lifecycleListeners);
-            for (LifecycleListener lifecycleListener : listeners) {
-                lifecycleListener.postDetach(this, view);
+                if (placeholderSnapshotter != null) {
+                    placeholderSnapshotter.stop();
+                }
+
+                final long startTime = Hooks.callbackStarted(LifecycleEventLog.EVENT_DETACH, this);
+                onDetach(view);
+                Hooks.callbackFinished(startTime, this, "onDetach");
+
+                if (hasOptionsMenu && !optionsMenuHidden) {
+                    router.invalidateOptionsMenu();
+                }
+
+                listeners = copyLifecycleListeners();
+                for (LifecycleListener lifecycleListener : listeners) {
+                    lifecycleListener.postDetach(this, view);
+                }
+            } finally {
+                Hooks.endSection(traced);
             }
         }
 
@@ -932,33 +1468,44 @@ public abstract class Controller {
 
     private void removeViewReference() {
         if (view != null) {
-            if (!isBeingDestroyed && !hasSavedViewState) {
-                saveViewState(view);
-            }
+            final boolean traced = Hooks.beginSection("Controller.onDestroyView", this);
+            try {
+                if (!isBeingDestroyed && !hasSavedViewState) {
+                    saveViewState(view);
+                }
 
-            List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
-            for (LifecycleListener lifecycleListener : listeners) {
-                lifecycleListener.preDestroyView(this, view);
-            }
+                List<LifecycleListener> listeners = copyLifecycleListeners();
+                for (LifecycleListener lifecycleListener : listeners) {
+                    lifecycleListener.preDestroyView(this, view);
+                }
 
-            onDestroyView(view);
+                if (stagedInflater != null) {
+                    stagedInflater.cancel();
+                }
 
-            viewAttachHandler.unregisterAttachListener(view);
-            viewAttachHandler = null;
-            viewIsAttached = false;
+                Hooks.event(LifecycleEventLog.EVENT_DESTROY_VIEW, this);
+                onDestroyView(view);
 
-            if (isBeingDestroyed) {
-                destroyedView = new WeakReference<>(view);
-            }
-            view = null;
+                viewAttachHandler.unregisterAttachListener(view);
+                viewAttachHandler = null;
+                viewIsAttached = false;
+                hiddenByOcclusion = false;
 
-            listeners = new ArrayList<>(lifecycleListeners);
-            for (LifecycleListener lifecycleListener : listeners) {
-                lifecycleListener.postDestroyView(this);
-            }
+                if (isBeingDestroyed) {
+                    destroyedView = new WeakReference<>(view);
+                }
+                view = null;
 
-            for (ControllerHostedRouter childRouter : childRouters) {
-                childRouter.removeHost();
+                listeners = copyLifecycleListeners();
+                for (LifecycleListener lifecycleListener : listeners) {
+                    lifecycleListener.postDestroyView(this);
+                }
+
+                for (ControllerHostedRouter childRouter : childRouters) {
+                    childRouter.removeHost();
+                }
+            } finally {
+                Hooks.endSection(traced);
             }
         }
 
@@ -968,25 +1515,34 @@ public abstract class Controller {
     }
 
     final View inflate(@NonNull ViewGroup parent) {
+        releaseSnapshot();
+
         if (view != null && view.getParent() != null && view.getParent() != parent) {
             detach(view, true, false);
             removeViewReference();
         }
 
         if (view == null) {
-            List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
-            for (LifecycleListener lifecycleListener : listeners) {
-                lifecycleListener.preCreateView(this);
-            }
+            final boolean traced = Hooks.beginSection("Controller.onCreateView", this);
+            try {
+                List<LifecycleListener> listeners = copyLifecycleListeners();
+                for (LifecycleListener lifecycleListener : listeners) {
+                    lifecycleListener.preCreateView(this);
+                }
 
-            view = onCreateView(LayoutInflater.from(parent.getContext()), parent);
-            if (view == parent) {
-                throw new IllegalStateException("Controller's onCreateView method returned the parent ViewGroup. Perhaps you forgot to pass false for LayoutInflater.inflate's attachToRoot parameter?");
-            }
+                final long startTime = Hooks.callbackStarted(LifecycleEventLog.EVENT_CREATE_VIEW, this);
+                view = onCreateView(LayoutInflater.from(parent.getContext()), parent);
+                Hooks.callbackFinished(startTime, this, "onCreateView");
+                if (view == parent) {
+                    throw new IllegalStateException("Controller's onCreateView method returned the parent ViewGroup. Perhaps you forgot to pass false for LayoutInflater.inflate's attachToRoot parameter?");
+                }
 
-            listeners = new ArrayList<>(lifecycleListeners);
-            for (LifecycleListener lifecycleListener : listeners) {
-                lifecycleListener.postCreateView(this, view);
+                listeners = copyLifecycleListeners();
+                for (LifecycleListener lifecycleListener : listeners) {
+                    lifecycleListener.postCreateView(this, view);
+                }
+            } finally {
+                Hooks.endSection(traced);
             }
 
             restoreViewState(view);
@@ -1004,21 +1560,23 @@ public abstract class Controller {
                     viewIsAttached = false;
                     viewWasDetached = true;
 
-                    if (!isDetachFrozen) {
-                        detach(view, false, fromActivityStop);
-                    }
+                    // While our host is changing, we still detach along with it but hold on to our view until its
+                    // change has ended.
+                    detach(view, false, fromActivityStop || isDetachFrozen, !fromActivityStop);
                 }
 
                 @Override
                 public void onViewDetachAfterStop() {
-                    if (!isDetachFrozen) {
-                        detach(view, false, false);
-                    }
+                    detach(view, false, isDetachFrozen, true);
                 }
             });
-            viewAttachHandler.listenForAttach(view);
-        } else if (retainViewMode == RetainViewMode.RETAIN_DETACH) {
-            restoreChildControllerHosts();
+            viewAttachHandler.listenForAttach(parent, view);
+        } else {
+            viewAttachHandler.listenForAttach(parent, view);
+
+            if (retainViewMode == RetainViewMode.RETAIN_DETACH) {
+                restoreChildControllerHosts();
+            }
         }
 
         return view;
@@ -1030,16 +1588,38 @@ public abstract class Controller {
                 View containerView = view.findViewById(childRouter.getHostId());
 
                 if (containerView != null && containerView instanceof ViewGroup) {
-                    childRouter.setHost(this, (ViewGroup)containerView);
-                    childRouter.rebindIfNeeded();
+                    final boolean traced = Hooks.beginSection("Controller.rebindChildRouter", this);
+                    try {
+                        childRouter.setHost(this, (ViewGroup)containerView);
+                        childRouter.rebindIfNeeded();
+                    } finally {
+                        Hooks.endSection(traced);
+                    }
                 }
             }
         }
     }
 
+    @NonNull
+    private StagedInflater getStagedInflater() {
+        if (stagedInflater == null) {
+            stagedInflater = new StagedInflater(new StagedInflationListener() {
+                @Override
+                public void onStagesCompleted(@NonNull View view) {
+                    onInflationStagesCompleted(view);
+                }
+            });
+
+            if (attached) {
+                stagedInflater.start(view);
+            }
+        }
+        return stagedInflater;
+    }
+
     private void performDestroy() {
         if (isContextAvailable) {
-            List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+            List<LifecycleListener> listeners = copyLifecycleListeners();
             for (LifecycleListener lifecycleListener : listeners) {
                 lifecycleListener.preContextUnavailable(this, getActivity());
             }
@@ -1047,27 +1627,42 @@ public abstract class Controller {
             isContextAvailable = false;
             onContextUnavailable();
 
-            listeners = new ArrayList<>(lifecycleListeners);
+            listeners = copyLifecycleListeners();
             for (LifecycleListener lifecycleListener : listeners) {
                 lifecycleListener.postContextUnavailable(this);
             }
         }
 
+        releaseSnapshot();
+        if (instanceId != null) {
+            SnapshotCache.remove(instanceId);
+        }
+
         if (!destroyed) {
-            List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
-            for (LifecycleListener lifecycleListener : listeners) {
-                lifecycleListener.preDestroy(this);
-            }
+            final boolean traced = Hooks.beginSection("Controller.onDestroy", this);
+            try {
+                List<LifecycleListener> listeners = copyLifecycleListeners();
+                for (LifecycleListener lifecycleListener : listeners) {
+                    lifecycleListener.preDestroy(this);
+                }
 
-            destroyed = true;
+                destroyed = true;
 
-            onDestroy();
+                Hooks.event(LifecycleEventLog.EVENT_DESTROY, this);
+                onDestroy();
 
-            parentController = null;
+                parentController = null;
 
-            listeners = new ArrayList<>(lifecycleListeners);
-            for (LifecycleListener lifecycleListener : listeners) {
-                lifecycleListener.postDestroy(this);
+                listeners = copyLifecycleListeners();
+                for (LifecycleListener lifecycleListener : listeners) {
+                    lifecycleListener.postDestroy(this);
+                }
+            } finally {
+                Hooks.endSection(traced);
+            }
+
+            if (poolState != null && router != null) {
+                router.recycleController(this);
             }
         }
     }
@@ -1077,12 +1672,23 @@ public abstract class Controller {
     }
 
     private void destroy(boolean removeViews) {
+        prepareForDestroy();
+        completeDestroy(removeViews);
+    }
+
+    final void prepareForDestroy() {
         isBeingDestroyed = true;
 
-        if (router != null) {
+        if (stagedInflater != null) {
+            stagedInflater.cancel();
+        }
+
+        if (router != null && instanceId != null) {
             router.unregisterForActivityResults(instanceId);
         }
+    }
 
+    final void completeDestroy(boolean removeViews) {
         for (ControllerHostedRouter childRouter : childRouters) {
             childRouter.destroy(false);
         }
@@ -1094,6 +1700,32 @@ public abstract class Controller {
         }
     }
 
+    /**
+     * Returns the number of bytes the bundle takes up once parceled, or -1 if it can't be parceled.
+     */
+    private static int getParceledSize(@NonNull Bundle bundle) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeBundle(bundle);
+            return parcel.dataSize();
+        } catch (RuntimeException e) {
+            return -1;
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static int countViews(@NonNull View view) {
+        int count = 1;
+        if (view instanceof ViewGroup) {
+            ViewGroup viewGroup = (ViewGroup)view;
+            for (int i = 0; i < viewGroup.getChildCount(); i++) {
+                count += countViews(viewGroup.getChildAt(i));
+            }
+        }
+        return count;
+    }
+
     private void saveViewState(@NonNull View view) {
         hasSavedViewState = true;
 
@@ -1107,7 +1739,7 @@ public abstract class Controller {
         onSaveViewState(view, stateBundle);
         viewState.putBundle(KEY_VIEW_STATE_BUNDLE, stateBundle);
 
-        List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+        List<LifecycleListener> listeners = copyLifecycleListeners();
         for (LifecycleListener lifecycleListener : listeners) {
             lifecycleListener.onSaveViewState(this, viewState);
         }
@@ -1115,16 +1747,23 @@ public abstract class Controller {
 
     private void restoreViewState(@NonNull View view) {
         if (viewState != null) {
-            view.restoreHierarchyState(viewState.getSparseParcelableArray(KEY_VIEW_STATE_HIERARCHY));
-            Bundle savedViewState = viewState.getBundle(KEY_VIEW_STATE_BUNDLE);
-            savedViewState.setClassLoader(getClass().getClassLoader());
-            onRestoreViewState(view, savedViewState);
-
-            restoreChildControllerHosts();
-
-            List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
-            for (LifecycleListener lifecycleListener : listeners) {
-                lifecycleListener.onRestoreViewState(this, viewState);
+            final boolean traced = Hooks.beginSection("Controller.onRestoreViewState", this);
+            try {
+                view.restoreHierarchyState(viewState.getSparseParcelableArray(KEY_VIEW_STATE_HIERARCHY));
+                Bundle savedViewState = viewState.getBundle(KEY_VIEW_STATE_BUNDLE);
+                savedViewState.setClassLoader(getClass().getClassLoader());
+                final long startTime = Hooks.callbackStarted();
+                onRestoreViewState(view, savedViewState);
+                Hooks.callbackFinished(startTime, this, "onRestoreViewState");
+
+                restoreChildControllerHosts();
+
+                List<LifecycleListener> listeners = copyLifecycleListeners();
+                for (LifecycleListener lifecycleListener : listeners) {
+                    lifecycleListener.onRestoreViewState(this, viewState);
+                }
+            } finally {
+                Hooks.endSection(traced);
             }
         }
     }
@@ -1138,11 +1777,14 @@ public abstract class Controller {
         outState.putString(KEY_CLASS_NAME, getClass().getName());
         outState.putBundle(KEY_VIEW_STATE, viewState);
         outState.putBundle(KEY_ARGS, args);
-        outState.putString(KEY_INSTANCE_ID, instanceId);
+        outState.putString(KEY_INSTANCE_ID, getInstanceId());
         outState.putString(KEY_TARGET_INSTANCE_ID, targetInstanceId);
-        outState.putStringArrayList(KEY_REQUESTED_PERMISSIONS, requestedPermissions);
+        outState.putStringArrayList(KEY_REQUESTED_PERMISSIONS, new ArrayList<>(requestedPermissions));
         outState.putBoolean(KEY_NEEDS_ATTACH, needsAttach || attached);
         outState.putInt(KEY_RETAIN_VIEW_MODE, retainViewMode.ordinal());
+        outState.putBoolean(KEY_SNAPSHOT_WHEN_COVERED, snapshotWhenCovered);
+        outState.putBoolean(KEY_OPAQUE, opaque);
+        outState.putBoolean(KEY_PLACEHOLDER_SNAPSHOT_ENABLED, placeholderSnapshotEnabled);
 
         if (overriddenPushHandler != null) {
             outState.putBundle(KEY_OVERRIDDEN_PUSH_HANDLER, overriddenPushHandler.toBundle());
@@ -1160,9 +1802,11 @@ public abstract class Controller {
         outState.putParcelableArrayList(KEY_CHILD_ROUTERS, childBundles);
 
         Bundle savedState = new Bundle(getClass().getClassLoader());
+        final long startTime = Hooks.callbackStarted(LifecycleEventLog.EVENT_SAVE_INSTANCE_STATE, this);
         onSaveInstanceState(savedState);
+        Hooks.callbackFinished(startTime, this, "onSaveInstanceState");
 
-        List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+        List<LifecycleListener> listeners = copyLifecycleListeners();
         for (LifecycleListener lifecycleListener : listeners) {
             lifecycleListener.onSaveInstanceState(this, savedState);
         }
@@ -1180,17 +1824,28 @@ public abstract class Controller {
 
         instanceId = savedInstanceState.getString(KEY_INSTANCE_ID);
         targetInstanceId = savedInstanceState.getString(KEY_TARGET_INSTANCE_ID);
-        requestedPermissions.addAll(savedInstanceState.getStringArrayList(KEY_REQUESTED_PERMISSIONS));
+        List<String> savedPermissions = savedInstanceState.getStringArrayList(KEY_REQUESTED_PERMISSIONS);
+        if (savedPermissions != null && !savedPermissions.isEmpty()) {
+            requestedPermissions = new ArrayList<>(savedPermissions);
+        }
         overriddenPushHandler = ControllerChangeHandler.fromBundle(savedInstanceState.getBundle(KEY_OVERRIDDEN_PUSH_HANDLER));
         overriddenPopHandler = ControllerChangeHandler.fromBundle(savedInstanceState.getBundle(KEY_OVERRIDDEN_POP_HANDLER));
         needsAttach = savedInstanceState.getBoolean(KEY_NEEDS_ATTACH);
         retainViewMode = RetainViewMode.values()[savedInstanceState.getInt(KEY_RETAIN_VIEW_MODE, 0)];
+        snapshotWhenCovered = savedInstanceState.getBoolean(KEY_SNAPSHOT_WHEN_COVERED);
+        opaque = savedInstanceState.getBoolean(KEY_OPAQUE);
+        placeholderSnapshotEnabled = savedInstanceState.getBoolean(KEY_PLACEHOLDER_SNAPSHOT_ENABLED);
 
         List<Bundle> childBundles = savedInstanceState.getParcelableArrayList(KEY_CHILD_ROUTERS);
+        if (!childBundles.isEmpty()) {
+            childRouters = new ArrayList<>(childBundles.size());
+        }
         for (Bundle childBundle : childBundles) {
             ControllerHostedRouter childRouter = new ControllerHostedRouter();
             childRouter.restoreInstanceState(childBundle);
             childRouters.add(childRouter);
+
+            Hooks.routerCreated(childRouter);
         }
 
         this.savedInstanceState = savedInstanceState.getBundle(KEY_SAVED_STATE);
@@ -1204,7 +1859,7 @@ public abstract class Controller {
         if (savedInstanceState != null && router != null) {
             onRestoreInstanceState(savedInstanceState);
 
-            List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+            List<LifecycleListener> listeners = copyLifecycleListeners();
             for (LifecycleListener lifecycleListener : listeners) {
                 lifecycleListener.onRestoreInstanceState(this, savedInstanceState);
             }
@@ -1214,16 +1869,28 @@ public abstract class Controller {
     }
 
     final void changeStarted(@NonNull ControllerChangeHandler changeHandler, @NonNull ControllerChangeType changeType) {
-        if (!changeType.isEnter) {
+        if (changeType.isEnter) {
+            setOccluded(false);
+        } else {
+            // Anything we were hiding needs to be visible before we start animating out.
+            if (opaque && router != null) {
+                router.updateOccludedViews();
+            }
+
             isPerformingExitTransition = true;
             for (ControllerHostedRouter router : childRouters) {
                 router.setDetachFrozen(true);
             }
+
+            // The view is about to animate out, so whatever was last drawn is what the placeholder should show.
+            if (placeholderSnapshotter != null) {
+                placeholderSnapshotter.stop();
+            }
         }
 
         onChangeStarted(changeHandler, changeType);
 
-        List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+        List<LifecycleListener> listeners = copyLifecycleListeners();
         for (LifecycleListener lifecycleListener : listeners) {
             lifecycleListener.onChangeStart(this, changeHandler, changeType);
         }
@@ -1235,11 +1902,22 @@ public abstract class Controller {
             for (ControllerHostedRouter router : childRouters) {
                 router.setDetachFrozen(false);
             }
+
+            // Still showing underneath whatever was pushed on top, so the view can keep changing.
+            startPlaceholderSnapshots();
+        }
+
+        if (!changeType.isEnter && snapshotView != null && snapshotView.getParent() == null) {
+            releaseSnapshot();
+        }
+
+        if (changeType.isEnter && router != null) {
+            router.updateOccludedViews();
         }
 
         onChangeEnded(changeHandler, changeType);
 
-        List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+        List<LifecycleListener> listeners = copyLifecycleListeners();
         for (LifecycleListener lifecycleListener : listeners) {
             lifecycleListener.onChangeEnd(this, changeHandler, changeType);
         }
@@ -1322,6 +2000,27 @@ public abstract class Controller {
         RETAIN_DETACH
     }
 
+    /** A deferred portion of a Controller's view. See {@link #addInflationStage(InflationStage)}. */
+    public interface InflationStage {
+        /**
+         * Called to inflate this portion of the Controller's view.
+         *
+         * @param view The Controller's view, which has already been attached
+         */
+        void inflate(@NonNull View view);
+    }
+
+    /** What a pool keeps track of for a Controller it has handed out. Other Controllers don't pay for it. */
+    private static class PoolState {
+
+        final List<LifecycleListener> constructorLifecycleListeners;
+        boolean pooled;
+
+        PoolState(@NonNull List<LifecycleListener> constructorLifecycleListeners) {
+            this.constructorLifecycleListeners = constructorLifecycleListeners;
+        }
+    }
+
     /** Allows external classes to listen for lifecycle events in a Controller */
     public static abstract class LifecycleListener {
 
@@ -1355,6 +2054,13 @@ public abstract class Controller {
         public void onSaveViewState(@NonNull Controller controller, @NonNull Bundle outState) { }
         public void onRestoreViewState(@NonNull Controller controller, @NonNull Bundle savedViewState) { }
 
+        /**
+         * Called when a pooled Controller is about to be reused, before its own {@link Controller#onReset(Bundle)}.
+         * Only listeners added while the Controller was being constructed are kept through a reset, and should start
+         * over as if they had just been added to a newly constructed Controller.
+         */
+        public void onReset(@NonNull Controller controller) { }
+
     }
 
 }
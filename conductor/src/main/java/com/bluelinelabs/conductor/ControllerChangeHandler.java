@@ -9,8 +9,9 @@ import android.view.ViewParent;
 
 import com.bluelinelabs.conductor.changehandler.SimpleSwapChangeHandler;
 import com.bluelinelabs.conductor.internal.ClassUtils;
+import com.bluelinelabs.conductor.internal.ContainerAttachHandler;
 
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -24,7 +25,8 @@ public abstract class ControllerChangeHandler {
     private static final String KEY_CLASS_NAME = "ControllerChangeHandler.className";
     private static final String KEY_SAVED_STATE = "ControllerChangeHandler.savedState";
 
-    private static final Map<String, ChangeHandlerData> inProgressChangeHandlers = new HashMap<>();
+    // Keyed by the Controllers themselves, as looking them up by instance id would generate one for every Controller.
+    private static final Map<Controller, ChangeHandlerData> inProgressChangeHandlers = new IdentityHashMap<>();
 
     private boolean forceRemoveViewOnPush;
     private boolean hasBeenUsed;
@@ -127,18 +129,18 @@ public abstract class ControllerChangeHandler {
         }
     }
 
-    static boolean completeHandlerImmediately(@NonNull String controllerInstanceId) {
-        ChangeHandlerData changeHandlerData = inProgressChangeHandlers.get(controllerInstanceId);
+    static boolean completeHandlerImmediately(@NonNull Controller controller) {
+        ChangeHandlerData changeHandlerData = inProgressChangeHandlers.get(controller);
         if (changeHandlerData != null) {
             changeHandlerData.changeHandler.completeImmediately();
-            inProgressChangeHandlers.remove(controllerInstanceId);
+            inProgressChangeHandlers.remove(controller);
             return true;
         }
         return false;
     }
 
     static void abortOrComplete(@NonNull Controller toAbort, @Nullable Controller newController, @NonNull ControllerChangeHandler newChangeHandler) {
-        ChangeHandlerData changeHandlerData = inProgressChangeHandlers.get(toAbort.getInstanceId());
+        ChangeHandlerData changeHandlerData = inProgressChangeHandlers.get(toAbort);
         if (changeHandlerData != null) {
             if (changeHandlerData.isPush) {
                 changeHandlerData.changeHandler.onAbortPush(newChangeHandler, newController);
@@ -146,15 +148,15 @@ public abstract class ControllerChangeHandler {
                 changeHandlerData.changeHandler.completeImmediately();
             }
 
-            inProgressChangeHandlers.remove(toAbort.getInstanceId());
+            inProgressChangeHandlers.remove(toAbort);
         }
     }
 
     static void executeChange(@NonNull final ChangeTransaction transaction) {
-        executeChange(transaction.to, transaction.from, transaction.isPush, transaction.container, transaction.changeHandler, transaction.listeners);
+        executeChange(transaction.router, transaction.to, transaction.from, transaction.isPush, transaction.container, transaction.changeHandler, transaction.listeners);
     }
 
-    private static void executeChange(@Nullable final Controller to, @Nullable final Controller from, final boolean isPush, @Nullable final ViewGroup container, @Nullable final ControllerChangeHandler inHandler, @NonNull final List<ControllerChangeListener> listeners) {
+    private static void executeChange(@NonNull final Router router, @Nullable final Controller to, @Nullable final Controller from, final boolean isPush, @Nullable final ViewGroup container, @Nullable final ControllerChangeHandler inHandler, @NonNull final List<ControllerChangeListener> listeners) {
         if (container != null) {
             final ControllerChangeHandler handler;
             if (inHandler == null) {
@@ -168,67 +170,117 @@ public abstract class ControllerChangeHandler {
 
             if (from != null) {
                 if (isPush) {
-                    completeHandlerImmediately(from.getInstanceId());
+                    completeHandlerImmediately(from);
                 } else {
                     abortOrComplete(from, to, handler);
                 }
             }
 
             if (to != null) {
-                inProgressChangeHandlers.put(to.getInstanceId(), new ChangeHandlerData(handler, isPush));
-            }
-
-            for (ControllerChangeListener listener : listeners) {
-                listener.onChangeStarted(to, from, isPush, container, handler);
+                inProgressChangeHandlers.put(to, new ChangeHandlerData(handler, isPush));
             }
 
             final ControllerChangeType toChangeType = isPush ? ControllerChangeType.PUSH_ENTER : ControllerChangeType.POP_ENTER;
             final ControllerChangeType fromChangeType = isPush ? ControllerChangeType.PUSH_EXIT : ControllerChangeType.POP_EXIT;
 
             final View toView;
-            if (to != null) {
-                toView = to.inflate(container);
-                to.changeStarted(handler, toChangeType);
-            } else {
-                toView = null;
-            }
-
+            final PlaceholderSwap placeholderSwap;
             final View fromView;
-            if (from != null) {
-                fromView = from.getView();
-                from.changeStarted(handler, fromChangeType);
-            } else {
-                fromView = null;
-            }
 
-            handler.performChange(container, fromView, toView, isPush, new ControllerChangeCompletedListener() {
-                @Override
-                public void onChangeCompleted() {
-                    if (from != null) {
-                        from.changeEnded(handler, fromChangeType);
-                    }
+            Hooks.event(LifecycleEventLog.EVENT_CHANGE_STARTED, to != null ? to : from);
+            boolean traced = Hooks.beginSection("ControllerChangeHandler.changeStarted", handler);
+            try {
+                for (ControllerChangeListener listener : listeners) {
+                    listener.onChangeStarted(to, from, isPush, container, handler);
+                }
+                Hooks.changeStarted(router, to, from, isPush, container, handler);
+
+                final View toPlaceholder = to != null && !isPush ? to.createPlaceholder(container) : null;
+                if (toPlaceholder != null) {
+                    toView = toPlaceholder;
+                    placeholderSwap = new PlaceholderSwap(to, toPlaceholder, container, handler, toChangeType);
+                } else if (to != null) {
+                    toView = to.inflate(container);
+                    to.changeStarted(handler, toChangeType);
+                    placeholderSwap = null;
+                } else {
+                    toView = null;
+                    placeholderSwap = null;
+                }
 
-                    if (to != null) {
-                        inProgressChangeHandlers.remove(to.getInstanceId());
-                        to.changeEnded(handler, toChangeType);
-                    }
+                if (from != null) {
+                    fromView = from.getViewForChange();
+                    from.changeStarted(handler, fromChangeType);
+                } else {
+                    fromView = null;
+                }
+            } finally {
+                Hooks.endSection(traced);
+            }
 
-                    for (ControllerChangeListener listener : listeners) {
-                        listener.onChangeCompleted(to, from, isPush, container, handler);
-                    }
+            final ContainerAttachHandler attachHandler = ContainerAttachHandler.forContainer(container);
+            attachHandler.onChangeStarted();
 
-                    if (handler.forceRemoveViewOnPush && fromView != null) {
-                        ViewParent fromParent = fromView.getParent();
-                        if (fromParent != null && fromParent instanceof ViewGroup) {
-                            ((ViewGroup)fromParent).removeView(fromView);
+            if (placeholderSwap != null) {
+                placeholderSwap.schedule();
+            }
+
+            traced = Hooks.beginSection("ControllerChangeHandler.performChange", handler);
+            try {
+                final long startTime = Hooks.callbackStarted();
+
+                handler.performChange(container, fromView, toView, isPush, new ControllerChangeCompletedListener() {
+                    @Override
+                    public void onChangeCompleted() {
+                        Hooks.event(LifecycleEventLog.EVENT_CHANGE_COMPLETED, to != null ? to : from);
+                        final boolean tracedCompletion = Hooks.beginSection("ControllerChangeHandler.changeCompleted", handler);
+                        try {
+                            attachHandler.onChangeCompleted();
+
+                            if (from != null) {
+                                from.changeEnded(handler, fromChangeType);
+                            }
+
+                            if (to != null) {
+                                if (placeholderSwap != null) {
+                                    placeholderSwap.complete();
+                                }
+
+                                inProgressChangeHandlers.remove(to);
+                                to.changeEnded(handler, toChangeType);
+                            }
+
+                            for (ControllerChangeListener listener : listeners) {
+                                listener.onChangeCompleted(to, from, isPush, container, handler);
+                            }
+                            Hooks.changeCompleted(router, to, from, isPush, container, handler);
+
+                            if (handler.forceRemoveViewOnPush && fromView != null) {
+                                ViewParent fromParent = fromView.getParent();
+                                if (fromParent != null && fromParent instanceof ViewGroup) {
+                                    ((ViewGroup)fromParent).removeView(fromView);
+                                    attachHandler.checkViews();
+                                }
+                            }
+
+                            if (handler.removesFromViewOnPush() && from != null) {
+                                from.setNeedsAttach(false);
+                            } else if (isPush && from != null) {
+                                from.replaceViewWithSnapshot();
+                            }
+                        } finally {
+                            Hooks.endSection(tracedCompletion);
                         }
                     }
+                });
 
-                    if (handler.removesFromViewOnPush() && from != null) {
-                        from.setNeedsAttach(false);
-                    }
-                }
-            });
+                Hooks.callbackFinished(startTime, handler, "performChange");
+
+                // Views the handler added or removed right away are reported now rather than on the next frame.
+                attachHandler.checkViews();
+            } finally {
+                Hooks.endSection(traced);
+            }
         }
     }
 
@@ -240,7 +292,59 @@ public abstract class ControllerChangeHandler {
         forceRemoveViewOnPush = force;
     }
 
+    /**
+     * Creates the real view of a Controller that's being animated in as a placeholder snapshot, so that the snapshot
+     * is already on screen while it's inflated. This happens on the first message handled after the change has
+     * started, or when the change completes if that comes first. The Controller's change only starts once its view
+     * exists, and the placeholder is swapped out for it when the change completes.
+     */
+    private static class PlaceholderSwap implements Runnable {
+        @NonNull final Controller controller;
+        @NonNull final View placeholder;
+        @NonNull final ViewGroup container;
+        @NonNull final ControllerChangeHandler handler;
+        @NonNull final ControllerChangeType changeType;
+        boolean changeStarted;
+
+        PlaceholderSwap(@NonNull Controller controller, @NonNull View placeholder, @NonNull ViewGroup container, @NonNull ControllerChangeHandler handler, @NonNull ControllerChangeType changeType) {
+            this.controller = controller;
+            this.placeholder = placeholder;
+            this.container = container;
+            this.handler = handler;
+            this.changeType = changeType;
+        }
+
+        void schedule() {
+            container.post(this);
+        }
+
+        @Override
+        public void run() {
+            // A change that was reversed before getting here will complete shortly, which takes care of the rest.
+            if (placeholder.getParent() == container) {
+                startChange();
+            }
+        }
+
+        void complete() {
+            container.removeCallbacks(this);
+            startChange();
+            controller.replacePlaceholder(placeholder);
+        }
+
+        private void startChange() {
+            if (!changeStarted) {
+                changeStarted = true;
+                if (!controller.isBeingDestroyed()) {
+                    controller.inflate(container);
+                }
+                controller.changeStarted(handler, changeType);
+            }
+        }
+    }
+
     static class ChangeTransaction {
+        @NonNull final Router router;
         @Nullable final Controller to;
         @Nullable final Controller from;
         final boolean isPush;
@@ -248,7 +352,8 @@ public abstract class ControllerChangeHandler {
         @Nullable final ControllerChangeHandler changeHandler;
         @NonNull final List<ControllerChangeListener> listeners;
 
-        public ChangeTransaction(@Nullable Controller to, @Nullable Controller from, boolean isPush, @Nullable ViewGroup container, @Nullable ControllerChangeHandler changeHandler, @NonNull List<ControllerChangeListener> listeners) {
+        public ChangeTransaction(@NonNull Router router, @Nullable Controller to, @Nullable Controller from, boolean isPush, @Nullable ViewGroup container, @Nullable ControllerChangeHandler changeHandler, @NonNull List<ControllerChangeListener> listeners) {
+            this.router = router;
             this.to = to;
             this.from = from;
             this.isPush = isPush;
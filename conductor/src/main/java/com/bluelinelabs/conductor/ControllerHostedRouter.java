@@ -11,6 +11,7 @@ import android.support.annotation.Nullable;
 import android.view.ViewGroup;
 
 import com.bluelinelabs.conductor.ControllerChangeHandler.ControllerChangeListener;
+import com.bluelinelabs.conductor.internal.ContainerAttachHandler;
 import com.bluelinelabs.conductor.internal.TransactionIndexer;
 
 import java.util.ArrayList;
@@ -48,6 +49,12 @@ class ControllerHostedRouter extends Router {
             for (RouterTransaction transaction : backstack) {
                 transaction.controller.setParentController(controller);
             }
+            for (RouterTransaction transaction : getInactiveTransactions()) {
+                transaction.controller.setParentController(controller);
+            }
+
+            // Our controllers are attached and detached along with the host, never by the container itself.
+            ContainerAttachHandler.forContainer(container).setHostAttached(controller.isAttached());
 
             watchContainerAttach();
         }
@@ -69,12 +76,29 @@ class ControllerHostedRouter extends Router {
                 transaction.controller.detach(transaction.controller.getView(), true, false);
             }
         }
+        for (RouterTransaction transaction : getInactiveTransactions()) {
+            if (transaction.controller.getView() != null) {
+                transaction.controller.detach(transaction.controller.getView(), true, false);
+            }
+        }
 
         prepareForContainerRemoval();
         hostController = null;
         container = null;
     }
 
+    final void onHostAttached() {
+        if (container != null) {
+            ContainerAttachHandler.forContainer(container).setHostAttached(true);
+        }
+    }
+
+    final void onHostDetached() {
+        if (container != null) {
+            ContainerAttachHandler.forContainer(container).setHostAttached(false);
+        }
+    }
+
     final void setDetachFrozen(boolean frozen) {
         isDetachFrozen = frozen;
         for (RouterTransaction transaction : backstack) {
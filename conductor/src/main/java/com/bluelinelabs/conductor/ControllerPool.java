@@ -0,0 +1,90 @@
+package com.bluelinelabs.conductor;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Holds on to destroyed controllers of classes that are created and thrown away often, so that new instances can
+ * be handed out by resetting a previous one rather than going through reflection and construction again. Only
+ * controllers that were handed out by the pool are ever returned to it.
+ */
+class ControllerPool {
+
+    private final Map<Class<? extends Controller>, Integer> maxSizes = new HashMap<>();
+    private final Map<Class<? extends Controller>, ArrayDeque<Controller>> pools = new HashMap<>();
+
+    void setMaxSize(@NonNull Class<? extends Controller> controllerClass, int maxSize) {
+        if (maxSize > 0) {
+            maxSizes.put(controllerClass, maxSize);
+
+            ArrayDeque<Controller> pool = pools.get(controllerClass);
+            while (pool != null && pool.size() > maxSize) {
+                pool.poll();
+            }
+        } else {
+            maxSizes.remove(controllerClass);
+            pools.remove(controllerClass);
+        }
+    }
+
+    @NonNull
+    <T extends Controller> T obtain(@NonNull Class<T> controllerClass, @Nullable Bundle args) {
+        T controller = null;
+
+        ArrayDeque<Controller> pool = pools.get(controllerClass);
+        if (pool != null) {
+            // Controllers still running their exit transition can't be reused until it's finished.
+            Iterator<Controller> iterator = pool.iterator();
+            while (iterator.hasNext()) {
+                Controller pooled = iterator.next();
+                if (pooled.canBeReused()) {
+                    iterator.remove();
+                    controller = controllerClass.cast(pooled);
+                    controller.reset(args);
+                    break;
+                }
+            }
+        }
+
+        if (controller == null) {
+            controller = Controller.newInstance(controllerClass, args);
+        }
+
+        if (maxSizes.containsKey(controllerClass)) {
+            controller.setRecyclable();
+        }
+        return controller;
+    }
+
+    boolean recycle(@NonNull Controller controller) {
+        Integer maxSize = maxSizes.get(controller.getClass());
+        if (maxSize == null) {
+            return false;
+        }
+
+        ArrayDeque<Controller> pool = pools.get(controller.getClass());
+        if (pool == null) {
+            pool = new ArrayDeque<>();
+            pools.put(controller.getClass(), pool);
+        }
+
+        if (pool.size() < maxSize && !pool.contains(controller)) {
+            pool.add(controller);
+            controller.setPooled(true);
+            return true;
+        }
+        return false;
+    }
+
+    void clear() {
+        // Cleared controllers stay marked as pooled, as whoever still references them shouldn't be using them either.
+        pools.clear();
+    }
+
+}
@@ -0,0 +1,249 @@
+package com.bluelinelabs.conductor;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.UiThread;
+import android.view.ViewGroup;
+
+import com.bluelinelabs.conductor.ControllerChangeHandler.ChangeTransaction;
+import com.bluelinelabs.conductor.ControllerChangeHandler.ControllerChangeListener;
+import com.bluelinelabs.conductor.internal.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Groups navigation calls on several {@link Router}s into a single commit. Nothing happens until {@link #commit()}
+ * is called, at which point every Router's backstack is updated first, and only then are all of the resulting
+ * {@link ControllerChangeHandler}s started, one right after the other. This is useful for layouts such as
+ * master-detail, where multiple Routers should always change together.
+ */
+public class CoordinatedTransaction {
+
+    /**
+     * A listener for being notified once every change started by a {@link CoordinatedTransaction} has completed.
+     */
+    public interface CompletionListener {
+        /**
+         * Called when all changes have completed.
+         */
+        void onTransactionCompleted();
+    }
+
+    private interface Operation {
+        void apply();
+    }
+
+    private final List<Router> routers = new ArrayList<>();
+    private final List<Operation> operations = new ArrayList<>();
+    private CompletionListener completionListener;
+    private boolean committed;
+
+    /**
+     * Pushes a new {@link Controller} onto the given Router's backstack. See {@link Router#pushController(RouterTransaction)}.
+     */
+    @NonNull
+    public CoordinatedTransaction pushController(@NonNull final Router router, @NonNull final RouterTransaction transaction) {
+        return add(router, new Operation() {
+            @Override
+            public void apply() {
+                router.pushController(transaction);
+            }
+        });
+    }
+
+    /**
+     * Pops the top {@link Controller} from the given Router's backstack. See {@link Router#popCurrentController()}.
+     */
+    @NonNull
+    public CoordinatedTransaction popCurrentController(@NonNull final Router router) {
+        return add(router, new Operation() {
+            @Override
+            public void apply() {
+                router.popCurrentController();
+            }
+        });
+    }
+
+    /**
+     * Pops the passed {@link Controller} from the given Router's backstack. See {@link Router#popController(Controller)}.
+     */
+    @NonNull
+    public CoordinatedTransaction popController(@NonNull final Router router, @NonNull final Controller controller) {
+        return add(router, new Operation() {
+            @Override
+            public void apply() {
+                router.popController(controller);
+            }
+        });
+    }
+
+    /**
+     * Replaces the given Router's top {@link Controller}. See {@link Router#replaceTopController(RouterTransaction)}.
+     */
+    @NonNull
+    public CoordinatedTransaction replaceTopController(@NonNull final Router router, @NonNull final RouterTransaction transaction) {
+        return add(router, new Operation() {
+            @Override
+            public void apply() {
+                router.replaceTopController(transaction);
+            }
+        });
+    }
+
+    /**
+     * Sets the given Router's root {@link Controller}. See {@link Router#setRoot(RouterTransaction)}.
+     */
+    @NonNull
+    public CoordinatedTransaction setRoot(@NonNull final Router router, @NonNull final RouterTransaction transaction) {
+        return add(router, new Operation() {
+            @Override
+            public void apply() {
+                router.setRoot(transaction);
+            }
+        });
+    }
+
+    /**
+     * Sets the given Router's backstack. See {@link Router#setBackstack(List, ControllerChangeHandler)}.
+     */
+    @NonNull
+    public CoordinatedTransaction setBackstack(@NonNull final Router router, @NonNull final List<RouterTransaction> backstack, @Nullable final ControllerChangeHandler changeHandler) {
+        return add(router, new Operation() {
+            @Override
+            public void apply() {
+                router.setBackstack(backstack, changeHandler);
+            }
+        });
+    }
+
+    /**
+     * Pops all {@link Controller}s but the root from the given Router's backstack. See {@link Router#popToRoot()}.
+     */
+    @NonNull
+    public CoordinatedTransaction popToRoot(@NonNull final Router router) {
+        return add(router, new Operation() {
+            @Override
+            public void apply() {
+                router.popToRoot();
+            }
+        });
+    }
+
+    /**
+     * Sets a listener to be called once all changes started by this transaction have completed.
+     */
+    @NonNull
+    public CoordinatedTransaction setCompletionListener(@Nullable CompletionListener completionListener) {
+        this.completionListener = completionListener;
+        return this;
+    }
+
+    /**
+     * Applies all queued navigation calls to their Routers' backstacks, then starts all resulting changes together.
+     * A transaction may only be committed once. If a call throws, the changes of the calls applied before it are
+     * still started, the remaining calls are skipped, the completion listener isn't called, and the exception is
+     * rethrown.
+     */
+    @UiThread
+    public void commit() {
+        ThreadUtils.ensureMainThread();
+
+        if (committed) {
+            throw new IllegalStateException("This transaction has already been committed.");
+        }
+        committed = true;
+
+        List<Router> deferringRouters = new ArrayList<>(routers.size());
+        RuntimeException failure = null;
+        try {
+            for (Router router : routers) {
+                router.beginDeferringControllerChanges();
+                deferringRouters.add(router);
+            }
+
+            for (Operation operation : operations) {
+                operation.apply();
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+
+        // Operations applied before a failure have already updated their backstacks, so their changes still run to
+        // keep every container in sync with its backstack.
+        List<List<ChangeTransaction>> changesByRouter = new ArrayList<>(deferringRouters.size());
+        int changeCount = 0;
+        for (Router router : deferringRouters) {
+            List<ChangeTransaction> changes = router.endDeferringControllerChanges();
+            changesByRouter.add(changes);
+
+            for (ChangeTransaction change : changes) {
+                // Changes without a container are dropped by ControllerChangeHandler, so they'll never complete.
+                if (change.container != null) {
+                    changeCount++;
+                }
+            }
+        }
+
+        final CompletionCounter counter = new CompletionCounter(changeCount, failure == null ? completionListener : null);
+        for (int i = 0; i < deferringRouters.size(); i++) {
+            for (ChangeTransaction change : changesByRouter.get(i)) {
+                deferringRouters.get(i).performControllerChange(counter.wrap(change));
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+        counter.checkCompleted();
+    }
+
+    @NonNull
+    private CoordinatedTransaction add(@NonNull Router router, @NonNull Operation operation) {
+        if (committed) {
+            throw new IllegalStateException("This transaction has already been committed.");
+        }
+
+        if (!routers.contains(router)) {
+            routers.add(router);
+        }
+        operations.add(operation);
+        return this;
+    }
+
+    private static class CompletionCounter implements ControllerChangeListener {
+
+        private int remainingChanges;
+        @Nullable private CompletionListener completionListener;
+
+        CompletionCounter(int remainingChanges, @Nullable CompletionListener completionListener) {
+            this.remainingChanges = remainingChanges;
+            this.completionListener = completionListener;
+        }
+
+        @NonNull
+        ChangeTransaction wrap(@NonNull ChangeTransaction change) {
+            List<ControllerChangeListener> listeners = new ArrayList<>(change.listeners);
+            listeners.add(this);
+            return new ChangeTransaction(change.router, change.to, change.from, change.isPush, change.container, change.changeHandler, listeners);
+        }
+
+        void checkCompleted() {
+            if (remainingChanges <= 0 && completionListener != null) {
+                CompletionListener listener = completionListener;
+                completionListener = null;
+                listener.onTransactionCompleted();
+            }
+        }
+
+        @Override
+        public void onChangeStarted(@Nullable Controller to, @Nullable Controller from, boolean isPush, @NonNull ViewGroup container, @NonNull ControllerChangeHandler handler) { }
+
+        @Override
+        public void onChangeCompleted(@Nullable Controller to, @Nullable Controller from, boolean isPush, @NonNull ViewGroup container, @NonNull ControllerChangeHandler handler) {
+            remainingChanges--;
+            checkCompleted();
+        }
+    }
+
+}
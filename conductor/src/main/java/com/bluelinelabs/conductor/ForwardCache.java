@@ -0,0 +1,76 @@
+package com.bluelinelabs.conductor;
+
+import android.app.Activity;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Keeps recently popped controllers alive, but detached, so that pushing the same content again can reuse
+ * them instead of building a new one from scratch. Their views are kept as well, through
+ * {@link Controller#setRetainsViewWhileInactive(boolean)}. Entries are evicted oldest first and destroyed on eviction.
+ */
+class ForwardCache {
+
+    private final int maxSize;
+    private final LinkedHashMap<String, RouterTransaction> entries = new LinkedHashMap<>();
+
+    ForwardCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    void put(@NonNull String key, @NonNull RouterTransaction transaction) {
+        RouterTransaction previous = entries.remove(key);
+        if (previous != null) {
+            previous.controller.destroy();
+        }
+
+        entries.put(key, transaction);
+        trimToSize(maxSize);
+    }
+
+    @Nullable
+    RouterTransaction take(@NonNull String key) {
+        return entries.remove(key);
+    }
+
+    @Nullable
+    RouterTransaction take(@NonNull String key, @NonNull Class<? extends Controller> controllerClass) {
+        RouterTransaction transaction = entries.get(key);
+        if (transaction != null && transaction.controller.getClass() == controllerClass) {
+            entries.remove(key);
+            return transaction;
+        }
+        return null;
+    }
+
+    void evictAll() {
+        trimToSize(0);
+    }
+
+    void onActivityDestroyed(@NonNull Activity activity) {
+        List<RouterTransaction> transactions = new ArrayList<>(entries.values());
+        entries.clear();
+
+        for (RouterTransaction transaction : transactions) {
+            transaction.controller.activityDestroyed(activity);
+            if (!transaction.controller.isDestroyed()) {
+                transaction.controller.destroy();
+            }
+        }
+    }
+
+    private void trimToSize(int size) {
+        Iterator<RouterTransaction> iterator = entries.values().iterator();
+        while (entries.size() > size) {
+            RouterTransaction transaction = iterator.next();
+            iterator.remove();
+            transaction.controller.destroy();
+        }
+    }
+
+}
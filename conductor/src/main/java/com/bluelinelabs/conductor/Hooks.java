@@ -0,0 +1,86 @@
+package com.bluelinelabs.conductor;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.ViewGroup;
+
+import com.bluelinelabs.conductor.Controller.LifecycleListener;
+
+import java.util.List;
+
+/**
+ * The single point through which Controllers, Routers and change handlers report what they're doing. Each event is
+ * forwarded to whichever of {@link Tracing}, {@link StrictModeChecks}, the {@link LifecycleEventLog} and the
+ * registered {@link ConductorObserver}s it concerns, so none of them have to be called directly.
+ */
+final class Hooks {
+
+    private Hooks() {}
+
+    /**
+     * Begins a trace section. The result must be passed to {@link #endSection(boolean)} from a finally block.
+     */
+    static boolean beginSection(@NonNull String phase, @NonNull Object target) {
+        return Tracing.beginSection(phase, target);
+    }
+
+    static void endSection(boolean begun) {
+        if (begun) {
+            Tracing.endSection();
+        }
+    }
+
+    /**
+     * Called right before a developer callback runs. Returns the start time to pass to
+     * {@link #callbackFinished(long, Object, String)}.
+     */
+    static long callbackStarted() {
+        return StrictModeChecks.start();
+    }
+
+    /**
+     * Records the event and then behaves like {@link #callbackStarted()}.
+     */
+    static long callbackStarted(int event, @Nullable Controller controller) {
+        LifecycleEventLog.record(event, controller);
+        return StrictModeChecks.start();
+    }
+
+    static void callbackFinished(long startTime, @NonNull Object target, @NonNull String callbackName) {
+        StrictModeChecks.check(startTime, target, callbackName);
+    }
+
+    static void event(int event, @Nullable Controller controller) {
+        LifecycleEventLog.record(event, controller);
+    }
+
+    static boolean hasObservers() {
+        return !ConductorObservers.isEmpty();
+    }
+
+    static void addObservers(@NonNull List<LifecycleListener> listeners) {
+        ConductorObservers.addLifecycleListeners(listeners);
+    }
+
+    static void routerCreated(@NonNull Router router) {
+        ConductorObservers.dispatchRouterCreated(router);
+    }
+
+    static void changeRequested(@NonNull Router router, @Nullable Controller to, @Nullable Controller from, boolean isPush, @Nullable ControllerChangeHandler changeHandler) {
+        ConductorObservers.dispatchChangeRequested(router, to, from, isPush, changeHandler);
+        if (isPush) {
+            LifecycleEventLog.record(LifecycleEventLog.EVENT_PUSH_REQUESTED, to);
+        } else {
+            LifecycleEventLog.record(LifecycleEventLog.EVENT_POP_REQUESTED, from != null ? from : to);
+        }
+    }
+
+    static void changeStarted(@NonNull Router router, @Nullable Controller to, @Nullable Controller from, boolean isPush, @NonNull ViewGroup container, @NonNull ControllerChangeHandler changeHandler) {
+        ConductorObservers.dispatchChangeStarted(router, to, from, isPush, container, changeHandler);
+    }
+
+    static void changeCompleted(@NonNull Router router, @Nullable Controller to, @Nullable Controller from, boolean isPush, @NonNull ViewGroup container, @NonNull ControllerChangeHandler changeHandler) {
+        ConductorObservers.dispatchChangeCompleted(router, to, from, isPush, container, changeHandler);
+    }
+
+}
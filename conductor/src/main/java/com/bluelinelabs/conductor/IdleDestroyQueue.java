@@ -0,0 +1,82 @@
+package com.bluelinelabs.conductor;
+
+import android.os.Looper;
+import android.os.MessageQueue.IdleHandler;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import java.util.ArrayDeque;
+
+/**
+ * Finishes destroying popped controllers while the main thread is idle instead of within the transaction
+ * that popped them. Controllers are destroyed in the order they were queued, and each idle pass stops once
+ * its time slice has been used up, leaving the remainder for the next one.
+ */
+class IdleDestroyQueue implements IdleHandler {
+
+    static final long DEFAULT_TIME_SLICE_MS = 4;
+
+    private final Router router;
+    private final ArrayDeque<Controller> controllers = new ArrayDeque<>();
+    private long timeSliceMs = DEFAULT_TIME_SLICE_MS;
+    private boolean idleHandlerAdded;
+
+    IdleDestroyQueue(@NonNull Router router) {
+        this.router = router;
+    }
+
+    void setTimeSlice(long timeSliceMs) {
+        this.timeSliceMs = timeSliceMs;
+    }
+
+    void enqueue(@NonNull Controller controller) {
+        controller.prepareForDestroy();
+        router.trackDestroyingController(controller);
+        controllers.add(controller);
+
+        if (!idleHandlerAdded) {
+            idleHandlerAdded = true;
+            Looper.myQueue().addIdleHandler(this);
+        }
+    }
+
+    void flush() {
+        while (!controllers.isEmpty()) {
+            destroyNext();
+        }
+        removeIdleHandler();
+    }
+
+    @Override
+    public boolean queueIdle() {
+        if (controllers.isEmpty()) {
+            idleHandlerAdded = false;
+            return false;
+        }
+
+        final long start = SystemClock.uptimeMillis();
+
+        // Always make progress by destroying at least one controller, even if this pass is already over its time slice.
+        do {
+            destroyNext();
+        } while (!controllers.isEmpty() && SystemClock.uptimeMillis() - start < timeSliceMs);
+
+        idleHandlerAdded = !controllers.isEmpty();
+        return idleHandlerAdded;
+    }
+
+    private void destroyNext() {
+        Controller controller = controllers.poll();
+        if (!controller.isDestroyed()) {
+            controller.completeDestroy(false);
+        }
+    }
+
+    private void removeIdleHandler() {
+        if (idleHandlerAdded) {
+            idleHandlerAdded = false;
+            Looper.myQueue().removeIdleHandler(this);
+        }
+    }
+
+}
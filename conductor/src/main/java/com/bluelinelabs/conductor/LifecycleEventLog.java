@@ -0,0 +1,182 @@
+package com.bluelinelabs.conductor;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.UiThread;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed size record of the most recent lifecycle and navigation events across all Routers, meant to be attached to
+ * crash reports. Recording is always on, and once a Controller class has been seen it doesn't allocate: each event
+ * is just a code, an id for the Controller's class, its identity hash code and a monotonic timestamp in
+ * milliseconds, written into preallocated arrays. Classes are only referenced weakly, so the log never keeps them
+ * loaded; their names are all that's kept for exporting.
+ */
+public final class LifecycleEventLog {
+
+    public static final int EVENT_PUSH_REQUESTED = 1;
+    public static final int EVENT_POP_REQUESTED = 2;
+    public static final int EVENT_CHANGE_STARTED = 3;
+    public static final int EVENT_CHANGE_COMPLETED = 4;
+    public static final int EVENT_CREATE_VIEW = 5;
+    public static final int EVENT_ATTACH = 6;
+    public static final int EVENT_DETACH = 7;
+    public static final int EVENT_DESTROY_VIEW = 8;
+    public static final int EVENT_DESTROY = 9;
+    public static final int EVENT_SAVE_INSTANCE_STATE = 10;
+    public static final int EVENT_HANDLE_BACK = 11;
+
+    private static final String[] EVENT_NAMES = { null, "PUSH_REQUESTED", "POP_REQUESTED", "CHANGE_STARTED",
+            "CHANGE_COMPLETED", "CREATE_VIEW", "ATTACH", "DETACH", "DESTROY_VIEW", "DESTROY", "SAVE_INSTANCE_STATE",
+            "HANDLE_BACK" };
+
+    /**
+     * The number of events kept unless changed through {@link #setCapacity(int)}.
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int NO_CLASS = -1;
+
+    private static byte[] codes;
+    private static int[] classIds;
+    private static int[] identityHashes;
+    private static long[] timestamps;
+    private static int size;
+    private static int nextIndex;
+
+    private static final Map<Class<?>, Integer> classIdMap = new WeakHashMap<>();
+    private static final List<String> classNames = new ArrayList<>();
+
+    static {
+        setCapacity(DEFAULT_CAPACITY);
+    }
+
+    private LifecycleEventLog() {}
+
+    /**
+     * Sets how many of the most recent events are kept, clearing any recorded so far. Passing 0 turns recording off.
+     *
+     * @param capacity The number of events to keep
+     */
+    @UiThread
+    public static void setCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("The event log capacity can't be negative.");
+        }
+
+        codes = new byte[capacity];
+        classIds = new int[capacity];
+        identityHashes = new int[capacity];
+        timestamps = new long[capacity];
+        clear();
+    }
+
+    @UiThread
+    public static void clear() {
+        size = 0;
+        nextIndex = 0;
+    }
+
+    static void record(int code, @Nullable Controller controller) {
+        final int capacity = codes.length;
+        if (capacity == 0) {
+            return;
+        }
+
+        codes[nextIndex] = (byte)code;
+        classIds[nextIndex] = controller != null ? getClassId(controller.getClass()) : NO_CLASS;
+        identityHashes[nextIndex] = controller != null ? System.identityHashCode(controller) : 0;
+        timestamps[nextIndex] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+
+        nextIndex = (nextIndex + 1) % capacity;
+        if (size < capacity) {
+            size++;
+        }
+    }
+
+    /**
+     * Returns the recorded events, oldest first, one per line.
+     */
+    @NonNull @UiThread
+    public static String exportAsString() {
+        StringBuilder builder = new StringBuilder(size * 64);
+        final int start = getOldestIndex();
+        for (int i = 0; i < size; i++) {
+            final int index = (start + i) % codes.length;
+            builder.append(timestamps[index])
+                    .append(' ')
+                    .append(getEventName(codes[index]));
+
+            if (classIds[index] != NO_CLASS) {
+                builder.append(' ')
+                        .append(classNames.get(classIds[index]))
+                        .append(" #")
+                        .append(Integer.toHexString(identityHashes[index]));
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns the recorded events in a compact binary form: a version int and the number of known classes, followed
+     * by their names as modified UTF-8 strings, the number of events and then each event, oldest first, as a
+     * timestamp long, code byte, class id int (-1 for none) and identity hash int.
+     */
+    @NonNull @UiThread
+    public static byte[] exportAsBytes() {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream(64 + classNames.size() * 48 + size * 17);
+        DataOutputStream out = new DataOutputStream(byteStream);
+        try {
+            out.writeInt(FORMAT_VERSION);
+
+            out.writeInt(classNames.size());
+            for (String className : classNames) {
+                out.writeUTF(className);
+            }
+
+            out.writeInt(size);
+            final int start = getOldestIndex();
+            for (int i = 0; i < size; i++) {
+                final int index = (start + i) % codes.length;
+                out.writeLong(timestamps[index]);
+                out.writeByte(codes[index]);
+                out.writeInt(classIds[index]);
+                out.writeInt(identityHashes[index]);
+            }
+        } catch (IOException e) {
+            // ByteArrayOutputStream doesn't actually throw
+            throw new RuntimeException(e);
+        }
+        return byteStream.toByteArray();
+    }
+
+    @NonNull
+    static String getEventName(int code) {
+        return code > 0 && code < EVENT_NAMES.length ? EVENT_NAMES[code] : String.valueOf(code);
+    }
+
+    private static int getOldestIndex() {
+        return size < codes.length ? 0 : nextIndex;
+    }
+
+    private static int getClassId(@NonNull Class<?> cls) {
+        Integer id = classIdMap.get(cls);
+        if (id == null) {
+            id = classNames.size();
+            classNames.add(cls.getName());
+            classIdMap.put(cls, id);
+        }
+        return id;
+    }
+
+}
@@ -0,0 +1,454 @@
+package com.bluelinelabs.conductor;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Records every public navigation operation performed on a {@link Router}, along with Activity lifecycle transitions,
+ * in a compact binary form that can be replayed later against stand-in Controllers. Controllers are identified by a
+ * number assigned the first time they're seen, along with their class name. That number is looked up by the
+ * Controller's instance id in a weakly keyed map, so a recording never holds on to them. Recording stops once it
+ * reaches its maximum size, which is only ever exceeded by the step that reached it. Set one through
+ * {@link Router#setNavigationRecorder(NavigationRecorder)}. Each recorder only records the Router it is set on, not
+ * its child Routers.
+ */
+public class NavigationRecorder {
+
+    private static final int MAGIC = 0x434e5243;
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * The operations that are recorded. Operations that are made up of other operations, like {@link #HANDLE_BACK}
+     * or {@link #POP_TO_TAG}, are only recorded for context, as whatever changes they make to the backstack are
+     * recorded right after them as the operations they're made of. Replaying only those that are
+     * {@link #isReplayed() replayed} leads to the same backstack, even when a Controller handled a back press itself.
+     */
+    public enum Operation {
+        PUSH(true),
+        POP(true),
+        REPLACE_TOP(true),
+        SET_BACKSTACK(true),
+        POP_CURRENT(false),
+        POP_TO_TAG(false),
+        POP_TO_ROOT(false),
+        SET_ROOT(false),
+        HANDLE_BACK(false),
+        ACTIVITY_STARTED(true),
+        ACTIVITY_RESUMED(true),
+        ACTIVITY_PAUSED(true),
+        ACTIVITY_STOPPED(true),
+        ACTIVITY_DESTROYED(true),
+        SAVE_INSTANCE_STATE(true),
+        SWITCH_TO_BACKSTACK(true),
+        REMOVE_BACKSTACK(true);
+
+        private final boolean replayed;
+
+        Operation(boolean replayed) {
+            this.replayed = replayed;
+        }
+
+        public boolean isReplayed() {
+            return replayed;
+        }
+    }
+
+    /**
+     * The maximum size of a recording unless set through {@link #NavigationRecorder(int)}.
+     */
+    public static final int DEFAULT_MAX_BYTES = 256 * 1024;
+
+    private final int maxBytes;
+    private final ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(byteStream);
+    private final Map<String, Integer> controllerIds = new WeakHashMap<>();
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private int nextControllerId;
+    private long lastTime;
+
+    public NavigationRecorder() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param maxBytes The size at which recording stops
+     */
+    public NavigationRecorder(int maxBytes) {
+        this.maxBytes = maxBytes;
+
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        lastTime = SystemClock.uptimeMillis();
+    }
+
+    /**
+     * Returns whether this recording has reached its maximum size, after which nothing else is recorded.
+     */
+    public boolean isFull() {
+        return byteStream.size() >= maxBytes;
+    }
+
+    /**
+     * Returns everything recorded so far.
+     */
+    @NonNull
+    public byte[] toByteArray() {
+        return byteStream.toByteArray();
+    }
+
+    /**
+     * Reads the steps out of a recording created by {@link #toByteArray()}.
+     *
+     * @throws IOException If the recording is malformed or of an unknown version
+     */
+    @NonNull
+    public static List<Step> readSteps(@NonNull byte[] recording) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(recording));
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a navigation recording, or one of an unsupported version.");
+        }
+
+        List<Step> steps = new ArrayList<>();
+        List<String> strings = new ArrayList<>();
+        List<String> controllerClassNames = new ArrayList<>();
+        long time = 0;
+
+        int opcode;
+        while ((opcode = in.read()) != -1) {
+            if (opcode >= Operation.values().length) {
+                throw new IOException("Unknown operation " + opcode);
+            }
+
+            Operation operation = Operation.values()[opcode];
+            time += readVarInt(in);
+
+            List<RecordedTransaction> transactions = Collections.emptyList();
+            String tag = null;
+            String backstackName = null;
+            switch (operation) {
+                case PUSH:
+                case REPLACE_TOP:
+                case POP:
+                    transactions = Collections.singletonList(readTransaction(in, operation != Operation.POP, strings, controllerClassNames));
+                    break;
+                case SET_BACKSTACK:
+                    transactions = readTransactions(in, strings, controllerClassNames);
+                    break;
+                case POP_TO_TAG:
+                    tag = readString(in, strings);
+                    break;
+                case SWITCH_TO_BACKSTACK:
+                    backstackName = readString(in, strings);
+                    transactions = readTransactions(in, strings, controllerClassNames);
+                    break;
+                case REMOVE_BACKSTACK:
+                    backstackName = readString(in, strings);
+                    break;
+            }
+
+            steps.add(new Step(operation, time, transactions, tag, backstackName));
+        }
+
+        return steps;
+    }
+
+    void record(@NonNull Operation operation) {
+        if (isFull()) {
+            return;
+        }
+
+        try {
+            writeHeader(operation);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    void record(@NonNull Operation operation, @NonNull String name) {
+        if (isFull()) {
+            return;
+        }
+
+        try {
+            writeHeader(operation);
+            writeString(name);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    void record(@NonNull Operation operation, @NonNull Controller controller) {
+        if (isFull()) {
+            return;
+        }
+
+        try {
+            writeHeader(operation);
+            writeController(controller);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    void record(@NonNull Operation operation, @NonNull RouterTransaction transaction) {
+        if (isFull()) {
+            return;
+        }
+
+        try {
+            writeHeader(operation);
+            writeController(transaction.controller);
+            writeString(transaction.tag());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    void record(@NonNull Operation operation, @NonNull List<RouterTransaction> transactions) {
+        if (isFull()) {
+            return;
+        }
+
+        try {
+            writeHeader(operation);
+            writeTransactions(transactions);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    void record(@NonNull Operation operation, @NonNull String backstackName, @NonNull List<RouterTransaction> transactions) {
+        if (isFull()) {
+            return;
+        }
+
+        try {
+            writeHeader(operation);
+            writeString(backstackName);
+            writeTransactions(transactions);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void writeHeader(@NonNull Operation operation) throws IOException {
+        final long now = SystemClock.uptimeMillis();
+        out.writeByte(operation.ordinal());
+        writeVarInt((int)Math.max(Math.min(now - lastTime, Integer.MAX_VALUE), 0));
+        lastTime = now;
+    }
+
+    private void writeTransactions(@NonNull List<RouterTransaction> transactions) throws IOException {
+        writeVarInt(transactions.size());
+        for (RouterTransaction transaction : transactions) {
+            writeController(transaction.controller);
+            writeString(transaction.tag());
+        }
+    }
+
+    /**
+     * Controllers are written as their id, followed by their class name the first time they're seen.
+     */
+    private void writeController(@NonNull Controller controller) throws IOException {
+        // Keyed by instance id rather than the Controller itself, so entries go away along with the Controller. A
+        // pooled Controller gets a new instance id on every reuse, and so a new id here too.
+        final String instanceId = controller.getInstanceId();
+        Integer id = controllerIds.get(instanceId);
+        if (id == null) {
+            id = nextControllerId++;
+            controllerIds.put(instanceId, id);
+            writeVarInt(id);
+            writeString(controller.getClass().getName());
+        } else {
+            writeVarInt(id);
+        }
+    }
+
+    /**
+     * Strings are written as their id plus one, with 0 meaning null, followed by the string itself the first time
+     * it's seen.
+     */
+    private void writeString(@Nullable String string) throws IOException {
+        if (string == null) {
+            writeVarInt(0);
+            return;
+        }
+
+        Integer id = stringIds.get(string);
+        if (id == null) {
+            id = stringIds.size();
+            stringIds.put(string, id);
+            writeVarInt(id + 1);
+            out.writeUTF(string);
+        } else {
+            writeVarInt(id + 1);
+        }
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    @NonNull
+    private static RecordedTransaction readTransaction(@NonNull DataInputStream in, boolean hasTag, @NonNull List<String> strings, @NonNull List<String> controllerClassNames) throws IOException {
+        final int id = readVarInt(in);
+        if (id == controllerClassNames.size()) {
+            controllerClassNames.add(readString(in, strings));
+        } else if (id > controllerClassNames.size()) {
+            throw new IOException("Controller " + id + " used before being defined");
+        }
+
+        return new RecordedTransaction(id, controllerClassNames.get(id), hasTag ? readString(in, strings) : null);
+    }
+
+    @NonNull
+    private static List<RecordedTransaction> readTransactions(@NonNull DataInputStream in, @NonNull List<String> strings, @NonNull List<String> controllerClassNames) throws IOException {
+        final int size = readVarInt(in);
+        List<RecordedTransaction> transactions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            transactions.add(readTransaction(in, true, strings, controllerClassNames));
+        }
+        return transactions;
+    }
+
+    @Nullable
+    private static String readString(@NonNull DataInputStream in, @NonNull List<String> strings) throws IOException {
+        final int id = readVarInt(in) - 1;
+        if (id < 0) {
+            return null;
+        } else if (id == strings.size()) {
+            strings.add(in.readUTF());
+        } else if (id > strings.size()) {
+            throw new IOException("String " + id + " used before being defined");
+        }
+        return strings.get(id);
+    }
+
+    private static int readVarInt(@NonNull DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = in.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length int");
+    }
+
+    /**
+     * A single recorded operation.
+     */
+    public static final class Step {
+
+        private final Operation operation;
+        private final long timeMillis;
+        private final List<RecordedTransaction> transactions;
+        private final String tag;
+        private final String backstackName;
+
+        Step(@NonNull Operation operation, long timeMillis, @NonNull List<RecordedTransaction> transactions, @Nullable String tag, @Nullable String backstackName) {
+            this.operation = operation;
+            this.timeMillis = timeMillis;
+            this.transactions = transactions;
+            this.tag = tag;
+            this.backstackName = backstackName;
+        }
+
+        @NonNull
+        public Operation getOperation() {
+            return operation;
+        }
+
+        /**
+         * Returns the time this step was recorded at, in milliseconds since the recorder was created.
+         */
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+
+        /**
+         * Returns the transaction pushed for {@link Operation#PUSH} and {@link Operation#REPLACE_TOP}, the one popped
+         * for {@link Operation#POP}, the whole new backstack for {@link Operation#SET_BACKSTACK}, the root
+         * transaction passed to {@link Operation#SWITCH_TO_BACKSTACK} if there was one, or an empty list.
+         */
+        @NonNull
+        public List<RecordedTransaction> getTransactions() {
+            return transactions;
+        }
+
+        /**
+         * Returns the tag popped to for {@link Operation#POP_TO_TAG}, or null.
+         */
+        @Nullable
+        public String getTag() {
+            return tag;
+        }
+
+        /**
+         * Returns the name of the backstack switched to for {@link Operation#SWITCH_TO_BACKSTACK} or removed for
+         * {@link Operation#REMOVE_BACKSTACK}, or null.
+         */
+        @Nullable
+        public String getBackstackName() {
+            return backstackName;
+        }
+
+    }
+
+    /**
+     * A Controller as it appeared in a recorded operation, identified by a number that's unique within a recording.
+     */
+    public static final class RecordedTransaction {
+
+        private final int controllerId;
+        private final String controllerClassName;
+        private final String tag;
+
+        RecordedTransaction(int controllerId, @NonNull String controllerClassName, @Nullable String tag) {
+            this.controllerId = controllerId;
+            this.controllerClassName = controllerClassName;
+            this.tag = tag;
+        }
+
+        public int getControllerId() {
+            return controllerId;
+        }
+
+        @NonNull
+        public String getControllerClassName() {
+            return controllerClassName;
+        }
+
+        /**
+         * Returns the transaction's tag, which is never recorded for {@link Operation#POP}.
+         */
+        @Nullable
+        public String getTag() {
+            return tag;
+        }
+
+    }
+
+}
@@ -7,6 +7,8 @@ import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.UiThread;
+import android.view.Choreographer;
+import android.view.Choreographer.FrameCallback;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
@@ -16,15 +18,21 @@ import android.view.ViewGroup;
 import com.bluelinelabs.conductor.Controller.LifecycleListener;
 import com.bluelinelabs.conductor.ControllerChangeHandler.ChangeTransaction;
 import com.bluelinelabs.conductor.ControllerChangeHandler.ControllerChangeListener;
+import com.bluelinelabs.conductor.TransitionMetrics.TransitionMetricsListener;
 import com.bluelinelabs.conductor.changehandler.SimpleSwapChangeHandler;
 import com.bluelinelabs.conductor.internal.NoOpControllerChangeHandler;
 import com.bluelinelabs.conductor.internal.ThreadUtils;
 import com.bluelinelabs.conductor.internal.TransactionIndexer;
+import com.bluelinelabs.conductor.internal.TrimMemoryTier;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A Router implements navigation and backstack handling for {@link Controller}s. Router objects are attached
@@ -35,13 +43,37 @@ public abstract class Router {
 
     private static final String KEY_BACKSTACK = "Router.backstack";
     private static final String KEY_POPS_LAST_VIEW = "Router.popsLastView";
+    private static final String KEY_ACTIVE_BACKSTACK_NAME = "Router.activeBackstackName";
+    private static final String KEY_INACTIVE_BACKSTACK_NAMES = "Router.inactiveBackstackNames";
+    private static final String KEY_INACTIVE_BACKSTACKS = "Router.inactiveBackstacks";
 
-    final Backstack backstack = new Backstack();
+    private static final int MAX_RETIRED_INSTANCE_IDS = 64;
+
+    /**
+     * The name of the backstack every Router starts out with.
+     */
+    public static final String DEFAULT_BACKSTACK = "Router.defaultBackstack";
+
+    Backstack backstack = new Backstack();
+    private String activeBackstackName = DEFAULT_BACKSTACK;
+    private final LinkedHashMap<String, Backstack> inactiveBackstacks = new LinkedHashMap<>();
+    private int warmBackstackCount = 1;
     private final List<ControllerChangeListener> changeListeners = new ArrayList<>();
     private final List<ChangeTransaction> pendingControllerChanges = new ArrayList<>();
+    private List<ChangeTransaction> deferredControllerChanges;
+    private boolean coalescesChanges;
+    private List<RouterTransaction> coalescedVisibleTransactions;
+    private FrameCallback coalescedChangesCallback;
     final List<Controller> destroyingControllers = new ArrayList<>();
 
     private boolean popsLastView = false;
+    private IdleDestroyQueue idleDestroyQueue;
+    private long idleDestroyTimeSliceMs = IdleDestroyQueue.DEFAULT_TIME_SLICE_MS;
+    private ForwardCache forwardCache;
+    private ControllerPool controllerPool;
+    private LinkedHashSet<String> retiredInstanceIds;
+    private TransitionMetricsRecorder transitionMetricsRecorder;
+    private NavigationRecorder navigationRecorder;
     boolean containerFullyAttached = false;
 
     ViewGroup container;
@@ -89,9 +121,18 @@ public abstract class Router {
     public boolean handleBack() {
         ThreadUtils.ensureMainThread();
 
+        if (navigationRecorder != null) {
+            navigationRecorder.record(NavigationRecorder.Operation.HANDLE_BACK);
+        }
+
         if (!backstack.isEmpty()) {
             //noinspection ConstantConditions
-            if (backstack.peek().controller.handleBack()) {
+            final Controller controller = backstack.peek().controller;
+            final long startTime = Hooks.callbackStarted(LifecycleEventLog.EVENT_HANDLE_BACK, controller);
+            final boolean handled = controller.handleBack();
+            Hooks.callbackFinished(startTime, controller, "handleBack");
+
+            if (handled) {
                 return true;
             } else if (popCurrentController()) {
                 return true;
@@ -115,6 +156,10 @@ public abstract class Router {
         if (transaction == null) {
             throw new IllegalStateException("Trying to pop the current controller when there are none on the backstack.");
         }
+
+        if (navigationRecorder != null) {
+            navigationRecorder.record(NavigationRecorder.Operation.POP_CURRENT);
+        }
         return popController(transaction.controller);
     }
 
@@ -127,12 +172,25 @@ public abstract class Router {
     @UiThread
     public boolean popController(@NonNull Controller controller) {
         ThreadUtils.ensureMainThread();
+        coalesceChangesIfNeeded();
+
+        if (navigationRecorder != null) {
+            navigationRecorder.record(NavigationRecorder.Operation.POP, controller);
+        }
 
         RouterTransaction topTransaction = backstack.peek();
         boolean poppingTopController = topTransaction != null && topTransaction.controller == controller;
 
         if (poppingTopController) {
-            trackDestroyingController(backstack.pop());
+            String cacheKey = topTransaction.cacheKey();
+            if (forwardCache != null && cacheKey != null) {
+                // Keep the controller and its view around instead of destroying them, in case it's pushed again soon.
+                backstack.remove(topTransaction);
+                controller.setRetainsViewWhileInactive(true);
+                forwardCache.put(cacheKey, topTransaction);
+            } else {
+                trackDestroyingController(backstack.pop());
+            }
             performControllerChange(backstack.peek(), topTransaction, false);
         } else {
             RouterTransaction removedTransaction = null;
@@ -173,12 +231,47 @@ public abstract class Router {
     @UiThread
     public void pushController(@NonNull RouterTransaction transaction) {
         ThreadUtils.ensureMainThread();
+        coalesceChangesIfNeeded();
+
+        String cacheKey = transaction.cacheKey();
+        if (forwardCache != null && cacheKey != null) {
+            RouterTransaction cachedTransaction = forwardCache.take(cacheKey, transaction.controller.getClass());
+            if (cachedTransaction != null) {
+                transaction = transaction.withController(cachedTransaction.controller);
+            }
+        }
+
+        if (navigationRecorder != null) {
+            navigationRecorder.record(NavigationRecorder.Operation.PUSH, transaction);
+        }
 
         RouterTransaction from = backstack.peek();
         pushToBackstack(transaction);
         performControllerChange(transaction, from, true);
     }
 
+    /**
+     * Pushes the {@link Controller} kept in the forward cache under the given key, if there is one, with the tag and
+     * change handlers of the transaction it was originally pushed with. This allows checking the cache before
+     * constructing a new Controller, which only needs to be done if this returns false. See
+     * {@link #setForwardCacheSize(int)}.
+     *
+     * @param cacheKey The {@link RouterTransaction#cacheKey(String) cache key} of the Controller to push
+     * @return Whether or not a cached Controller was found and pushed
+     */
+    @UiThread
+    public boolean pushCachedController(@NonNull String cacheKey) {
+        ThreadUtils.ensureMainThread();
+
+        RouterTransaction cachedTransaction = forwardCache != null ? forwardCache.take(cacheKey) : null;
+        if (cachedTransaction == null) {
+            return false;
+        }
+
+        pushController(cachedTransaction.withController(cachedTransaction.controller));
+        return true;
+    }
+
     /**
      * Replaces this Router's top {@link Controller} with a new {@link Controller}
      *
@@ -189,6 +282,11 @@ public abstract class Router {
     @UiThread
     public void replaceTopController(@NonNull RouterTransaction transaction) {
         ThreadUtils.ensureMainThread();
+        coalesceChangesIfNeeded();
+
+        if (navigationRecorder != null) {
+            navigationRecorder.record(NavigationRecorder.Operation.REPLACE_TOP, transaction);
+        }
 
         RouterTransaction topTransaction = backstack.peek();
         if (!backstack.isEmpty()) {
@@ -216,6 +314,15 @@ public abstract class Router {
     }
 
     void destroy(boolean popViews) {
+        if (forwardCache != null) {
+            forwardCache.evictAll();
+        }
+
+        for (Backstack inactiveBackstack : inactiveBackstacks.values()) {
+            trackDestroyingControllers(inactiveBackstack.popAll());
+        }
+        inactiveBackstacks.clear();
+
         popsLastView = true;
         final List<RouterTransaction> poppedControllers = backstack.popAll();
         trackDestroyingControllers(poppedControllers);
@@ -253,6 +360,298 @@ public abstract class Router {
         return this;
     }
 
+    /**
+     * If set to true, controllers that are removed from this router's backstack while they aren't attached (ex: those
+     * underneath the top controller during a popToRoot or setBackstack call, or those on a backstack passed to
+     * {@link #removeBackstack(String)}) will be marked as being destroyed immediately, but will have their views
+     * released and their onDestroy methods called when the main thread is idle rather than as part of the transaction
+     * that removed them. See {@link #setIdleDestroyTimeSlice(long)}. This defaults to false.
+     */
+    @NonNull
+    public Router setDestroysWhenIdle(boolean destroysWhenIdle) {
+        if (destroysWhenIdle && idleDestroyQueue == null) {
+            idleDestroyQueue = new IdleDestroyQueue(this);
+            idleDestroyQueue.setTimeSlice(idleDestroyTimeSliceMs);
+            backstack.setIdleDestroyQueue(idleDestroyQueue);
+        } else if (!destroysWhenIdle && idleDestroyQueue != null) {
+            backstack.setIdleDestroyQueue(null);
+            idleDestroyQueue.flush();
+            idleDestroyQueue = null;
+        }
+        return this;
+    }
+
+    /**
+     * Sets the amount of time each idle pass may spend destroying controllers when
+     * {@link #setDestroysWhenIdle(boolean)} is enabled. At least one controller is always destroyed per pass,
+     * regardless of this limit, and the rest wait for the next time the main thread is idle. Defaults to 4ms.
+     *
+     * @param timeSliceMs The per-pass time limit, in milliseconds
+     */
+    @NonNull
+    public Router setIdleDestroyTimeSlice(long timeSliceMs) {
+        idleDestroyTimeSliceMs = timeSliceMs;
+        if (idleDestroyQueue != null) {
+            idleDestroyQueue.setTimeSlice(timeSliceMs);
+        }
+        return this;
+    }
+
+    /**
+     * If set to true, navigation calls made on this router are applied to its backstack right away, but the
+     * resulting changes are held until the next frame. Only the net change between the controllers that were visible
+     * before the first call and those visible at that point is then performed, so bursts such as a push immediately
+     * followed by a pop cancel each other out, and controllers that are pushed and removed again in between are
+     * never inflated. The net change uses the push handler of the new top transaction, or the pop handler of the old
+     * one when going back. This defaults to false.
+     */
+    @NonNull
+    public Router setCoalescesChanges(boolean coalescesChanges) {
+        if (!coalescesChanges) {
+            executePendingChanges();
+        }
+        this.coalescesChanges = coalescesChanges;
+        return this;
+    }
+
+    /**
+     * Sets a {@link NavigationRecorder} that records every navigation operation performed on this Router from now on,
+     * or stops recording if null is passed. Child Routers are not recorded.
+     */
+    @NonNull
+    public Router setNavigationRecorder(@Nullable NavigationRecorder navigationRecorder) {
+        this.navigationRecorder = navigationRecorder;
+        return this;
+    }
+
+    /**
+     * Immediately performs any changes that are being held until the next frame. See {@link #setCoalescesChanges(boolean)}.
+     */
+    @UiThread
+    public void executePendingChanges() {
+        ThreadUtils.ensureMainThread();
+
+        if (coalescedVisibleTransactions == null) {
+            return;
+        }
+
+        List<RouterTransaction> oldVisibleTransactions = coalescedVisibleTransactions;
+        coalescedVisibleTransactions = null;
+        deferredControllerChanges = null;
+        Choreographer.getInstance().removeFrameCallback(coalescedChangesCallback);
+
+        // Changes recorded along the way describe the intermediate states, and are replaced by the net change below.
+        List<RouterTransaction> newVisibleTransactions = getVisibleTransactions(backstack.iterator());
+        if (backstacksAreEqual(oldVisibleTransactions, newVisibleTransactions)) {
+            return;
+        }
+
+        RouterTransaction oldTopTransaction = oldVisibleTransactions.size() > 0 ? oldVisibleTransactions.get(oldVisibleTransactions.size() - 1) : null;
+        RouterTransaction newTopTransaction = newVisibleTransactions.size() > 0 ? newVisibleTransactions.get(newVisibleTransactions.size() - 1) : null;
+
+        boolean isPush = newTopTransaction != null && (oldTopTransaction == null || newTopTransaction.transactionIndex > oldTopTransaction.transactionIndex);
+        ControllerChangeHandler changeHandler;
+        if (isPush) {
+            changeHandler = newTopTransaction.pushChangeHandler();
+        } else {
+            //noinspection ConstantConditions
+            changeHandler = oldTopTransaction.popChangeHandler();
+        }
+
+        performVisibleTransactionsChange(oldVisibleTransactions, newVisibleTransactions, isPush, changeHandler);
+    }
+
+    /**
+     * Sets the number of recently popped controllers this router should keep alive, but detached, so that pushing
+     * the same destination again will revive the existing instance instead of using the newly constructed one.
+     * Only controllers popped from the top of the backstack whose transactions have a
+     * {@link RouterTransaction#cacheKey(String) cache key} are kept, and a later push matches them by that key and
+     * by controller class. As the revived controller keeps its own args, the key must identify the content it
+     * shows; tags alone are never used for matching. Use {@link #pushCachedController(String)} to avoid
+     * constructing a controller that would be discarded.
+     * <p>
+     * Cached controllers keep their views regardless of their {@link Controller.RetainViewMode}, so a revived
+     * controller is shown without being inflated again. The size should be kept small accordingly. Cached
+     * controllers are destroyed when evicted, when memory is low, or when the host Activity is destroyed. This
+     * defaults to 0, which disables the cache.
+     */
+    @NonNull
+    public Router setForwardCacheSize(int size) {
+        if (forwardCache != null) {
+            forwardCache.evictAll();
+        }
+        forwardCache = size > 0 ? new ForwardCache(size) : null;
+        return this;
+    }
+
+    /**
+     * Sets the number of destroyed instances of the given Controller class this router should keep around for reuse.
+     * Pooled instances are only handed out by {@link #obtainController(Class, Bundle)}, which resets them through
+     * {@link Controller#onReset(Bundle)} before returning them. Controllers of pooled classes must therefore reset
+     * all of their own state in that method. Each reuse gets a new instance id, and looking up the id of a pooled
+     * Controller, or adding one to a {@link RouterTransaction} before it's handed out again, throws an
+     * {@link IllegalStateException}. Pools are cleared when memory is low. This defaults to 0, which disables
+     * pooling for the class.
+     */
+    @NonNull
+    public <T extends Controller> Router setControllerPoolSize(@NonNull Class<T> controllerClass, int size) {
+        if (controllerPool == null) {
+            if (size <= 0) {
+                return this;
+            }
+            controllerPool = new ControllerPool();
+        }
+        controllerPool.setMaxSize(controllerClass, size);
+        return this;
+    }
+
+    /**
+     * Returns an instance of the given Controller class with the given args, reusing a pooled instance if one is
+     * available. Instances returned here are put back into the pool once they've been destroyed. See
+     * {@link #setControllerPoolSize(Class, int)}.
+     *
+     * @param controllerClass The class of the Controller to obtain
+     * @param args The arguments to pass to the Controller, as if it had been constructed with them
+     */
+    @NonNull
+    public <T extends Controller> T obtainController(@NonNull Class<T> controllerClass, @Nullable Bundle args) {
+        if (controllerPool == null) {
+            return Controller.newInstance(controllerClass, args);
+        }
+        return controllerPool.obtain(controllerClass, args);
+    }
+
+    /**
+     * Returns the name of the backstack this Router is currently displaying and navigating within. This is
+     * {@link #DEFAULT_BACKSTACK} until {@link #switchToBackstack(String, RouterTransaction, ControllerChangeHandler)}
+     * is called.
+     */
+    @NonNull
+    public String getActiveBackstackName() {
+        return activeBackstackName;
+    }
+
+    /**
+     * Returns whether or not this Router has a non-empty backstack with the given name, active or not.
+     *
+     * @param name The name of the backstack
+     */
+    public boolean hasBackstack(@NonNull String name) {
+        if (activeBackstackName.equals(name)) {
+            return !backstack.isEmpty();
+        }
+
+        Backstack inactiveBackstack = inactiveBackstacks.get(name);
+        return inactiveBackstack != null && !inactiveBackstack.isEmpty();
+    }
+
+    /**
+     * Makes the backstack with the given name the active one, creating it if needed. The Controllers on the
+     * previously active backstack are detached, but not destroyed, and will be shown again when switching back to
+     * it. All further navigation calls on this Router apply to the newly active backstack. A single change from the
+     * old top Controller to the new one is performed using the passed change handler.
+     *
+     * @param name            The name of the backstack to switch to
+     * @param rootTransaction The root transaction to use if the named backstack is empty. Ignored otherwise.
+     * @param changeHandler   The change handler used to switch between the two backstacks' top Controllers
+     */
+    @UiThread
+    public void switchToBackstack(@NonNull String name, @Nullable RouterTransaction rootTransaction, @Nullable ControllerChangeHandler changeHandler) {
+        ThreadUtils.ensureMainThread();
+
+        executePendingChanges();
+
+        if (activeBackstackName.equals(name)) {
+            if (backstack.isEmpty() && rootTransaction != null) {
+                setBackstack(Collections.singletonList(rootTransaction), changeHandler);
+            }
+            return;
+        }
+
+        if (navigationRecorder != null) {
+            List<RouterTransaction> recordedTransactions = rootTransaction != null ? Collections.singletonList(rootTransaction) : Collections.<RouterTransaction>emptyList();
+            navigationRecorder.record(NavigationRecorder.Operation.SWITCH_TO_BACKSTACK, name, recordedTransactions);
+        }
+
+        List<RouterTransaction> oldVisibleTransactions = getVisibleTransactions(backstack.iterator());
+
+        Backstack newBackstack = inactiveBackstacks.remove(name);
+        if (newBackstack == null) {
+            newBackstack = new Backstack();
+        }
+
+        if (warmBackstackCount > 0) {
+            for (RouterTransaction transaction : oldVisibleTransactions) {
+                transaction.controller.setRetainsViewWhileInactive(true);
+            }
+        }
+
+        backstack.setIdleDestroyQueue(null);
+        inactiveBackstacks.put(activeBackstackName, backstack);
+        trimWarmBackstacks();
+
+        activeBackstackName = name;
+        backstack = newBackstack;
+        backstack.setIdleDestroyQueue(idleDestroyQueue);
+
+        if (backstack.isEmpty() && rootTransaction != null) {
+            ensureOrderedTransactionIndices(Collections.singletonList(rootTransaction));
+            pushToBackstack(rootTransaction);
+            rootTransaction.onAttachedToRouter();
+        }
+
+        if (changeHandler != null) {
+            // The caller's handler may be reused elsewhere, so only a copy is forced to remove the old views.
+            changeHandler = changeHandler.copy();
+            changeHandler.setForceRemoveViewOnPush(true);
+        }
+
+        List<RouterTransaction> newVisibleTransactions = getVisibleTransactions(backstack.iterator());
+        performVisibleTransactionsChange(oldVisibleTransactions, newVisibleTransactions, true, changeHandler);
+
+        for (RouterTransaction transaction : backstack) {
+            transaction.controller.setRouter(this);
+        }
+    }
+
+    /**
+     * Destroys all Controllers on the inactive backstack with the given name and removes it from this Router. The
+     * active backstack can't be removed.
+     *
+     * @param name The name of the backstack to remove
+     * @return Whether or not a backstack with the given name was removed
+     */
+    @UiThread
+    public boolean removeBackstack(@NonNull String name) {
+        ThreadUtils.ensureMainThread();
+
+        if (navigationRecorder != null) {
+            navigationRecorder.record(NavigationRecorder.Operation.REMOVE_BACKSTACK, name);
+        }
+
+        Backstack inactiveBackstack = inactiveBackstacks.remove(name);
+        if (inactiveBackstack != null) {
+            // None of its Controllers are attached, so all of them can wait for the idle queue if there is one.
+            inactiveBackstack.setIdleDestroyQueue(idleDestroyQueue);
+            inactiveBackstack.popAll();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sets the number of inactive backstacks whose visible Controllers keep their views around while detached, so
+     * that switching back to them doesn't need to inflate them again. Backstacks that were active most recently are
+     * kept warm first. Views of other inactive backstacks are released as dictated by their Controllers'
+     * {@link Controller.RetainViewMode}. This defaults to 1.
+     */
+    @NonNull
+    public Router setWarmBackstackCount(int count) {
+        warmBackstackCount = count;
+        trimWarmBackstacks();
+        return this;
+    }
+
     /**
      * Pops all {@link Controller}s until only the root is left
      *
@@ -276,6 +675,10 @@ public abstract class Router {
     public boolean popToRoot(@Nullable ControllerChangeHandler changeHandler) {
         ThreadUtils.ensureMainThread();
 
+        if (navigationRecorder != null) {
+            navigationRecorder.record(NavigationRecorder.Operation.POP_TO_ROOT);
+        }
+
         if (backstack.size() > 1) {
             //noinspection ConstantConditions
             popToTransaction(backstack.root(), changeHandler);
@@ -310,6 +713,10 @@ public abstract class Router {
     public boolean popToTag(@NonNull String tag, @Nullable ControllerChangeHandler changeHandler) {
         ThreadUtils.ensureMainThread();
 
+        if (navigationRecorder != null) {
+            navigationRecorder.record(NavigationRecorder.Operation.POP_TO_TAG, tag);
+        }
+
         for (RouterTransaction transaction : backstack) {
             if (tag.equals(transaction.tag())) {
                 popToTransaction(transaction, changeHandler);
@@ -329,6 +736,10 @@ public abstract class Router {
     public void setRoot(@NonNull RouterTransaction transaction) {
         ThreadUtils.ensureMainThread();
 
+        if (navigationRecorder != null) {
+            navigationRecorder.record(NavigationRecorder.Operation.SET_ROOT);
+        }
+
         List<RouterTransaction> transactions = Collections.singletonList(transaction);
         setBackstack(transactions, transaction.pushChangeHandler());
     }
@@ -338,15 +749,36 @@ public abstract class Router {
      * Controller exists in this Router.
      *
      * @param instanceId The instance ID being searched for
+     * @throws IllegalStateException If the id belonged to a Controller that has since been returned to a pool
+     *                               by {@link #setControllerPoolSize(Class, int)}, as the instance it used to
+     *                               identify may already be showing other content.
      */
     @Nullable
     public Controller getControllerWithInstanceId(@NonNull String instanceId) {
+        Controller controller = findControllerWithInstanceId(instanceId);
+        if (controller == null && getRootRouter().isRetiredInstanceId(instanceId)) {
+            throw new IllegalStateException("The Controller with instance id " + instanceId + " was destroyed and returned to a pool for reuse. References to pooled Controllers must not be kept after onDestroy.");
+        }
+        return controller;
+    }
+
+    @Nullable
+    final Controller findControllerWithInstanceId(@NonNull String instanceId) {
         for (RouterTransaction transaction : backstack) {
             Controller controllerWithId = transaction.controller.findController(instanceId);
             if (controllerWithId != null) {
                 return controllerWithId;
             }
         }
+
+        for (Backstack inactiveBackstack : inactiveBackstacks.values()) {
+            for (RouterTransaction transaction : inactiveBackstack) {
+                Controller controllerWithId = transaction.controller.findController(instanceId);
+                if (controllerWithId != null) {
+                    return controllerWithId;
+                }
+            }
+        }
         return null;
     }
 
@@ -398,6 +830,11 @@ public abstract class Router {
     @UiThread
     public void setBackstack(@NonNull List<RouterTransaction> newBackstack, @Nullable ControllerChangeHandler changeHandler) {
         ThreadUtils.ensureMainThread();
+        coalesceChangesIfNeeded();
+
+        if (navigationRecorder != null) {
+            navigationRecorder.record(NavigationRecorder.Operation.SET_BACKSTACK, newBackstack);
+        }
 
         List<RouterTransaction> oldVisibleTransactions = getVisibleTransactions(backstack.iterator());
 
@@ -416,43 +853,48 @@ public abstract class Router {
             Collections.reverse(reverseNewBackstack);
             List<RouterTransaction> newVisibleTransactions = getVisibleTransactions(reverseNewBackstack.iterator());
 
-            boolean visibleTransactionsChanged = !backstacksAreEqual(newVisibleTransactions, oldVisibleTransactions);
-            if (visibleTransactionsChanged) {
-                RouterTransaction oldRootTransaction = oldVisibleTransactions.size() > 0 ? oldVisibleTransactions.get(0) : null;
-                RouterTransaction newRootTransaction = newVisibleTransactions.get(0);
+            performVisibleTransactionsChange(oldVisibleTransactions, newVisibleTransactions, newRootRequiresPush, changeHandler);
 
-                // Replace the old root with the new one
-                if (oldRootTransaction == null || oldRootTransaction.controller != newRootTransaction.controller) {
-                    // Ensure the existing root controller is fully pushed to the view hierarchy
-                    if (oldRootTransaction != null) {
-                        ControllerChangeHandler.completeHandlerImmediately(oldRootTransaction.controller.getInstanceId());
-                    }
-                    performControllerChange(newRootTransaction, oldRootTransaction, newRootRequiresPush, changeHandler);
-                }
+            // Ensure all new controllers have a valid router set
+            for (RouterTransaction transaction : newBackstack) {
+                transaction.controller.setRouter(this);
+            }
+        }
+    }
 
-                // Remove all visible controllers that were previously on the backstack
-                for (int i = oldVisibleTransactions.size() - 1; i > 0; i--) {
-                    RouterTransaction transaction = oldVisibleTransactions.get(i);
-                    if (!newVisibleTransactions.contains(transaction)) {
-                        ControllerChangeHandler localHandler = changeHandler != null ? changeHandler.copy() : new SimpleSwapChangeHandler();
-                        localHandler.setForceRemoveViewOnPush(true);
-                        ControllerChangeHandler.completeHandlerImmediately(transaction.controller.getInstanceId());
-                        performControllerChange(null, transaction, newRootRequiresPush, localHandler);
-                    }
+    private void performVisibleTransactionsChange(@NonNull List<RouterTransaction> oldVisibleTransactions, @NonNull List<RouterTransaction> newVisibleTransactions,
+                                                  boolean newRootRequiresPush, @Nullable ControllerChangeHandler changeHandler) {
+        boolean visibleTransactionsChanged = !backstacksAreEqual(newVisibleTransactions, oldVisibleTransactions);
+        if (visibleTransactionsChanged) {
+            RouterTransaction oldRootTransaction = oldVisibleTransactions.size() > 0 ? oldVisibleTransactions.get(0) : null;
+            RouterTransaction newRootTransaction = newVisibleTransactions.size() > 0 ? newVisibleTransactions.get(0) : null;
+
+            // Replace the old root with the new one
+            if (oldRootTransaction == null || newRootTransaction == null || oldRootTransaction.controller != newRootTransaction.controller) {
+                // Ensure the existing root controller is fully pushed to the view hierarchy
+                if (oldRootTransaction != null) {
+                    ControllerChangeHandler.completeHandlerImmediately(oldRootTransaction.controller);
                 }
+                performControllerChange(newRootTransaction, oldRootTransaction, newRootRequiresPush, changeHandler);
+            }
 
-                // Add any new controllers to the backstack
-                for (int i = 1; i < newVisibleTransactions.size(); i++) {
-                    RouterTransaction transaction = newVisibleTransactions.get(i);
-                    if (!oldVisibleTransactions.contains(transaction)) {
-                        performControllerChange(transaction, newVisibleTransactions.get(i - 1), true, transaction.pushChangeHandler());
-                    }
+            // Remove all visible controllers that were previously on the backstack
+            for (int i = oldVisibleTransactions.size() - 1; i > 0; i--) {
+                RouterTransaction transaction = oldVisibleTransactions.get(i);
+                if (!newVisibleTransactions.contains(transaction)) {
+                    ControllerChangeHandler localHandler = changeHandler != null ? changeHandler.copy() : new SimpleSwapChangeHandler();
+                    localHandler.setForceRemoveViewOnPush(true);
+                    ControllerChangeHandler.completeHandlerImmediately(transaction.controller);
+                    performControllerChange(null, transaction, newRootRequiresPush, localHandler);
                 }
             }
 
-            // Ensure all new controllers have a valid router set
-            for (RouterTransaction transaction : newBackstack) {
-                transaction.controller.setRouter(this);
+            // Add any new controllers to the backstack
+            for (int i = 1; i < newVisibleTransactions.size(); i++) {
+                RouterTransaction transaction = newVisibleTransactions.get(i);
+                if (!oldVisibleTransactions.contains(transaction)) {
+                    performControllerChange(transaction, newVisibleTransactions.get(i - 1), true, transaction.pushChangeHandler());
+                }
             }
         }
     }
@@ -486,6 +928,88 @@ public abstract class Router {
         changeListeners.remove(changeListener);
     }
 
+    @NonNull
+    final List<ControllerChangeListener> getChangeListeners() {
+        return Collections.unmodifiableList(changeListeners);
+    }
+
+    /**
+     * Adds a listener to be notified with the latency of each of this Router's {@link Controller} changes, along with
+     * percentiles broken down by Controller and change handler class. Changes are only measured while at least one
+     * such listener is added.
+     *
+     * @param metricsListener The listener
+     */
+    public void addTransitionMetricsListener(@NonNull TransitionMetricsListener metricsListener) {
+        if (transitionMetricsRecorder == null) {
+            transitionMetricsRecorder = new TransitionMetricsRecorder();
+            addChangeListener(transitionMetricsRecorder);
+        }
+        transitionMetricsRecorder.addListener(metricsListener);
+    }
+
+    /**
+     * Removes a previously added metrics listener. Once the last one is removed, all collected metrics are discarded.
+     *
+     * @param metricsListener The listener to be removed
+     */
+    public void removeTransitionMetricsListener(@NonNull TransitionMetricsListener metricsListener) {
+        if (transitionMetricsRecorder != null) {
+            transitionMetricsRecorder.removeListener(metricsListener);
+
+            if (!transitionMetricsRecorder.hasListeners()) {
+                removeChangeListener(transitionMetricsRecorder);
+                transitionMetricsRecorder.clear();
+                transitionMetricsRecorder = null;
+            }
+        }
+    }
+
+    /**
+     * Writes a description of this Router to the given writer, including every backstack, the {@link Controller}s
+     * within them and their child Routers, along with an estimate of the memory each Controller holds on to. This
+     * parcels every saved state to measure it, so it's meant for debugging only.
+     *
+     * @param prefix The prefix to write before each line
+     * @param writer The writer to write to
+     */
+    @UiThread
+    public void dump(@NonNull String prefix, @NonNull PrintWriter writer) {
+        writer.print(prefix);
+        writer.print(getClass().getSimpleName());
+        writer.print(" containerId=");
+        writer.print(getContainerId());
+        writer.print(" activeBackstack=");
+        writer.print(activeBackstackName);
+        writer.print(" pendingChanges=");
+        writer.print(pendingControllerChanges.size());
+        writer.print(" destroyingControllers=");
+        writer.println(destroyingControllers.size());
+
+        dumpBackstack(prefix + "  ", activeBackstackName, backstack, writer);
+        for (Map.Entry<String, Backstack> entry : inactiveBackstacks.entrySet()) {
+            dumpBackstack(prefix + "  ", entry.getKey(), entry.getValue(), writer);
+        }
+    }
+
+    private void dumpBackstack(@NonNull String prefix, @NonNull String name, @NonNull Backstack backstack, @NonNull PrintWriter writer) {
+        writer.print(prefix);
+        writer.print("Backstack ");
+        writer.print(name);
+        writer.print(" size=");
+        writer.println(backstack.size());
+
+        int index = 0;
+        Iterator<RouterTransaction> iterator = backstack.reverseIterator();
+        while (iterator.hasNext()) {
+            RouterTransaction transaction = iterator.next();
+            writer.print(prefix);
+            writer.print("  #");
+            writer.println(index++);
+            transaction.controller.dump(prefix + "    ", transaction.tag(), writer);
+        }
+    }
+
     /**
      * Attaches this Router's existing backstack to its container if one exists.
      */
@@ -506,11 +1030,17 @@ public abstract class Router {
     public final void onActivityResult(@NonNull String instanceId, int requestCode, int resultCode, @Nullable Intent data) {
         Controller controller = getControllerWithInstanceId(instanceId);
         if (controller != null) {
+            final long startTime = Hooks.callbackStarted();
             controller.onActivityResult(requestCode, resultCode, data);
+            Hooks.callbackFinished(startTime, controller, "onActivityResult");
         }
     }
 
     public final void onActivityStarted(@NonNull Activity activity) {
+        if (navigationRecorder != null) {
+            navigationRecorder.record(NavigationRecorder.Operation.ACTIVITY_STARTED);
+        }
+
         for (RouterTransaction transaction : backstack) {
             transaction.controller.activityStarted(activity);
 
@@ -518,9 +1048,23 @@ public abstract class Router {
                 childRouter.onActivityStarted(activity);
             }
         }
+
+        for (Backstack inactiveBackstack : inactiveBackstacks.values()) {
+            for (RouterTransaction transaction : inactiveBackstack) {
+                transaction.controller.activityStarted(activity);
+
+                for (Router childRouter : transaction.controller.getChildRouters()) {
+                    childRouter.onActivityStarted(activity);
+                }
+            }
+        }
     }
 
     public final void onActivityResumed(@NonNull Activity activity) {
+        if (navigationRecorder != null) {
+            navigationRecorder.record(NavigationRecorder.Operation.ACTIVITY_RESUMED);
+        }
+
         for (RouterTransaction transaction : backstack) {
             transaction.controller.activityResumed(activity);
 
@@ -528,9 +1072,23 @@ public abstract class Router {
                 childRouter.onActivityResumed(activity);
             }
         }
+
+        for (Backstack inactiveBackstack : inactiveBackstacks.values()) {
+            for (RouterTransaction transaction : inactiveBackstack) {
+                transaction.controller.activityResumed(activity);
+
+                for (Router childRouter : transaction.controller.getChildRouters()) {
+                    childRouter.onActivityResumed(activity);
+                }
+            }
+        }
     }
 
     public final void onActivityPaused(@NonNull Activity activity) {
+        if (navigationRecorder != null) {
+            navigationRecorder.record(NavigationRecorder.Operation.ACTIVITY_PAUSED);
+        }
+
         for (RouterTransaction transaction : backstack) {
             transaction.controller.activityPaused(activity);
 
@@ -538,9 +1096,23 @@ public abstract class Router {
                 childRouter.onActivityPaused(activity);
             }
         }
+
+        for (Backstack inactiveBackstack : inactiveBackstacks.values()) {
+            for (RouterTransaction transaction : inactiveBackstack) {
+                transaction.controller.activityPaused(activity);
+
+                for (Router childRouter : transaction.controller.getChildRouters()) {
+                    childRouter.onActivityPaused(activity);
+                }
+            }
+        }
     }
 
     public final void onActivityStopped(@NonNull Activity activity) {
+        if (navigationRecorder != null) {
+            navigationRecorder.record(NavigationRecorder.Operation.ACTIVITY_STOPPED);
+        }
+
         for (RouterTransaction transaction : backstack) {
             transaction.controller.activityStopped(activity);
 
@@ -548,12 +1120,65 @@ public abstract class Router {
                 childRouter.onActivityStopped(activity);
             }
         }
+
+        for (Backstack inactiveBackstack : inactiveBackstacks.values()) {
+            for (RouterTransaction transaction : inactiveBackstack) {
+                transaction.controller.activityStopped(activity);
+
+                for (Router childRouter : transaction.controller.getChildRouters()) {
+                    childRouter.onActivityStopped(activity);
+                }
+            }
+        }
+    }
+
+    public final void onTrimMemory(int level) {
+        if (forwardCache != null && TrimMemoryTier.fromLevel(level) >= TrimMemoryTier.LOW) {
+            forwardCache.evictAll();
+        }
+
+        if (controllerPool != null && TrimMemoryTier.fromLevel(level) >= TrimMemoryTier.LOW) {
+            controllerPool.clear();
+        }
+
+        int depth = 0;
+        for (RouterTransaction transaction : backstack) {
+            transaction.controller.trimMemory(level, depth++);
+        }
+
+        for (Backstack inactiveBackstack : inactiveBackstacks.values()) {
+            for (RouterTransaction transaction : inactiveBackstack) {
+                transaction.controller.trimMemory(level, Integer.MAX_VALUE);
+            }
+        }
     }
 
     public void onActivityDestroyed(@NonNull Activity activity) {
+        if (navigationRecorder != null) {
+            navigationRecorder.record(NavigationRecorder.Operation.ACTIVITY_DESTROYED);
+        }
+
+        executePendingChanges();
         prepareForContainerRemoval();
         changeListeners.clear();
 
+        if (transitionMetricsRecorder != null) {
+            transitionMetricsRecorder.clear();
+            transitionMetricsRecorder = null;
+        }
+
+        if (idleDestroyQueue != null) {
+            idleDestroyQueue.flush();
+        }
+
+        if (forwardCache != null) {
+            forwardCache.onActivityDestroyed(activity);
+        }
+
+        if (controllerPool != null) {
+            controllerPool.clear();
+        }
+
         for (RouterTransaction transaction : backstack) {
             transaction.controller.activityDestroyed(activity);
 
@@ -562,6 +1187,16 @@ public abstract class Router {
             }
         }
 
+        for (Backstack inactiveBackstack : inactiveBackstacks.values()) {
+            for (RouterTransaction transaction : inactiveBackstack) {
+                transaction.controller.activityDestroyed(activity);
+
+                for (Router childRouter : transaction.controller.getChildRouters()) {
+                    childRouter.onActivityDestroyed(activity);
+                }
+            }
+        }
+
         for (int index = destroyingControllers.size() - 1; index >= 0; index--) {
             Controller controller = destroyingControllers.get(index);
             controller.activityDestroyed(activity);
@@ -576,7 +1211,7 @@ public abstract class Router {
 
     void prepareForHostDetach() {
         for (RouterTransaction transaction : backstack) {
-            if (ControllerChangeHandler.completeHandlerImmediately(transaction.controller.getInstanceId())) {
+            if (ControllerChangeHandler.completeHandlerImmediately(transaction.controller)) {
                 transaction.controller.setNeedsAttach(true);
             }
             transaction.controller.prepareForHostDetach();
@@ -584,6 +1219,11 @@ public abstract class Router {
     }
 
     public void saveInstanceState(@NonNull Bundle outState) {
+        if (navigationRecorder != null) {
+            navigationRecorder.record(NavigationRecorder.Operation.SAVE_INSTANCE_STATE);
+        }
+
+        executePendingChanges();
         prepareForHostDetach();
 
         Bundle backstackState = new Bundle();
@@ -591,6 +1231,16 @@ public abstract class Router {
 
         outState.putParcelable(KEY_BACKSTACK, backstackState);
         outState.putBoolean(KEY_POPS_LAST_VIEW, popsLastView);
+        outState.putString(KEY_ACTIVE_BACKSTACK_NAME, activeBackstackName);
+
+        Bundle inactiveBackstacksState = new Bundle();
+        for (Map.Entry<String, Backstack> entry : inactiveBackstacks.entrySet()) {
+            Bundle inactiveBackstackState = new Bundle();
+            entry.getValue().saveInstanceState(inactiveBackstackState);
+            inactiveBackstacksState.putBundle(entry.getKey(), inactiveBackstackState);
+        }
+        outState.putStringArrayList(KEY_INACTIVE_BACKSTACK_NAMES, new ArrayList<>(inactiveBackstacks.keySet()));
+        outState.putBundle(KEY_INACTIVE_BACKSTACKS, inactiveBackstacksState);
     }
 
     public void restoreInstanceState(@NonNull Bundle savedInstanceState) {
@@ -598,11 +1248,28 @@ public abstract class Router {
         //noinspection ConstantConditions
         backstack.restoreInstanceState(backstackBundle);
         popsLastView = savedInstanceState.getBoolean(KEY_POPS_LAST_VIEW);
+        activeBackstackName = savedInstanceState.getString(KEY_ACTIVE_BACKSTACK_NAME, DEFAULT_BACKSTACK);
 
         Iterator<RouterTransaction> backstackIterator = backstack.reverseIterator();
         while (backstackIterator.hasNext()) {
             setControllerRouter(backstackIterator.next().controller);
         }
+
+        List<String> inactiveBackstackNames = savedInstanceState.getStringArrayList(KEY_INACTIVE_BACKSTACK_NAMES);
+        Bundle inactiveBackstacksState = savedInstanceState.getBundle(KEY_INACTIVE_BACKSTACKS);
+        if (inactiveBackstackNames != null && inactiveBackstacksState != null) {
+            for (String name : inactiveBackstackNames) {
+                Backstack inactiveBackstack = new Backstack();
+                //noinspection ConstantConditions
+                inactiveBackstack.restoreInstanceState(inactiveBackstacksState.getBundle(name));
+                inactiveBackstacks.put(name, inactiveBackstack);
+
+                backstackIterator = inactiveBackstack.reverseIterator();
+                while (backstackIterator.hasNext()) {
+                    setControllerRouter(backstackIterator.next().controller);
+                }
+            }
+        }
     }
 
     public final void onCreateOptionsMenu(@NonNull Menu menu, @NonNull MenuInflater inflater) {
@@ -663,6 +1330,43 @@ public abstract class Router {
         }
     }
 
+    @NonNull
+    final List<RouterTransaction> getInactiveTransactions() {
+        List<RouterTransaction> transactions = new ArrayList<>();
+        for (Backstack inactiveBackstack : inactiveBackstacks.values()) {
+            for (RouterTransaction transaction : inactiveBackstack) {
+                transactions.add(transaction);
+            }
+        }
+        return transactions;
+    }
+
+    private void trimWarmBackstacks() {
+        int coldBackstackCount = inactiveBackstacks.size() - Math.max(warmBackstackCount, 0);
+
+        // Inactive backstacks are kept in the order they were last active, so the coldest ones come first.
+        for (Backstack inactiveBackstack : inactiveBackstacks.values()) {
+            if (coldBackstackCount-- <= 0) {
+                break;
+            }
+
+            for (RouterTransaction transaction : inactiveBackstack) {
+                transaction.controller.setRetainsViewWhileInactive(false);
+            }
+        }
+    }
+
+    void updateOccludedViews() {
+        List<RouterTransaction> visibleTransactions = getVisibleTransactions(backstack.iterator());
+
+        boolean occluded = false;
+        for (int i = visibleTransactions.size() - 1; i >= 0; i--) {
+            Controller controller = visibleTransactions.get(i).controller;
+            controller.setOccluded(occluded);
+            occluded = occluded || (controller.isOpaque() && controller.isAttached());
+        }
+    }
+
     void watchContainerAttach() {
         container.post(new Runnable() {
             @Override
@@ -674,10 +1378,6 @@ public abstract class Router {
 
     void prepareForContainerRemoval() {
         containerFullyAttached = false;
-
-        if (container != null) {
-            container.setOnHierarchyChangeListener(null);
-        }
     }
 
     void onContextAvailable() {
@@ -753,13 +1453,26 @@ public abstract class Router {
             throw new IllegalStateException("Trying to push a controller that has already been destroyed. (" + to.getClass().getSimpleName() + ")");
         }
 
-        final ChangeTransaction transaction = new ChangeTransaction(to, from, isPush, container, changeHandler, changeListeners);
+        if (transitionMetricsRecorder != null) {
+            transitionMetricsRecorder.onChangeRequested(to, from);
+        }
+        Hooks.changeRequested(this, to, from, isPush, changeHandler);
+
+        final ChangeTransaction transaction = new ChangeTransaction(this, to, from, isPush, container, changeHandler, changeListeners);
+
+        if (deferredControllerChanges != null) {
+            deferredControllerChanges.add(transaction);
+        } else {
+            performControllerChange(transaction);
+        }
+    }
 
+    void performControllerChange(@NonNull ChangeTransaction transaction) {
         if (pendingControllerChanges.size() > 0) {
             // If we already have changes queued up (awaiting full container attach), queue this one up as well so they don't happen
             // out of order.
             pendingControllerChanges.add(transaction);
-        } else if (from != null && (changeHandler == null || changeHandler.removesFromViewOnPush()) && !containerFullyAttached) {
+        } else if (transaction.from != null && (transaction.changeHandler == null || transaction.changeHandler.removesFromViewOnPush()) && !containerFullyAttached) {
             // If the change handler will remove the from view, we have to make sure the container is fully attached first so we avoid NPEs
             // within ViewGroup (details on issue #287). Post this to the container to ensure the attach is complete before we try to remove
             // anything.
@@ -784,15 +1497,82 @@ public abstract class Router {
         pendingControllerChanges.clear();
     }
 
+    /**
+     * Holds on to all changes this Router would perform until {@link #endDeferringControllerChanges()} is called, so
+     * that they can be run alongside the changes of other Routers.
+     */
+    void beginDeferringControllerChanges() {
+        executePendingChanges();
+
+        if (deferredControllerChanges != null) {
+            throw new IllegalStateException("This router is already part of an uncommitted coordinated transaction.");
+        }
+        deferredControllerChanges = new ArrayList<>();
+    }
+
+    @NonNull
+    List<ChangeTransaction> endDeferringControllerChanges() {
+        List<ChangeTransaction> changes = deferredControllerChanges != null ? deferredControllerChanges : Collections.<ChangeTransaction>emptyList();
+        deferredControllerChanges = null;
+        return changes;
+    }
+
+    private void coalesceChangesIfNeeded() {
+        if (!coalescesChanges || coalescedVisibleTransactions != null || deferredControllerChanges != null || container == null) {
+            return;
+        }
+
+        coalescedVisibleTransactions = getVisibleTransactions(backstack.iterator());
+        deferredControllerChanges = new ArrayList<>();
+
+        if (coalescedChangesCallback == null) {
+            coalescedChangesCallback = new FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    executePendingChanges();
+                }
+            };
+        }
+        Choreographer.getInstance().postFrameCallback(coalescedChangesCallback);
+    }
+
     protected void pushToBackstack(@NonNull RouterTransaction entry) {
         backstack.push(entry);
     }
 
     private void trackDestroyingController(@NonNull RouterTransaction transaction) {
-        if (!transaction.controller.isDestroyed()) {
-            destroyingControllers.add(transaction.controller);
+        trackDestroyingController(transaction.controller);
+    }
+
+    void recycleController(@NonNull Controller controller) {
+        // A Controller whose id was never handed out can't be looked up by it either, so there's nothing to retire.
+        if (controllerPool != null && controllerPool.recycle(controller) && controller.hasInstanceId()) {
+            getRootRouter().retireInstanceId(controller.getInstanceId());
+        }
+    }
+
+    private void retireInstanceId(@NonNull String instanceId) {
+        if (retiredInstanceIds == null) {
+            retiredInstanceIds = new LinkedHashSet<>();
+        }
+
+        retiredInstanceIds.add(instanceId);
+        if (retiredInstanceIds.size() > MAX_RETIRED_INSTANCE_IDS) {
+            Iterator<String> iterator = retiredInstanceIds.iterator();
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private boolean isRetiredInstanceId(@NonNull String instanceId) {
+        return retiredInstanceIds != null && retiredInstanceIds.contains(instanceId);
+    }
+
+    void trackDestroyingController(@NonNull Controller controller) {
+        if (!controller.isDestroyed() && !destroyingControllers.contains(controller)) {
+            destroyingControllers.add(controller);
 
-            transaction.controller.addLifecycleListener(new LifecycleListener() {
+            controller.addLifecycleListener(new LifecycleListener() {
                 @Override
                 public void postDestroy(@NonNull Controller controller) {
                     destroyingControllers.remove(controller);
@@ -17,11 +17,13 @@ public class RouterTransaction {
     private static final String KEY_PUSH_TRANSITION = "RouterTransaction.pushControllerChangeHandler";
     private static final String KEY_POP_TRANSITION = "RouterTransaction.popControllerChangeHandler";
     private static final String KEY_TAG = "RouterTransaction.tag";
+    private static final String KEY_CACHE_KEY = "RouterTransaction.cacheKey";
     private static final String KEY_INDEX = "RouterTransaction.transactionIndex";
     private static final String KEY_ATTACHED_TO_ROUTER = "RouterTransaction.attachedToRouter";
 
     @NonNull final Controller controller;
     private String tag;
+    private String cacheKey;
 
     private ControllerChangeHandler pushControllerChangeHandler;
     private ControllerChangeHandler popControllerChangeHandler;
@@ -34,6 +36,9 @@ public class RouterTransaction {
     }
 
     private RouterTransaction(@NonNull Controller controller) {
+        if (controller.isPooled()) {
+            throw new IllegalStateException(controller.getClass().getSimpleName() + " was destroyed and returned to a pool for reuse. Use Router.obtainController to get a new instance instead.");
+        }
         this.controller = controller;
     }
 
@@ -42,6 +47,7 @@ public class RouterTransaction {
         pushControllerChangeHandler = ControllerChangeHandler.fromBundle(bundle.getBundle(KEY_PUSH_TRANSITION));
         popControllerChangeHandler = ControllerChangeHandler.fromBundle(bundle.getBundle(KEY_POP_TRANSITION));
         tag = bundle.getString(KEY_TAG);
+        cacheKey = bundle.getString(KEY_CACHE_KEY);
         transactionIndex = bundle.getInt(KEY_INDEX);
         attachedToRouter = bundle.getBoolean(KEY_ATTACHED_TO_ROUTER);
     }
@@ -70,6 +76,31 @@ public class RouterTransaction {
         }
     }
 
+    /**
+     * Returns the key used to match this transaction against its Router's forward cache, if any.
+     */
+    @Nullable
+    public String cacheKey() {
+        return cacheKey;
+    }
+
+    /**
+     * Sets the key used to match this transaction against its Router's forward cache. The key identifies the
+     * content shown by the controller, not just the destination: a push whose key matches a cached controller of
+     * the same class revives that controller, with its own args and state, and discards the newly constructed one.
+     * Include whatever distinguishes the content (ex: "detail/" + itemId) in the key. Transactions without a key
+     * are never cached. See {@link Router#setForwardCacheSize(int)}.
+     */
+    @NonNull
+    public RouterTransaction cacheKey(@Nullable String cacheKey) {
+        if (!attachedToRouter) {
+            this.cacheKey = cacheKey;
+            return this;
+        } else {
+            throw new RuntimeException(getClass().getSimpleName() + "s can not be modified after being added to a Router.");
+        }
+    }
+
     @Nullable
     public ControllerChangeHandler pushChangeHandler() {
         ControllerChangeHandler handler = controller.getOverriddenPushHandler();
@@ -108,6 +139,16 @@ public class RouterTransaction {
         }
     }
 
+    @NonNull
+    RouterTransaction withController(@NonNull Controller controller) {
+        RouterTransaction transaction = new RouterTransaction(controller);
+        transaction.tag = tag;
+        transaction.cacheKey = cacheKey;
+        transaction.pushControllerChangeHandler = pushControllerChangeHandler;
+        transaction.popControllerChangeHandler = popControllerChangeHandler;
+        return transaction;
+    }
+
     void ensureValidIndex(@Nullable TransactionIndexer indexer) {
         if (indexer == null) {
             throw new RuntimeException();
@@ -134,6 +175,7 @@ public class RouterTransaction {
         }
 
         bundle.putString(KEY_TAG, tag);
+        bundle.putString(KEY_CACHE_KEY, cacheKey);
         bundle.putInt(KEY_INDEX, transactionIndex);
         bundle.putBoolean(KEY_ATTACHED_TO_ROUTER, attachedToRouter);
 
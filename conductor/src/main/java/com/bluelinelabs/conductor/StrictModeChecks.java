@@ -0,0 +1,36 @@
+package com.bluelinelabs.conductor;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times developer callbacks against the {@link StrictModePolicy} set through
+ * {@link Conductor#setStrictModePolicy(StrictModePolicy)}. Without a policy, no clock is read.
+ */
+final class StrictModeChecks {
+
+    static final long NOT_TIMED = Long.MIN_VALUE;
+
+    @Nullable static StrictModePolicy policy;
+
+    private StrictModeChecks() {}
+
+    static long start() {
+        return policy != null ? System.nanoTime() : NOT_TIMED;
+    }
+
+    static void check(long startTime, @NonNull Object target, @NonNull String callbackName) {
+        final StrictModePolicy policy = StrictModeChecks.policy;
+        if (policy == null || startTime == NOT_TIMED) {
+            return;
+        }
+
+        final long duration = System.nanoTime() - startTime;
+        if (duration > policy.budgetNanos) {
+            policy.penalize(new StrictModePolicy.SlowCallbackViolation(target.getClass(), callbackName, TimeUnit.NANOSECONDS.toMillis(duration), policy.budgetMillis));
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.bluelinelabs.conductor;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes which developer callbacks are too slow and what happens when one is caught. Callbacks timed include
+ * {@link Controller#onCreateView}, {@link Controller#onAttach}, {@link Controller#onDetach},
+ * {@link Controller#onSaveInstanceState}, {@link Controller#onRestoreViewState}, {@link Controller#handleBack},
+ * {@link Controller#onActivityResult} and the synchronous part of {@link ControllerChangeHandler#performChange}.
+ * Enable one through {@link Conductor#setStrictModePolicy(StrictModePolicy)}, typically only in debug or QA builds.
+ */
+public final class StrictModePolicy {
+
+    private static final String TAG = "ConductorStrictMode";
+    private static final long DEFAULT_BUDGET_MILLIS = 16;
+
+    final long budgetMillis;
+    final long budgetNanos;
+    private final boolean penaltyLog;
+    private final boolean penaltyThrow;
+    @Nullable private final ViolationListener penaltyListener;
+
+    StrictModePolicy(@NonNull Builder builder) {
+        budgetMillis = builder.budgetMillis;
+        budgetNanos = TimeUnit.MILLISECONDS.toNanos(builder.budgetMillis);
+        penaltyLog = builder.penaltyLog;
+        penaltyThrow = builder.penaltyThrow;
+        penaltyListener = builder.penaltyListener;
+    }
+
+    void penalize(@NonNull SlowCallbackViolation violation) {
+        if (penaltyListener != null) {
+            penaltyListener.onViolation(violation);
+        }
+
+        if (penaltyLog) {
+            Log.w(TAG, violation.getMessage(), violation);
+        }
+
+        if (penaltyThrow) {
+            throw violation;
+        }
+    }
+
+    /**
+     * A listener interface for being notified of slow callbacks.
+     */
+    public interface ViolationListener {
+        /**
+         * Called on the main thread right after a callback has exceeded its budget.
+         *
+         * @param violation Describes the callback and how long it took
+         */
+        void onViolation(@NonNull SlowCallbackViolation violation);
+    }
+
+    /**
+     * Reported when a single developer callback took longer than the budget set by a {@link StrictModePolicy}.
+     */
+    public static final class SlowCallbackViolation extends RuntimeException {
+
+        private final Class<?> targetClass;
+        private final String callbackName;
+        private final long durationMillis;
+        private final long budgetMillis;
+
+        SlowCallbackViolation(@NonNull Class<?> targetClass, @NonNull String callbackName, long durationMillis, long budgetMillis) {
+            super(targetClass.getName() + "." + callbackName + " took " + durationMillis + "ms on the main thread, over its budget of " + budgetMillis + "ms");
+            this.targetClass = targetClass;
+            this.callbackName = callbackName;
+            this.durationMillis = durationMillis;
+            this.budgetMillis = budgetMillis;
+        }
+
+        /**
+         * Returns the class of the offending {@link Controller}, or of the {@link ControllerChangeHandler} for
+         * {@code performChange}.
+         */
+        @NonNull
+        public Class<?> getTargetClass() {
+            return targetClass;
+        }
+
+        @NonNull
+        public String getCallbackName() {
+            return callbackName;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public long getBudgetMillis() {
+            return budgetMillis;
+        }
+
+    }
+
+    public static final class Builder {
+
+        long budgetMillis = DEFAULT_BUDGET_MILLIS;
+        boolean penaltyLog;
+        boolean penaltyThrow;
+        ViolationListener penaltyListener;
+
+        /**
+         * Sets the longest any single callback may take, in milliseconds. Defaults to 16, a single frame at 60fps.
+         */
+        @NonNull
+        public Builder callbackBudget(long budgetMillis) {
+            if (budgetMillis < 0) {
+                throw new IllegalArgumentException("The callback budget can't be negative.");
+            }
+            this.budgetMillis = budgetMillis;
+            return this;
+        }
+
+        /**
+         * Logs each violation, along with a stack trace, as a warning.
+         */
+        @NonNull
+        public Builder penaltyLog() {
+            penaltyLog = true;
+            return this;
+        }
+
+        /**
+         * Throws each violation from the offending call, after any other penalties have been applied.
+         */
+        @NonNull
+        public Builder penaltyThrow() {
+            penaltyThrow = true;
+            return this;
+        }
+
+        /**
+         * Passes each violation to the given listener.
+         */
+        @NonNull
+        public Builder penaltyListener(@NonNull ViolationListener listener) {
+            penaltyListener = listener;
+            return this;
+        }
+
+        @NonNull
+        public StrictModePolicy build() {
+            return new StrictModePolicy(this);
+        }
+
+    }
+
+}
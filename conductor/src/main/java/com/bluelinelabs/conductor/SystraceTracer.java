@@ -0,0 +1,33 @@
+package com.bluelinelabs.conductor;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Trace;
+import android.support.annotation.NonNull;
+
+/**
+ * A {@link ConductorTracer} that writes its sections to {@link Trace}, making them show up in systrace and Perfetto
+ * captures. Sections are silently dropped on devices running versions of Android older than Jelly Bean MR2.
+ */
+public class SystraceTracer implements ConductorTracer {
+
+    private static final int MAX_SECTION_NAME_LENGTH = 127;
+
+    @Override @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    public void beginSection(@NonNull String sectionName) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            if (sectionName.length() > MAX_SECTION_NAME_LENGTH) {
+                sectionName = sectionName.substring(0, MAX_SECTION_NAME_LENGTH);
+            }
+            Trace.beginSection(sectionName);
+        }
+    }
+
+    @Override @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    public void endSection() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+    }
+
+}
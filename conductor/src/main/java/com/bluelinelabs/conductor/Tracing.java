@@ -0,0 +1,40 @@
+package com.bluelinelabs.conductor;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Forwards sections to the {@link ConductorTracer} set through {@link Conductor#setTracer(ConductorTracer)}. When no
+ * tracer is set, each call is a single null check and section names are never built.
+ */
+final class Tracing {
+
+    @Nullable static ConductorTracer tracer;
+
+    private Tracing() {}
+
+    /**
+     * Returns whether a section was begun, in which case the caller must balance it with {@link #endSection()}.
+     */
+    static boolean beginSection(@NonNull String phase, @NonNull Object target) {
+        final ConductorTracer tracer = Tracing.tracer;
+        if (tracer == null) {
+            return false;
+        }
+
+        Class<?> targetClass = target.getClass();
+        while (targetClass.isAnonymousClass()) {
+            targetClass = targetClass.getSuperclass();
+        }
+        tracer.beginSection(phase + " " + targetClass.getSimpleName());
+        return true;
+    }
+
+    static void endSection() {
+        final ConductorTracer tracer = Tracing.tracer;
+        if (tracer != null) {
+            tracer.endSection();
+        }
+    }
+
+}
@@ -0,0 +1,220 @@
+package com.bluelinelabs.conductor;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Navigation latency measured by a {@link Router}, broken down by the class of the Controller being changed to and
+ * the class of the {@link ControllerChangeHandler} used. All durations are measured from the moment the change was
+ * requested from the Router, and are reported in nanoseconds. Aggregates only cover the most recent
+ * {@value #WINDOW_SIZE} samples for each pair of classes.
+ *
+ * @see Router#addTransitionMetricsListener(TransitionMetricsListener)
+ */
+public final class TransitionMetrics {
+
+    static final int WINDOW_SIZE = 100;
+
+    /**
+     * The points of a change that are measured.
+     */
+    public enum Stage {
+        /** The change handler has been picked and change listeners are being notified that the change started. */
+        CHANGE_STARTED,
+        /** The first frame has been drawn after the change started. */
+        FIRST_FRAME,
+        /** The change handler has reported that the change completed. */
+        CHANGE_COMPLETED
+    }
+
+    private final Map<Class<? extends Controller>, Map<Class<? extends ControllerChangeHandler>, Aggregate>> aggregates = new LinkedHashMap<>();
+
+    TransitionMetrics() { }
+
+    /**
+     * Returns the aggregate for the given pair of classes, or an empty one if no changes between them have been
+     * measured yet.
+     */
+    @NonNull
+    public Aggregate getAggregate(@NonNull Class<? extends Controller> controllerClass, @NonNull Class<? extends ControllerChangeHandler> changeHandlerClass) {
+        Map<Class<? extends ControllerChangeHandler>, Aggregate> controllerAggregates = aggregates.get(controllerClass);
+        Aggregate aggregate = controllerAggregates != null ? controllerAggregates.get(changeHandlerClass) : null;
+        return aggregate != null ? aggregate : new Aggregate(controllerClass, changeHandlerClass);
+    }
+
+    /**
+     * Returns the aggregates for all pairs of classes that have been measured so far.
+     */
+    @NonNull
+    public List<Aggregate> getAggregates() {
+        List<Aggregate> list = new ArrayList<>();
+        for (Map<Class<? extends ControllerChangeHandler>, Aggregate> controllerAggregates : aggregates.values()) {
+            list.addAll(controllerAggregates.values());
+        }
+        return list;
+    }
+
+    void add(@NonNull Sample sample) {
+        Map<Class<? extends ControllerChangeHandler>, Aggregate> controllerAggregates = aggregates.get(sample.controllerClass);
+        if (controllerAggregates == null) {
+            controllerAggregates = new LinkedHashMap<>();
+            aggregates.put(sample.controllerClass, controllerAggregates);
+        }
+
+        Aggregate aggregate = controllerAggregates.get(sample.changeHandlerClass);
+        if (aggregate == null) {
+            aggregate = new Aggregate(sample.controllerClass, sample.changeHandlerClass);
+            controllerAggregates.put(sample.changeHandlerClass, aggregate);
+        }
+
+        aggregate.add(sample);
+    }
+
+    void clear() {
+        aggregates.clear();
+    }
+
+    /**
+     * The timings of a single change.
+     */
+    public static final class Sample {
+
+        final Class<? extends Controller> controllerClass;
+        final Class<? extends ControllerChangeHandler> changeHandlerClass;
+        final boolean isPush;
+        final long[] durations;
+
+        Sample(@NonNull Class<? extends Controller> controllerClass, @NonNull Class<? extends ControllerChangeHandler> changeHandlerClass, boolean isPush, @NonNull long[] durations) {
+            this.controllerClass = controllerClass;
+            this.changeHandlerClass = changeHandlerClass;
+            this.isPush = isPush;
+            this.durations = durations;
+        }
+
+        /**
+         * Returns the class of the Controller being changed to, or of the Controller being removed if there was none.
+         */
+        @NonNull
+        public Class<? extends Controller> getControllerClass() {
+            return controllerClass;
+        }
+
+        @NonNull
+        public Class<? extends ControllerChangeHandler> getChangeHandlerClass() {
+            return changeHandlerClass;
+        }
+
+        public boolean isPush() {
+            return isPush;
+        }
+
+        /**
+         * Returns the time from the change being requested until the given stage was reached, or -1 if it was never
+         * observed. A first frame is not observed if another change starts before the container is drawn.
+         */
+        public long getDurationNanos(@NonNull Stage stage) {
+            return durations[stage.ordinal()];
+        }
+
+    }
+
+    /**
+     * Percentiles over the most recent changes between a Controller class and a change handler class.
+     */
+    public static final class Aggregate {
+
+        final Class<? extends Controller> controllerClass;
+        final Class<? extends ControllerChangeHandler> changeHandlerClass;
+        private final long[][] windows = new long[Stage.values().length][WINDOW_SIZE];
+        private final int[] counts = new int[Stage.values().length];
+        private int sampleCount;
+
+        Aggregate(@NonNull Class<? extends Controller> controllerClass, @NonNull Class<? extends ControllerChangeHandler> changeHandlerClass) {
+            this.controllerClass = controllerClass;
+            this.changeHandlerClass = changeHandlerClass;
+        }
+
+        @NonNull
+        public Class<? extends Controller> getControllerClass() {
+            return controllerClass;
+        }
+
+        @NonNull
+        public Class<? extends ControllerChangeHandler> getChangeHandlerClass() {
+            return changeHandlerClass;
+        }
+
+        /**
+         * Returns the total number of changes measured, including those that have dropped out of the window.
+         */
+        public int getSampleCount() {
+            return sampleCount;
+        }
+
+        /**
+         * Returns the median duration for the given stage, or -1 if it has not been observed.
+         */
+        public long getP50Nanos(@NonNull Stage stage) {
+            return getPercentile(stage, 0.5);
+        }
+
+        /**
+         * Returns the 95th percentile duration for the given stage, or -1 if it has not been observed.
+         */
+        public long getP95Nanos(@NonNull Stage stage) {
+            return getPercentile(stage, 0.95);
+        }
+
+        /**
+         * Returns the longest duration within the window for the given stage, or -1 if it has not been observed.
+         */
+        public long getMaxNanos(@NonNull Stage stage) {
+            return getPercentile(stage, 1);
+        }
+
+        void add(@NonNull Sample sample) {
+            sampleCount++;
+
+            for (Stage stage : Stage.values()) {
+                long duration = sample.getDurationNanos(stage);
+                if (duration >= 0) {
+                    final int index = stage.ordinal();
+                    windows[index][counts[index] % WINDOW_SIZE] = duration;
+                    counts[index]++;
+                }
+            }
+        }
+
+        private long getPercentile(@NonNull Stage stage, double percentile) {
+            final int index = stage.ordinal();
+            final int size = Math.min(counts[index], WINDOW_SIZE);
+            if (size == 0) {
+                return -1;
+            }
+
+            long[] sorted = Arrays.copyOf(windows[index], size);
+            Arrays.sort(sorted);
+            return sorted[Math.max((int)Math.ceil(percentile * size) - 1, 0)];
+        }
+
+    }
+
+    /**
+     * A listener interface for being notified each time a Router has measured a change.
+     */
+    public interface TransitionMetricsListener {
+        /**
+         * Called once all stages of a change have either been observed or can no longer be.
+         *
+         * @param sample  The timings of the change that was just measured
+         * @param metrics The Router's metrics, already including this sample
+         */
+        void onTransitionMeasured(@NonNull Sample sample, @NonNull TransitionMetrics metrics);
+    }
+
+}
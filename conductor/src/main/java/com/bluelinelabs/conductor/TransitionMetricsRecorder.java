@@ -0,0 +1,168 @@
+package com.bluelinelabs.conductor;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver.OnDrawListener;
+
+import com.bluelinelabs.conductor.ControllerChangeHandler.ControllerChangeListener;
+import com.bluelinelabs.conductor.TransitionMetrics.Sample;
+import com.bluelinelabs.conductor.TransitionMetrics.Stage;
+import com.bluelinelabs.conductor.TransitionMetrics.TransitionMetricsListener;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the changes of a single {@link Router}. Only installed while the Router has at least one
+ * {@link TransitionMetricsListener}, so Routers that nobody measures don't pay for any of this.
+ */
+class TransitionMetricsRecorder implements ControllerChangeListener {
+
+    private final TransitionMetrics metrics = new TransitionMetrics();
+    private final List<TransitionMetricsListener> listeners = new ArrayList<>();
+    private final Map<Controller, Long> requestTimes = new IdentityHashMap<>();
+    private final Map<Controller, PendingSample> pendingSamples = new IdentityHashMap<>();
+
+    void addListener(@NonNull TransitionMetricsListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    void removeListener(@NonNull TransitionMetricsListener listener) {
+        listeners.remove(listener);
+    }
+
+    boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    void onChangeRequested(@Nullable Controller to, @Nullable Controller from) {
+        Controller key = to != null ? to : from;
+        if (key != null) {
+            requestTimes.put(key, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void onChangeStarted(@Nullable Controller to, @Nullable Controller from, boolean isPush, @NonNull ViewGroup container, @NonNull ControllerChangeHandler handler) {
+        final long now = System.nanoTime();
+
+        // Anything still waiting on a frame at this point would be measuring this change's frame instead.
+        for (PendingSample pendingSample : new ArrayList<>(pendingSamples.values())) {
+            pendingSample.finish(false);
+        }
+
+        Controller key = to != null ? to : from;
+        if (key == null) {
+            return;
+        }
+
+        Long requestTime = requestTimes.remove(key);
+        PendingSample pendingSample = new PendingSample(key, handler.getClass(), isPush, container, requestTime != null ? requestTime : now);
+        pendingSample.durations[Stage.CHANGE_STARTED.ordinal()] = now - pendingSample.requestTime;
+        pendingSamples.put(key, pendingSample);
+        pendingSample.listenForDraw();
+    }
+
+    @Override
+    public void onChangeCompleted(@Nullable Controller to, @Nullable Controller from, boolean isPush, @NonNull ViewGroup container, @NonNull ControllerChangeHandler handler) {
+        PendingSample pendingSample = pendingSamples.get(to != null ? to : from);
+        if (pendingSample != null) {
+            pendingSample.durations[Stage.CHANGE_COMPLETED.ordinal()] = System.nanoTime() - pendingSample.requestTime;
+            if (pendingSample.durations[Stage.FIRST_FRAME.ordinal()] >= 0) {
+                pendingSample.finish(false);
+            }
+        }
+    }
+
+    void clear() {
+        for (PendingSample pendingSample : new ArrayList<>(pendingSamples.values())) {
+            pendingSample.stopListeningForDraw(false);
+        }
+        pendingSamples.clear();
+        requestTimes.clear();
+        metrics.clear();
+    }
+
+    private void report(@NonNull Sample sample) {
+        metrics.add(sample);
+
+        List<TransitionMetricsListener> listeners = new ArrayList<>(this.listeners);
+        for (TransitionMetricsListener listener : listeners) {
+            listener.onTransitionMeasured(sample, metrics);
+        }
+    }
+
+    private class PendingSample implements OnDrawListener {
+
+        final Controller key;
+        final Class<? extends ControllerChangeHandler> changeHandlerClass;
+        final boolean isPush;
+        final ViewGroup container;
+        final long requestTime;
+        final long[] durations = new long[Stage.values().length];
+        boolean listeningForDraw;
+
+        PendingSample(@NonNull Controller key, @NonNull Class<? extends ControllerChangeHandler> changeHandlerClass, boolean isPush, @NonNull ViewGroup container, long requestTime) {
+            this.key = key;
+            this.changeHandlerClass = changeHandlerClass;
+            this.isPush = isPush;
+            this.container = container;
+            this.requestTime = requestTime;
+            for (int i = 0; i < durations.length; i++) {
+                durations[i] = -1;
+            }
+        }
+
+        void listenForDraw() {
+            container.getViewTreeObserver().addOnDrawListener(this);
+            listeningForDraw = true;
+        }
+
+        void stopListeningForDraw(boolean fromDraw) {
+            if (!listeningForDraw) {
+                return;
+            }
+            listeningForDraw = false;
+
+            if (fromDraw) {
+                // Draw listeners can't be removed while they're being dispatched to.
+                container.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        container.getViewTreeObserver().removeOnDrawListener(PendingSample.this);
+                    }
+                });
+            } else {
+                container.getViewTreeObserver().removeOnDrawListener(this);
+            }
+        }
+
+        @Override
+        public void onDraw() {
+            if (listeningForDraw) {
+                durations[Stage.FIRST_FRAME.ordinal()] = System.nanoTime() - requestTime;
+                if (durations[Stage.CHANGE_COMPLETED.ordinal()] >= 0) {
+                    finish(true);
+                } else {
+                    stopListeningForDraw(true);
+                }
+            }
+        }
+
+        void finish(boolean fromDraw) {
+            stopListeningForDraw(fromDraw);
+
+            if (pendingSamples.get(key) == this) {
+                pendingSamples.remove(key);
+                report(new Sample(key.getClass(), changeHandlerClass, isPush, durations));
+            }
+        }
+
+    }
+
+}
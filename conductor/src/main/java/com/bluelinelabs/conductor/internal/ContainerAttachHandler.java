@@ -0,0 +1,272 @@
+package com.bluelinelabs.conductor.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.View;
+import android.view.View.OnAttachStateChangeListener;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+import android.view.ViewTreeObserver.OnPreDrawListener;
+
+import com.bluelinelabs.conductor.R;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks window attachment for all Controller views hosted in a single container. A single instance is shared by
+ * every Router using the container and is stored as a tag on the container itself. Nothing is registered on the
+ * Controller views: a view is attached while it's a child of the container and the container is attached.
+ * <p>
+ * A container hosted by a Controller is attached and detached along with its host, which passes this down
+ * explicitly. Any other container is followed through a single attach listener of its own. As a ViewGroup is
+ * reported attached before its children are, views are only reported once the traversal that attached the
+ * container has completed.
+ * <p>
+ * {@link com.bluelinelabs.conductor.ChangeHandlerFrameLayout} reports views as they're added and removed. For any
+ * other container, views are checked when a change starts and completes, and before every frame drawn while a
+ * change is running.
+ */
+public class ContainerAttachHandler implements OnAttachStateChangeListener, OnPreDrawListener {
+
+    private final ViewGroup container;
+    private final Map<View, ViewAttachHandler> viewHandlers = new HashMap<>();
+
+    private boolean hostControlled;
+    private boolean listeningForWindowAttach;
+    private boolean containerAttached;
+    private boolean attachDispatchPending;
+    private int changesInProgress;
+    private ViewTreeObserver preDrawObserver;
+
+    private final Runnable dispatchAttachRunnable = new Runnable() {
+        @Override
+        public void run() {
+            dispatchPendingAttach();
+        }
+    };
+
+    @NonNull
+    public static ContainerAttachHandler forContainer(@NonNull ViewGroup container) {
+        ContainerAttachHandler handler = find(container);
+        if (handler == null) {
+            handler = new ContainerAttachHandler(container);
+            container.setTag(R.id.conductor_container_attach_handler, handler);
+        }
+        return handler;
+    }
+
+    @Nullable
+    public static ContainerAttachHandler find(@NonNull ViewGroup container) {
+        Object handler = container.getTag(R.id.conductor_container_attach_handler);
+        return handler instanceof ContainerAttachHandler ? (ContainerAttachHandler)handler : null;
+    }
+
+    private ContainerAttachHandler(@NonNull ViewGroup container) {
+        this.container = container;
+    }
+
+    void register(@NonNull View view, @NonNull ViewAttachHandler viewAttachHandler) {
+        viewHandlers.put(view, viewAttachHandler);
+
+        if (!hostControlled && !listeningForWindowAttach) {
+            listeningForWindowAttach = true;
+            containerAttached = container.getWindowToken() != null;
+            container.addOnAttachStateChangeListener(this);
+        }
+
+        if (isViewAttached(view)) {
+            viewAttachHandler.onViewAttached();
+        }
+    }
+
+    void unregister(@NonNull View view) {
+        viewHandlers.remove(view);
+
+        if (viewHandlers.isEmpty() && listeningForWindowAttach) {
+            listeningForWindowAttach = false;
+            container.removeOnAttachStateChangeListener(this);
+            cancelPendingAttach();
+        }
+    }
+
+    /**
+     * Hands tracking of whether the container is attached over to the Controller hosting it, which has to call this
+     * whenever it's attached or detached from then on.
+     */
+    public void setHostAttached(boolean attached) {
+        if (!hostControlled) {
+            hostControlled = true;
+            if (listeningForWindowAttach) {
+                listeningForWindowAttach = false;
+                container.removeOnAttachStateChangeListener(this);
+            }
+            cancelPendingAttach();
+            containerAttached = !attached;
+        }
+
+        setContainerAttached(attached);
+    }
+
+    public void onViewAdded(@NonNull View child) {
+        ViewAttachHandler handler = viewHandlers.get(child);
+        if (handler != null && isViewAttached(child)) {
+            handler.onViewAttached();
+        }
+    }
+
+    public void onViewRemoved(@NonNull View child) {
+        ViewAttachHandler handler = viewHandlers.get(child);
+        if (handler != null) {
+            handler.onViewDetached();
+        }
+    }
+
+    public void onChangeStarted() {
+        changesInProgress++;
+        updatePreDrawListener();
+    }
+
+    public void onChangeCompleted() {
+        if (changesInProgress > 0) {
+            changesInProgress--;
+            updatePreDrawListener();
+        }
+        checkViews();
+    }
+
+    /**
+     * Reports any view that has been added to or removed from the container since it was last checked. Views that
+     * were added are reported first, which is the order change handlers normally add and remove them in.
+     */
+    public void checkViews() {
+        if (viewHandlers.isEmpty()) {
+            return;
+        }
+
+        for (View view : getRegisteredChildren(false)) {
+            ViewAttachHandler handler = viewHandlers.get(view);
+            if (handler != null && isViewAttached(view)) {
+                handler.onViewAttached();
+            }
+        }
+
+        for (View view : new ArrayList<>(viewHandlers.keySet())) {
+            ViewAttachHandler handler = viewHandlers.get(view);
+            if (handler != null && !isViewAttached(view)) {
+                handler.onViewDetached();
+            }
+        }
+    }
+
+    @Override
+    public void onViewAttachedToWindow(View v) {
+        if (containerAttached) {
+            return;
+        }
+
+        containerAttached = true;
+        attachDispatchPending = true;
+
+        // Whichever comes first: the pre-draw pass of the traversal that attached the container, or the next message
+        // on the main thread for cases where no traversal is coming.
+        updatePreDrawListener();
+        container.post(dispatchAttachRunnable);
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(View v) {
+        cancelPendingAttach();
+        setContainerAttached(false);
+    }
+
+    @Override
+    public boolean onPreDraw() {
+        if (attachDispatchPending) {
+            dispatchPendingAttach();
+        } else {
+            checkViews();
+        }
+        return true;
+    }
+
+    private void setContainerAttached(boolean attached) {
+        if (containerAttached == attached) {
+            return;
+        }
+
+        containerAttached = attached;
+
+        // Views are attached from the bottom of the container up and detached from the top down, so a batch is always
+        // delivered in the same order.
+        for (View view : getRegisteredChildren(!attached)) {
+            ViewAttachHandler handler = viewHandlers.get(view);
+            if (handler == null) {
+                continue;
+            }
+
+            if (attached) {
+                if (isViewAttached(view)) {
+                    handler.onViewAttached();
+                }
+            } else {
+                handler.onViewDetached();
+            }
+        }
+    }
+
+    private void dispatchPendingAttach() {
+        if (!attachDispatchPending) {
+            return;
+        }
+
+        cancelPendingAttach();
+        containerAttached = false;
+        setContainerAttached(true);
+    }
+
+    private boolean isViewAttached(@NonNull View view) {
+        return containerAttached && !attachDispatchPending && view.getParent() == container;
+    }
+
+    // Callbacks may push or pop, so the children are collected before any of them are reported.
+    @NonNull
+    private List<View> getRegisteredChildren(boolean topDown) {
+        final int childCount = container.getChildCount();
+        List<View> children = new ArrayList<>(childCount);
+        for (int i = 0; i < childCount; i++) {
+            View child = container.getChildAt(topDown ? childCount - 1 - i : i);
+            if (viewHandlers.containsKey(child)) {
+                children.add(child);
+            }
+        }
+        return children;
+    }
+
+    private void cancelPendingAttach() {
+        if (attachDispatchPending) {
+            attachDispatchPending = false;
+            container.removeCallbacks(dispatchAttachRunnable);
+            updatePreDrawListener();
+        }
+    }
+
+    private void updatePreDrawListener() {
+        final boolean needsPreDraw = attachDispatchPending || changesInProgress > 0;
+
+        if (needsPreDraw && preDrawObserver == null) {
+            preDrawObserver = container.getViewTreeObserver();
+            preDrawObserver.addOnPreDrawListener(this);
+        } else if (!needsPreDraw && preDrawObserver != null) {
+            if (preDrawObserver.isAlive()) {
+                preDrawObserver.removeOnPreDrawListener(this);
+            } else {
+                container.getViewTreeObserver().removeOnPreDrawListener(this);
+            }
+            preDrawObserver = null;
+        }
+    }
+
+}
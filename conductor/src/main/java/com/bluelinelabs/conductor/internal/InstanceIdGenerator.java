@@ -0,0 +1,26 @@
+package com.bluelinelabs.conductor.internal;
+
+import android.support.annotation.NonNull;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates Controller instance IDs. Each ID is a counter prefixed with a salt made up of the time this class was
+ * loaded and a random number, which keeps IDs generated in this process from colliding with any that were
+ * restored from a previous one. IDs restored from saved state are never parsed, so older UUID-based IDs continue
+ * to work alongside these.
+ */
+public class InstanceIdGenerator {
+
+    private static final int RADIX = Character.MAX_RADIX;
+
+    private static final String SALT = Long.toString(System.currentTimeMillis(), RADIX) + Integer.toString(new Random().nextInt() & Integer.MAX_VALUE, RADIX) + ":";
+    private static final AtomicLong counter = new AtomicLong();
+
+    @NonNull
+    public static String nextId() {
+        return SALT + Long.toString(counter.incrementAndGet(), RADIX);
+    }
+
+}
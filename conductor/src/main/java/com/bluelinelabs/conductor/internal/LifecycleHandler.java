@@ -4,6 +4,7 @@ import android.annotation.TargetApi;
 import android.app.Activity;
 import android.app.Application.ActivityLifecycleCallbacks;
 import android.app.Fragment;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentSender;
@@ -22,6 +23,8 @@ import android.view.ViewGroup;
 import com.bluelinelabs.conductor.ActivityHostedRouter;
 import com.bluelinelabs.conductor.Router;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -54,7 +57,7 @@ public class LifecycleHandler extends Fragment implements ActivityLifecycleCallb
     }
 
     @Nullable
-    private static LifecycleHandler findInActivity(@NonNull Activity activity) {
+    public static LifecycleHandler findInActivity(@NonNull Activity activity) {
         LifecycleHandler lifecycleHandler = activeLifecycleHandlers.get(activity);
         if (lifecycleHandler == null) {
             lifecycleHandler = (LifecycleHandler)activity.getFragmentManager().findFragmentByTag(FRAGMENT_TAG);
@@ -102,6 +105,15 @@ public class LifecycleHandler extends Fragment implements ActivityLifecycleCallb
         return new ArrayList<Router>(routerMap.values());
     }
 
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+
+        for (Router router : getRouters()) {
+            router.dump(prefix + "  ", writer);
+        }
+    }
+
     @Nullable
     public Activity getLifecycleActivity() {
         return activity;
@@ -276,6 +288,30 @@ public class LifecycleHandler extends Fragment implements ActivityLifecycleCallb
         return super.onOptionsItemSelected(item);
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+
+        if (TrimMemoryTier.fromLevel(level) >= TrimMemoryTier.UI_HIDDEN) {
+            SnapshotCache.clear();
+        }
+
+        for (Router router : routerMap.values()) {
+            router.onTrimMemory(level);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+
+        SnapshotCache.clear();
+
+        for (Router router : routerMap.values()) {
+            router.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        }
+    }
+
     public void registerForActivityResult(@NonNull String instanceId, int requestCode) {
         activityRequestMap.put(requestCode, instanceId);
     }
@@ -0,0 +1,81 @@
+package com.bluelinelabs.conductor.internal;
+
+import android.support.annotation.NonNull;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.view.ViewTreeObserver.OnDrawListener;
+
+/**
+ * Keeps {@link SnapshotCache} up to date with an attached Controller view, so that a placeholder is ready by the time
+ * the view is released. A snapshot is only drawn once the window has gone {@link #SETTLE_DELAY_MS} without drawing a
+ * frame, which keeps it away from changes, animations and scrolling. If the window has drawn since the last snapshot
+ * when tracking stops, that snapshot is discarded rather than drawn on the spot.
+ */
+public class PlaceholderSnapshotter implements OnDrawListener, Runnable {
+
+    public static final long SETTLE_DELAY_MS = 500;
+
+    private final String key;
+    private View view;
+    private View container;
+    private ViewTreeObserver observer;
+    private boolean snapshotStale;
+
+    public PlaceholderSnapshotter(@NonNull String key) {
+        this.key = key;
+    }
+
+    public void start(@NonNull View view, @NonNull View container) {
+        if (this.view != null) {
+            return;
+        }
+
+        this.view = view;
+        this.container = container;
+        observer = view.getViewTreeObserver();
+        observer.addOnDrawListener(this);
+        scheduleSnapshot();
+    }
+
+    public void stop() {
+        if (view == null) {
+            return;
+        }
+
+        view.removeCallbacks(this);
+        if (observer.isAlive()) {
+            observer.removeOnDrawListener(this);
+        } else {
+            view.getViewTreeObserver().removeOnDrawListener(this);
+        }
+
+        if (snapshotStale) {
+            snapshotStale = false;
+            SnapshotCache.remove(key);
+        }
+
+        observer = null;
+        view = null;
+        container = null;
+    }
+
+    @Override
+    public void onDraw() {
+        scheduleSnapshot();
+    }
+
+    @Override
+    public void run() {
+        if (view != null) {
+            snapshotStale = false;
+            SnapshotCache.put(key, view, container);
+        }
+    }
+
+    private void scheduleSnapshot() {
+        snapshotStale = true;
+        view.removeCallbacks(this);
+        view.postDelayed(this, SETTLE_DELAY_MS);
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.bluelinelabs.conductor.internal;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.LruCache;
+import android.view.View;
+
+/**
+ * Process-wide cache of low resolution snapshots of Controller views, keyed by instance id. Snapshots are taken while
+ * the views are still attached and used as placeholders once they've been released. The size limit is shared by all
+ * Routers so that heavy use by one screen can't grow memory usage without bound.
+ */
+public class SnapshotCache {
+
+    public static final int DEFAULT_MAX_SIZE_BYTES = 4 * 1024 * 1024;
+
+    private static final float SNAPSHOT_SCALE = 0.5f;
+
+    public static class Snapshot {
+        @NonNull public final Bitmap bitmap;
+        public final int width;
+        public final int height;
+        final int containerWidth;
+        final int containerHeight;
+
+        Snapshot(@NonNull Bitmap bitmap, int width, int height, int containerWidth, int containerHeight) {
+            this.bitmap = bitmap;
+            this.width = width;
+            this.height = height;
+            this.containerWidth = containerWidth;
+            this.containerHeight = containerHeight;
+        }
+    }
+
+    private static LruCache<String, Snapshot> cache = newCache(DEFAULT_MAX_SIZE_BYTES);
+
+    public static void setMaxSize(int maxSizeBytes) {
+        clear();
+        cache = newCache(maxSizeBytes);
+    }
+
+    public static void put(@NonNull String key, @NonNull View view, @NonNull View container) {
+        if (cache == null) {
+            return;
+        }
+
+        Bitmap bitmap = ViewSnapshotUtils.snapshot(view, SNAPSHOT_SCALE);
+        if (bitmap != null) {
+            cache.put(key, new Snapshot(bitmap, view.getWidth(), view.getHeight(), container.getWidth(), container.getHeight()));
+        } else {
+            // Whatever was there before no longer matches the view.
+            cache.remove(key);
+        }
+    }
+
+    /**
+     * Removes and returns the snapshot for the given key, as long as it was taken in a container of the same size.
+     */
+    @Nullable
+    public static Snapshot take(@NonNull String key, @NonNull View container) {
+        Snapshot snapshot = cache != null ? cache.remove(key) : null;
+        if (snapshot != null && snapshot.containerWidth == container.getWidth() && snapshot.containerHeight == container.getHeight()) {
+            return snapshot;
+        }
+        return null;
+    }
+
+    public static void remove(@NonNull String key) {
+        if (cache != null) {
+            cache.remove(key);
+        }
+    }
+
+    public static void clear() {
+        if (cache != null) {
+            cache.evictAll();
+        }
+    }
+
+    @Nullable
+    private static LruCache<String, Snapshot> newCache(int maxSizeBytes) {
+        if (maxSizeBytes <= 0) {
+            return null;
+        }
+
+        return new LruCache<String, Snapshot>(maxSizeBytes) {
+            @Override
+            protected int sizeOf(String key, Snapshot snapshot) {
+                return snapshot.bitmap.getByteCount();
+            }
+        };
+    }
+
+}
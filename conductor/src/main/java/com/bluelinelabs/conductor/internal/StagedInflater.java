@@ -0,0 +1,96 @@
+package com.bluelinelabs.conductor.internal;
+
+import android.support.annotation.NonNull;
+import android.view.Choreographer;
+import android.view.Choreographer.FrameCallback;
+import android.view.View;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+public class StagedInflater implements FrameCallback {
+
+    public static final long DEFAULT_FRAME_BUDGET_MS = 8;
+
+    public interface Stage {
+        void inflate(@NonNull View view);
+    }
+
+    public interface StagedInflationListener {
+        void onStagesCompleted(@NonNull View view);
+    }
+
+    private final ArrayDeque<Stage> stages = new ArrayDeque<>();
+    private final StagedInflationListener listener;
+    private long frameBudgetNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_FRAME_BUDGET_MS);
+    private View view;
+    private boolean frameCallbackPosted;
+
+    public StagedInflater(@NonNull StagedInflationListener listener) {
+        this.listener = listener;
+    }
+
+    public void setFrameBudget(long budgetMs) {
+        frameBudgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMs);
+    }
+
+    public void addStage(@NonNull Stage stage) {
+        stages.add(stage);
+        postFrameCallbackIfNeeded();
+    }
+
+    public boolean hasPendingStages() {
+        return !stages.isEmpty();
+    }
+
+    public void start(@NonNull View view) {
+        this.view = view;
+        postFrameCallbackIfNeeded();
+    }
+
+    public void pause() {
+        view = null;
+        if (frameCallbackPosted) {
+            frameCallbackPosted = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    public void cancel() {
+        pause();
+        stages.clear();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameCallbackPosted = false;
+
+        final View view = this.view;
+        if (view == null) {
+            return;
+        }
+
+        // Always make progress by running at least one stage, even if this frame is already over budget.
+        do {
+            stages.poll().inflate(view);
+        } while (!stages.isEmpty() && this.view == view && System.nanoTime() - frameTimeNanos < frameBudgetNanos);
+
+        if (this.view != view) {
+            return;
+        }
+
+        if (stages.isEmpty()) {
+            listener.onStagesCompleted(view);
+        } else {
+            postFrameCallbackIfNeeded();
+        }
+    }
+
+    private void postFrameCallbackIfNeeded() {
+        if (view != null && !frameCallbackPosted && !stages.isEmpty()) {
+            frameCallbackPosted = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.bluelinelabs.conductor.internal;
+
+import android.content.ComponentCallbacks2;
+
+/**
+ * Maps {@link ComponentCallbacks2} trim levels onto the tiers Conductor releases memory at. The foreground
+ * (RUNNING_*) and background levels are interleaved numerically with {@link ComponentCallbacks2#TRIM_MEMORY_UI_HIDDEN},
+ * which only means the app's UI is no longer visible, so they can't be compared with a single threshold.
+ */
+public final class TrimMemoryTier {
+
+    /** Nothing worth releasing. */
+    public static final int NONE = 0;
+
+    /** The UI has just been hidden, without any memory pressure. Only purely visual caches are released. */
+    public static final int UI_HIDDEN = 1;
+
+    /**
+     * The foreground process is running low on memory, or the process has been placed on the background LRU list.
+     * Anything that can be recreated on demand, like retained views and cached controllers, is released, except for
+     * the view of the Controller directly beneath the top of each backstack, which is the most likely to be shown
+     * next.
+     */
+    public static final int LOW = 2;
+
+    /**
+     * The foreground process is about to lose memory it needs, or the background process is likely to be killed
+     * soon. The views of the Controllers directly beneath the top of each backstack are released as well.
+     */
+    public static final int CRITICAL = 3;
+
+    private TrimMemoryTier() { }
+
+    public static int fromLevel(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            return CRITICAL;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            return LOW;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            return UI_HIDDEN;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            return CRITICAL;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            return LOW;
+        } else {
+            return NONE;
+        }
+    }
+
+}
@@ -1,10 +1,10 @@
 package com.bluelinelabs.conductor.internal;
 
+import android.support.annotation.NonNull;
 import android.view.View;
-import android.view.View.OnAttachStateChangeListener;
 import android.view.ViewGroup;
 
-public class ViewAttachHandler implements OnAttachStateChangeListener {
+public class ViewAttachHandler {
 
     private enum ReportedState {
         VIEW_DETACHED,
@@ -18,56 +18,32 @@ public class ViewAttachHandler implements OnAttachStateChangeListener {
         void onViewDetachAfterStop();
     }
 
-    private interface ChildAttachListener {
-        void onAttached();
-    }
-
-    private boolean rootAttached = false;
-    private boolean childrenAttached = false;
+    private boolean viewAttached = false;
     private boolean activityStopped = false;
     private ReportedState reportedState = ReportedState.VIEW_DETACHED;
     private ViewAttachListener attachListener;
-    private OnAttachStateChangeListener childOnAttachStateChangeListener;
+    private ContainerAttachHandler containerAttachHandler;
 
     public ViewAttachHandler(ViewAttachListener attachListener) {
         this.attachListener = attachListener;
     }
 
-    @Override
-    public void onViewAttachedToWindow(final View v) {
-        if (rootAttached) {
-            return;
-        }
-
-        rootAttached = true;
-        listenForDeepestChildAttach(v, new ChildAttachListener() {
-            @Override
-            public void onAttached() {
-                childrenAttached = true;
-                reportAttached();
-
+    public void listenForAttach(@NonNull ViewGroup container, @NonNull View view) {
+        ContainerAttachHandler handler = ContainerAttachHandler.forContainer(container);
+        if (containerAttachHandler != handler) {
+            if (containerAttachHandler != null) {
+                containerAttachHandler.unregister(view);
             }
-        });
-    }
 
-    @Override
-    public void onViewDetachedFromWindow(View v) {
-        rootAttached = false;
-        if (childrenAttached) {
-            childrenAttached = false;
-            reportDetached(false);
+            containerAttachHandler = handler;
+            containerAttachHandler.register(view, this);
         }
     }
 
-    public void listenForAttach(final View view) {
-        view.addOnAttachStateChangeListener(this);
-    }
-
-    public void unregisterAttachListener(View view) {
-        view.removeOnAttachStateChangeListener(this);
-
-        if (childOnAttachStateChangeListener != null && view instanceof ViewGroup) {
-            findDeepestChild((ViewGroup)view).removeOnAttachStateChangeListener(childOnAttachStateChangeListener);
+    public void unregisterAttachListener(@NonNull View view) {
+        if (containerAttachHandler != null) {
+            containerAttachHandler.unregister(view);
+            containerAttachHandler = null;
         }
     }
 
@@ -81,8 +57,24 @@ public class ViewAttachHandler implements OnAttachStateChangeListener {
         reportDetached(true);
     }
 
+    public void onViewAttached() {
+        if (viewAttached) {
+            return;
+        }
+
+        viewAttached = true;
+        reportAttached();
+    }
+
+    public void onViewDetached() {
+        if (viewAttached) {
+            viewAttached = false;
+            reportDetached(false);
+        }
+    }
+
     private void reportAttached() {
-        if (rootAttached && childrenAttached && !activityStopped && reportedState != ReportedState.ATTACHED) {
+        if (viewAttached && !activityStopped && reportedState != ReportedState.ATTACHED) {
             reportedState = ReportedState.ATTACHED;
             attachListener.onAttached();
         }
@@ -104,48 +96,4 @@ public class ViewAttachHandler implements OnAttachStateChangeListener {
         }
     }
 
-    private void listenForDeepestChildAttach(final View view, final ChildAttachListener attachListener) {
-        if (!(view instanceof ViewGroup)) {
-            attachListener.onAttached();
-            return;
-        }
-
-        ViewGroup viewGroup = (ViewGroup)view;
-        if (viewGroup.getChildCount() == 0) {
-            attachListener.onAttached();
-            return;
-        }
-
-        childOnAttachStateChangeListener = new OnAttachStateChangeListener() {
-            boolean attached = false;
-
-            @Override
-            public void onViewAttachedToWindow(View v) {
-                if (!attached) {
-                    attached = true;
-                    attachListener.onAttached();
-                    v.removeOnAttachStateChangeListener(this);
-                    childOnAttachStateChangeListener = null;
-                }
-            }
-
-            @Override
-            public void onViewDetachedFromWindow(View v) { }
-        };
-        findDeepestChild(viewGroup).addOnAttachStateChangeListener(childOnAttachStateChangeListener);
-    }
-
-    private View findDeepestChild(ViewGroup viewGroup) {
-        if (viewGroup.getChildCount() == 0) {
-            return viewGroup;
-        }
-
-        View lastChild = viewGroup.getChildAt(viewGroup.getChildCount() - 1);
-        if (lastChild instanceof ViewGroup) {
-            return findDeepestChild((ViewGroup)lastChild);
-        } else {
-            return lastChild;
-        }
-    }
-
 }
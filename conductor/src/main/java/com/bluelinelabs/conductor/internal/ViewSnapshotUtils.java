@@ -0,0 +1,63 @@
+package com.bluelinelabs.conductor.internal;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.View;
+
+public class ViewSnapshotUtils {
+
+    // Build.VERSION_CODES.O and Bitmap.Config.HARDWARE aren't available to the SDK this is compiled against.
+    private static final int API_HARDWARE_BITMAPS = 26;
+    private static final String CONFIG_HARDWARE = "HARDWARE";
+
+    @Nullable
+    public static Bitmap snapshot(@NonNull View view) {
+        return snapshot(view, 1);
+    }
+
+    /**
+     * Draws the view into a new bitmap. On API 26 and up, the result is moved into a {@code HARDWARE} bitmap, so its
+     * pixels are kept in graphics memory rather than on the heap. Hardware bitmaps can't be drawn into, so the view
+     * is still drawn through a software Canvas first. Below API 26, the software bitmap is returned as is, using
+     * {@link Bitmap.Config#RGB_565} for opaque views to halve its size.
+     */
+    @Nullable
+    public static Bitmap snapshot(@NonNull View view, float scale) {
+        final int width = (int)(view.getWidth() * scale);
+        final int height = (int)(view.getHeight() * scale);
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+
+        try {
+            Bitmap bitmap = Bitmap.createBitmap(width, height, view.isOpaque() ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(bitmap);
+            canvas.scale(scale, scale);
+            canvas.translate(-view.getScrollX(), -view.getScrollY());
+            view.draw(canvas);
+            return toHardwareBitmap(bitmap);
+        } catch (OutOfMemoryError e) {
+            // Not worth crashing over, the caller can just keep using the real View.
+            return null;
+        }
+    }
+
+    @NonNull
+    private static Bitmap toHardwareBitmap(@NonNull Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT < API_HARDWARE_BITMAPS) {
+            return bitmap;
+        }
+
+        Bitmap hardwareBitmap = bitmap.copy(Bitmap.Config.valueOf(CONFIG_HARDWARE), false);
+        if (hardwareBitmap == null) {
+            return bitmap;
+        }
+
+        bitmap.recycle();
+        return hardwareBitmap;
+    }
+
+}
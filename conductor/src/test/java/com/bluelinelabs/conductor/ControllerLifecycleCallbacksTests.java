@@ -12,7 +12,6 @@ import com.bluelinelabs.conductor.util.CallState;
 import com.bluelinelabs.conductor.util.MockChangeHandler;
 import com.bluelinelabs.conductor.util.MockChangeHandler.ChangeHandlerListener;
 import com.bluelinelabs.conductor.util.TestController;
-import com.bluelinelabs.conductor.util.ViewUtils;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -98,7 +97,7 @@ public class ControllerLifecycleCallbacksTests {
         assertCalls(expectedCallState, controller);
 
         assertNotNull(controller.getView());
-        ViewUtils.reportAttached(controller.getView(), false);
+        activityProxy.getView().setAttached(false);
 
         expectedCallState.saveViewStateCalls++;
         expectedCallState.destroyViewCalls++;
@@ -1,14 +1,27 @@
 package com.bluelinelabs.conductor;
 
 import android.app.Activity;
+import android.content.ComponentCallbacks2;
 import android.content.Intent;
 import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.ImageView;
 
+import com.bluelinelabs.conductor.Controller.LifecycleListener;
 import com.bluelinelabs.conductor.Controller.RetainViewMode;
+import com.bluelinelabs.conductor.ControllerChangeHandler.ControllerChangeCompletedListener;
+import com.bluelinelabs.conductor.StrictModePolicy.SlowCallbackViolation;
+import com.bluelinelabs.conductor.StrictModePolicy.ViolationListener;
+import com.bluelinelabs.conductor.internal.PlaceholderSnapshotter;
+import com.bluelinelabs.conductor.internal.StagedInflater;
+import com.bluelinelabs.conductor.internal.ViewAttachHandler;
 import com.bluelinelabs.conductor.util.ActivityProxy;
 import com.bluelinelabs.conductor.util.CallState;
+import com.bluelinelabs.conductor.util.MockChangeHandler;
 import com.bluelinelabs.conductor.util.TestController;
 import com.bluelinelabs.conductor.util.ViewUtils;
 
@@ -17,11 +30,28 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 @RunWith(RobolectricTestRunner.class)
 @Config(manifest = Config.NONE)
@@ -53,18 +83,18 @@ public class ControllerTests {
         assertNull(controller.getView());
         View view = controller.inflate(router.container);
         assertNotNull(controller.getView());
-        ViewUtils.reportAttached(view, true);
+        router.container.addView(view);
         assertNotNull(controller.getView());
-        ViewUtils.reportAttached(view, false);
+        router.container.removeView(view);
         assertNull(controller.getView());
 
         // Test View getting retained w/ RETAIN_DETACH
         controller.setRetainViewMode(RetainViewMode.RETAIN_DETACH);
         view = controller.inflate(router.container);
         assertNotNull(controller.getView());
-        ViewUtils.reportAttached(view, true);
+        router.container.addView(view);
         assertNotNull(controller.getView());
-        ViewUtils.reportAttached(view, false);
+        router.container.removeView(view);
         assertNotNull(controller.getView());
 
         // Ensure re-setting RELEASE_DETACH releases
@@ -72,6 +102,194 @@ public class ControllerTests {
         assertNull(controller.getView());
     }
 
+    @Test
+    public void testTrimMemoryReleasesRetainedViews() {
+        TestController controller = new TestController();
+        controller.setRetainViewMode(RetainViewMode.RETAIN_DETACH);
+        router.pushController(RouterTransaction.with(controller));
+
+        router.pushController(RouterTransaction.with(new TestController()));
+        assertFalse(controller.isAttached());
+        assertNotNull(controller.getView());
+
+        router.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        assertNotNull(controller.getView());
+
+        router.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+        assertNotNull(controller.getView());
+
+        router.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+        assertNull(controller.getView());
+
+        router.popCurrentController();
+        assertTrue(controller.isAttached());
+        assertNotNull(controller.getView());
+    }
+
+    @Test
+    public void testTrimMemoryKeepsViewBeneathTopUntilCritical() {
+        TestController deepController = new TestController();
+        deepController.setRetainViewMode(RetainViewMode.RETAIN_DETACH);
+        router.pushController(RouterTransaction.with(deepController));
+
+        TestController previousController = new TestController();
+        previousController.setRetainViewMode(RetainViewMode.RETAIN_DETACH);
+        router.pushController(RouterTransaction.with(previousController));
+
+        router.pushController(RouterTransaction.with(new TestController()));
+
+        router.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        assertNull(deepController.getView());
+        assertNotNull(previousController.getView());
+
+        router.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+        assertNull(previousController.getView());
+    }
+
+    @Test
+    public void testSnapshotWhenCovered() {
+        Controller controller = new TestController();
+        controller.setSnapshotWhenCovered(true);
+        router.pushController(RouterTransaction.with(controller));
+
+        View view = controller.getView();
+        view.layout(0, 0, 100, 100);
+
+        router.pushController(RouterTransaction.with(new TestController())
+                .pushChangeHandler(MockChangeHandler.noRemoveViewOnPushHandler()));
+
+        assertFalse(controller.isAttached());
+        assertNull(controller.getView());
+        assertNull(view.getParent());
+        assertEquals(2, router.container.getChildCount());
+        assertTrue(controller.getNeedsAttach());
+
+        router.popCurrentController();
+
+        assertTrue(controller.isAttached());
+        assertEquals(1, router.container.getChildCount());
+        assertEquals(controller.getView(), router.container.getChildAt(0));
+    }
+
+    @Test
+    public void testNoSnapshotWhenCoveredWithRetainedView() {
+        Controller controller = new TestController();
+        controller.setSnapshotWhenCovered(true);
+        controller.setRetainViewMode(RetainViewMode.RETAIN_DETACH);
+        router.pushController(RouterTransaction.with(controller));
+
+        View view = controller.getView();
+        view.layout(0, 0, 100, 100);
+
+        router.pushController(RouterTransaction.with(new TestController())
+                .pushChangeHandler(MockChangeHandler.noRemoveViewOnPushHandler()));
+
+        assertTrue(controller.isAttached());
+        assertEquals(view, router.container.getChildAt(0));
+        assertEquals(2, router.container.getChildCount());
+    }
+
+    @Test
+    public void testPlaceholderSnapshotOnPop() {
+        router.container.layout(0, 0, 100, 100);
+
+        final Controller controller = new TestController();
+        controller.setPlaceholderSnapshotEnabled(true);
+        router.pushController(RouterTransaction.with(controller));
+        controller.getView().layout(0, 0, 100, 100);
+        ShadowLooper.idleMainLooper(PlaceholderSnapshotter.SETTLE_DELAY_MS);
+
+        MockChangeHandler popHandler = MockChangeHandler.defaultHandler();
+        router.pushController(RouterTransaction.with(new TestController()).popChangeHandler(popHandler));
+        assertNull(controller.getView());
+
+        final List<View> viewsOnChangeStart = new ArrayList<>();
+        controller.addLifecycleListener(new LifecycleListener() {
+            @Override
+            public void onChangeStart(@NonNull Controller changeController, @NonNull ControllerChangeHandler changeHandler, @NonNull ControllerChangeType changeType) {
+                viewsOnChangeStart.add(changeController.getView());
+            }
+        });
+
+        router.popCurrentController();
+
+        assertTrue(popHandler.to instanceof ImageView);
+        assertNull(popHandler.to.getParent());
+        assertTrue(controller.isAttached());
+        assertEquals(1, router.container.getChildCount());
+        assertEquals(controller.getView(), router.container.getChildAt(0));
+        assertEquals(Collections.singletonList(controller.getView()), viewsOnChangeStart);
+    }
+
+    @Test
+    public void testPlaceholderSnapshotWaitsForViewToSettle() {
+        router.container.layout(0, 0, 100, 100);
+
+        Controller controller = new TestController();
+        controller.setPlaceholderSnapshotEnabled(true);
+        router.pushController(RouterTransaction.with(controller));
+        controller.getView().layout(0, 0, 100, 100);
+
+        // Covered before a snapshot was taken, and releasing the view doesn't take one on the spot.
+        MockChangeHandler popHandler = MockChangeHandler.defaultHandler();
+        router.pushController(RouterTransaction.with(new TestController()).popChangeHandler(popHandler));
+        ShadowLooper.idleMainLooper(PlaceholderSnapshotter.SETTLE_DELAY_MS);
+
+        router.popCurrentController();
+
+        assertEquals(controller.getView(), popHandler.to);
+    }
+
+    @Test
+    public void testLazilyAllocatedStateSaveRestore() {
+        Controller controller = new TestController();
+        String instanceId = controller.getInstanceId();
+
+        assertEquals(instanceId, controller.getInstanceId());
+        assertTrue(controller.getArgs().isEmpty());
+
+        Controller restored = Controller.newInstance(controller.saveInstanceState());
+
+        assertEquals(instanceId, restored.getInstanceId());
+        assertTrue(restored.getArgs().isEmpty());
+        assertFalse(restored.didRequestPermission("test"));
+        assertTrue(restored.getChildRouters().isEmpty());
+
+        Controller unsaved = new TestController();
+        unsaved.addLifecycleListener(new LifecycleListener() { });
+        router.pushController(RouterTransaction.with(unsaved));
+        router.popCurrentController();
+
+        assertTrue(unsaved.isDestroyed());
+    }
+
+    @Test
+    public void testNavigationLeavesInstanceIdUnassigned() {
+        Controller controller = new TestController();
+        router.pushController(RouterTransaction.with(controller));
+        router.pushController(RouterTransaction.with(new TestController()));
+        router.popCurrentController();
+
+        assertFalse(controller.hasInstanceId());
+        assertEquals(controller, router.getControllerWithInstanceId(controller.getInstanceId()));
+    }
+
+    @Test
+    public void testInstanceIds() {
+        Set<String> instanceIds = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(instanceIds.add(new TestController().getInstanceId()));
+        }
+
+        // IDs saved by older versions were UUIDs, which must still be restored as-is.
+        String legacyInstanceId = UUID.randomUUID().toString();
+        Controller controller = new TestController();
+        Bundle savedState = controller.saveInstanceState();
+        savedState.putString("Controller.instanceId", legacyInstanceId);
+
+        assertEquals(legacyInstanceId, Controller.newInstance(savedState).getInstanceId());
+    }
+
     @Test
     public void testActivityResult() {
         TestController controller = new TestController();
@@ -363,6 +581,88 @@ public class ControllerTests {
         assertNull(child2.getParentController());
     }
 
+    @Test
+    public void testChildAttachDetachPropagation() {
+        TestController parent = new TestController();
+        TestController child1 = new TestController();
+        TestController child2 = new TestController();
+        TestController child3 = new TestController();
+
+        router.pushController(RouterTransaction.with(parent));
+
+        Router childRouter1 = parent.getChildRouter((ViewGroup)parent.getView().findViewById(TestController.CHILD_VIEW_ID_1));
+        Router childRouter2 = parent.getChildRouter((ViewGroup)parent.getView().findViewById(TestController.CHILD_VIEW_ID_2));
+
+        childRouter1.setRoot(RouterTransaction.with(child1));
+        childRouter1.pushController(RouterTransaction.with(child2)
+                .pushChangeHandler(MockChangeHandler.noRemoveViewOnPushHandler()));
+        childRouter2.setRoot(RouterTransaction.with(child3));
+
+        final List<Controller> detachOrder = new ArrayList<>();
+        LifecycleListener detachListener = new LifecycleListener() {
+            @Override
+            public void postDetach(@NonNull Controller controller, @NonNull View view) {
+                detachOrder.add(controller);
+            }
+        };
+        parent.addLifecycleListener(detachListener);
+        child1.addLifecycleListener(detachListener);
+        child2.addLifecycleListener(detachListener);
+        child3.addLifecycleListener(detachListener);
+
+        assertTrue(parent.isAttached());
+        assertTrue(child1.isAttached());
+        assertTrue(child2.isAttached());
+        assertTrue(child3.isAttached());
+
+        router.pushController(RouterTransaction.with(new TestController()));
+
+        assertEquals(Arrays.<Controller>asList(child2, child1, child3, parent), detachOrder);
+
+        router.popCurrentController();
+
+        assertTrue(parent.isAttached());
+        assertTrue(child1.isAttached());
+        assertTrue(child2.isAttached());
+        assertTrue(child3.isAttached());
+    }
+
+    @Test
+    public void testFrozenChildDetachesWithHost() {
+        TestController parent = new TestController();
+        parent.setRetainViewMode(RetainViewMode.RETAIN_DETACH);
+        TestController child = new TestController();
+
+        router.pushController(RouterTransaction.with(parent));
+
+        Router childRouter = parent.getChildRouter((ViewGroup)parent.getView().findViewById(TestController.CHILD_VIEW_ID_1));
+        childRouter.setRoot(RouterTransaction.with(child));
+
+        final List<Controller> detachOrder = new ArrayList<>();
+        LifecycleListener detachListener = new LifecycleListener() {
+            @Override
+            public void postDetach(@NonNull Controller controller, @NonNull View view) {
+                detachOrder.add(controller);
+            }
+        };
+        parent.addLifecycleListener(detachListener);
+        child.addLifecycleListener(detachListener);
+
+        PausingChangeHandler changeHandler = new PausingChangeHandler();
+        router.pushController(RouterTransaction.with(new TestController()).pushChangeHandler(changeHandler));
+
+        // The child is frozen while its host changes, so it detaches along with it but keeps its view until the end.
+        assertEquals(Arrays.<Controller>asList(child, parent), detachOrder);
+        assertFalse(child.isAttached());
+        assertNotNull(child.getView());
+
+        changeHandler.completeChange();
+
+        assertEquals(Arrays.<Controller>asList(child, parent), detachOrder);
+        assertNull(child.getView());
+        assertNotNull(parent.getView());
+    }
+
     @Test
     public void testRestoredChildRouterBackstack() {
         TestController parent = new TestController();
@@ -405,6 +705,329 @@ public class ControllerTests {
         assertEquals(0, childRouter.getBackstackSize());
     }
 
+    @Test
+    public void testInflationStagesRunInOrder() {
+        StagedController controller = new StagedController();
+        controller.setInflationFrameBudget(0);
+
+        // Frame callbacks would otherwise run as soon as they are posted.
+        ShadowLooper.pauseMainLooper();
+        try {
+            router.pushController(RouterTransaction.with(controller));
+
+            assertTrue(controller.isAttached());
+            assertTrue(controller.hasPendingInflationStages());
+            assertTrue(controller.inflatedStages.isEmpty());
+
+            ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+            assertEquals(Arrays.asList(0, 1, 2), controller.inflatedStages);
+            assertFalse(controller.hasPendingInflationStages());
+        } finally {
+            ShadowLooper.unPauseMainLooper();
+        }
+    }
+
+    @Test
+    public void testInflationStagesPauseWhileDetached() {
+        StagedController controller = new StagedController();
+        controller.setRetainViewMode(RetainViewMode.RETAIN_DETACH);
+
+        // Frame callbacks would otherwise run as soon as they are posted.
+        ShadowLooper.pauseMainLooper();
+        try {
+            router.pushController(RouterTransaction.with(controller));
+            router.pushController(RouterTransaction.with(new TestController()));
+
+            assertFalse(controller.isAttached());
+            ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+            assertTrue(controller.inflatedStages.isEmpty());
+            assertTrue(controller.hasPendingInflationStages());
+
+            router.popCurrentController();
+            assertTrue(controller.isAttached());
+            ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+            assertEquals(Arrays.asList(0, 1, 2), controller.inflatedStages);
+            assertFalse(controller.hasPendingInflationStages());
+        } finally {
+            ShadowLooper.unPauseMainLooper();
+        }
+    }
+
+    @Test
+    public void testInflationStagesCancelledOnDestroy() {
+        StagedController controller = new StagedController();
+
+        // Frame callbacks would otherwise run as soon as they are posted.
+        ShadowLooper.pauseMainLooper();
+        try {
+            router.pushController(RouterTransaction.with(controller));
+            router.popController(controller);
+
+            assertTrue(controller.isDestroyed());
+            ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+            assertTrue(controller.inflatedStages.isEmpty());
+            assertFalse(controller.hasPendingInflationStages());
+        } finally {
+            ShadowLooper.unPauseMainLooper();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMissingViewStubInflationStage() {
+        StagedController controller = new StagedController();
+        controller.missingViewStubId = 9999;
+        router.pushController(RouterTransaction.with(controller));
+
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    }
+
+    @Test
+    public void testTracer() {
+        final List<String> sections = new ArrayList<>();
+        final int[] depth = new int[1];
+        Conductor.setTracer(new ConductorTracer() {
+            @Override
+            public void beginSection(@NonNull String sectionName) {
+                sections.add(sectionName);
+                depth[0]++;
+            }
+
+            @Override
+            public void endSection() {
+                depth[0]--;
+                assertTrue(depth[0] >= 0);
+            }
+        });
+
+        try {
+            router.pushController(RouterTransaction.with(new TestController()));
+            router.popCurrentController();
+        } finally {
+            Conductor.setTracer(null);
+        }
+
+        assertEquals(0, depth[0]);
+        assertTrue(sections.contains("ControllerChangeHandler.changeStarted SimpleSwapChangeHandler"));
+        assertTrue(sections.contains("ControllerChangeHandler.performChange SimpleSwapChangeHandler"));
+        assertTrue(sections.contains("ControllerChangeHandler.changeCompleted SimpleSwapChangeHandler"));
+        assertTrue(sections.contains("Controller.onCreateView TestController"));
+        assertTrue(sections.contains("Controller.onAttach TestController"));
+        assertTrue(sections.contains("Controller.onDetach TestController"));
+        assertTrue(sections.contains("Controller.onDestroyView TestController"));
+        assertTrue(sections.contains("Controller.onDestroy TestController"));
+
+        sections.clear();
+        router.pushController(RouterTransaction.with(new TestController()));
+        assertTrue(sections.isEmpty());
+    }
+
+    @Test
+    public void testTracerSectionsEndWhenCallbacksThrow() {
+        final int[] depth = new int[1];
+        Conductor.setTracer(new ConductorTracer() {
+            @Override
+            public void beginSection(@NonNull String sectionName) {
+                depth[0]++;
+            }
+
+            @Override
+            public void endSection() {
+                depth[0]--;
+            }
+        });
+
+        try {
+            router.pushController(RouterTransaction.with(new ThrowingController()));
+            fail();
+        } catch (IllegalStateException ignored) {
+        } finally {
+            Conductor.setTracer(null);
+        }
+
+        assertEquals(0, depth[0]);
+    }
+
+    @Test
+    public void testStrictMode() {
+        Controller controller = new SlowBackController();
+        router.pushController(RouterTransaction.with(controller));
+
+        final List<SlowCallbackViolation> violations = new ArrayList<>();
+        Conductor.setStrictModePolicy(new StrictModePolicy.Builder()
+                .callbackBudget(1)
+                .penaltyListener(new ViolationListener() {
+                    @Override
+                    public void onViolation(@NonNull SlowCallbackViolation violation) {
+                        violations.add(violation);
+                    }
+                })
+                .build());
+
+        try {
+            assertTrue(router.handleBack());
+        } finally {
+            Conductor.setStrictModePolicy(null);
+        }
+
+        assertEquals(1, violations.size());
+        assertEquals(controller.getClass(), violations.get(0).getTargetClass());
+        assertEquals("handleBack", violations.get(0).getCallbackName());
+        assertTrue(violations.get(0).getDurationMillis() >= 5);
+        assertEquals(1, violations.get(0).getBudgetMillis());
+
+        Conductor.setStrictModePolicy(new StrictModePolicy.Builder().callbackBudget(1).penaltyThrow().build());
+        SlowCallbackViolation thrown = null;
+        try {
+            router.handleBack();
+        } catch (SlowCallbackViolation violation) {
+            thrown = violation;
+        } finally {
+            Conductor.setStrictModePolicy(null);
+        }
+        assertNotNull(thrown);
+
+        violations.clear();
+        router.handleBack();
+        assertTrue(violations.isEmpty());
+    }
+
+    @Test
+    public void testResetRestoresEveryField() throws Exception {
+        Controller controller = new TestController();
+        Bundle dirtyArgs = new Bundle();
+        dirtyArgs.putString("key", "value");
+
+        // Every value a field could be left with, keyed by field type. New field types need a sample here.
+        Map<Class<?>, Object> samples = new HashMap<>();
+        samples.put(Bundle.class, dirtyArgs);
+        samples.put(Router.class, router);
+        samples.put(View.class, new View(activityProxy.getActivity()));
+        samples.put(Controller.class, new TestController());
+        samples.put(String.class, "stale");
+        samples.put(ControllerChangeHandler.class, MockChangeHandler.defaultHandler());
+        samples.put(ImageView.class, new ImageView(activityProxy.getActivity()));
+        samples.put(ViewAttachHandler.class, new ViewAttachHandler(null));
+        samples.put(StagedInflater.class, new StagedInflater(null));
+        samples.put(PlaceholderSnapshotter.class, new PlaceholderSnapshotter("stale"));
+        samples.put(List.class, Collections.singletonList(null));
+        samples.put(WeakReference.class, new WeakReference<>(new View(activityProxy.getActivity())));
+
+        List<Field> fields = new ArrayList<>();
+        for (Field field : Controller.class.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+
+        TestController fresh = new TestController();
+        for (Field field : fields) {
+            // Pool bookkeeping, including the listeners added during construction, is deliberately kept through a reset.
+            if (field.getName().equals("poolState")) {
+                continue;
+            }
+
+            Class<?> type = field.getType();
+            Object freshValue = field.get(fresh);
+
+            Object dirtyValue;
+            if (type == boolean.class) {
+                dirtyValue = !(Boolean)freshValue;
+            } else if (type == int.class) {
+                dirtyValue = (Integer)freshValue + 1;
+            } else if (type.isEnum()) {
+                Object[] constants = type.getEnumConstants();
+                dirtyValue = constants[0] == freshValue ? constants[1] : constants[0];
+            } else if (samples.containsKey(type)) {
+                dirtyValue = samples.get(type);
+            } else {
+                throw new AssertionError("No sample value for Controller." + field.getName() + " of type " + type.getName());
+            }
+            field.set(controller, dirtyValue);
+        }
+
+        controller.reset(null);
+
+        for (Field field : fields) {
+            if (field.getName().equals("args")) {
+                assertTrue(controller.getArgs().isEmpty());
+            } else {
+                assertEquals("Controller." + field.getName() + " wasn't cleared by reset()", field.get(fresh), field.get(controller));
+            }
+        }
+    }
+
+    public static class PausingChangeHandler extends ControllerChangeHandler {
+
+        private ControllerChangeCompletedListener pendingListener;
+
+        @Override
+        public void performChange(@NonNull ViewGroup container, @Nullable View from, @Nullable View to, boolean isPush, @NonNull ControllerChangeCompletedListener changeListener) {
+            if (to != null) {
+                container.addView(to);
+            }
+            if (from != null) {
+                container.removeView(from);
+            }
+            pendingListener = changeListener;
+        }
+
+        void completeChange() {
+            pendingListener.onChangeCompleted();
+        }
+    }
+
+    public static class ThrowingController extends TestController {
+
+        @Override
+        protected void onAttach(@NonNull View view) {
+            throw new IllegalStateException("Failed to attach");
+        }
+    }
+
+    public static class SlowBackController extends TestController {
+
+        @Override
+        public boolean handleBack() {
+            final long start = System.nanoTime();
+            //noinspection StatementWithEmptyBody
+            while (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(5)) { }
+            return true;
+        }
+    }
+
+    public static class StagedController extends TestController {
+
+        final List<Integer> inflatedStages = new ArrayList<>();
+        int missingViewStubId;
+
+        @NonNull
+        @Override
+        protected View onCreateView(@NonNull LayoutInflater inflater, @NonNull ViewGroup container) {
+            View view = super.onCreateView(inflater, container);
+
+            if (missingViewStubId != 0) {
+                addInflationStage(missingViewStubId);
+            }
+
+            for (int i = 0; i < 3; i++) {
+                final int stage = i;
+                addInflationStage(new InflationStage() {
+                    @Override
+                    public void inflate(@NonNull View view) {
+                        inflatedStages.add(stage);
+                    }
+                });
+            }
+
+            return view;
+        }
+    }
+
     private void assertCalls(CallState callState, TestController controller) {
         assertEquals("Expected call counts and controller call counts do not match.", callState, controller.currentCallState);
     }
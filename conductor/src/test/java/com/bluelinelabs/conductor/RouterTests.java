@@ -1,10 +1,21 @@
 package com.bluelinelabs.conductor;
 
+import android.app.Activity;
+import android.content.ComponentCallbacks2;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.view.View;
 import android.view.ViewGroup;
 
+import com.bluelinelabs.conductor.TransitionMetrics.Aggregate;
+import com.bluelinelabs.conductor.TransitionMetrics.Sample;
+import com.bluelinelabs.conductor.TransitionMetrics.Stage;
+import com.bluelinelabs.conductor.TransitionMetrics.TransitionMetricsListener;
 import com.bluelinelabs.conductor.changehandler.FadeChangeHandler;
 import com.bluelinelabs.conductor.changehandler.HorizontalChangeHandler;
+import com.bluelinelabs.conductor.changehandler.SimpleSwapChangeHandler;
 import com.bluelinelabs.conductor.util.ActivityProxy;
+import com.bluelinelabs.conductor.util.LooperUtils;
 import com.bluelinelabs.conductor.util.MockChangeHandler;
 import com.bluelinelabs.conductor.util.TestController;
 
@@ -13,12 +24,23 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
-
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.util.ReflectionHelpers;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -125,6 +147,643 @@ public class RouterTests {
         assertNull(router.getControllerWithTag(controller2Tag));
     }
 
+    @Test
+    public void testOpaqueControllerHidesViewsBelow() {
+        Controller controller1 = new TestController();
+        Controller controller2 = new TestController();
+        Controller controller3 = new TestController();
+        controller3.setOpaque(true);
+
+        router.pushController(RouterTransaction.with(controller1));
+        router.pushController(RouterTransaction.with(controller2)
+                .pushChangeHandler(MockChangeHandler.noRemoveViewOnPushHandler()));
+
+        assertEquals(View.VISIBLE, controller1.getView().getVisibility());
+
+        router.pushController(RouterTransaction.with(controller3)
+                .pushChangeHandler(MockChangeHandler.noRemoveViewOnPushHandler()));
+
+        assertTrue(controller1.isAttached());
+        assertTrue(controller2.isAttached());
+        assertEquals(View.INVISIBLE, controller1.getView().getVisibility());
+        assertEquals(View.INVISIBLE, controller2.getView().getVisibility());
+        assertEquals(View.VISIBLE, controller3.getView().getVisibility());
+
+        router.popCurrentController();
+
+        assertEquals(View.VISIBLE, controller1.getView().getVisibility());
+        assertEquals(View.VISIBLE, controller2.getView().getVisibility());
+    }
+
+    @Test
+    public void testForwardCache() {
+        router.setForwardCacheSize(1);
+        router.setRoot(RouterTransaction.with(new TestController()));
+
+        TestController controller = new TestController();
+        router.pushController(RouterTransaction.with(controller).tag("detail").cacheKey("detail/1"));
+        View view = controller.getView();
+        router.popCurrentController();
+
+        assertFalse(controller.isAttached());
+        assertFalse(controller.isBeingDestroyed());
+        assertEquals(view, controller.getView());
+        assertEquals(1, router.getBackstackSize());
+
+        router.pushController(RouterTransaction.with(new TestController()).tag("detail").cacheKey("detail/1"));
+
+        assertEquals(controller, router.getControllerWithTag("detail"));
+        assertTrue(controller.isAttached());
+        assertEquals(view, controller.getView());
+        assertEquals(1, controller.currentCallState.createViewCalls);
+
+        router.popCurrentController();
+
+        Controller otherController = new TestController();
+        router.pushController(RouterTransaction.with(otherController).cacheKey("detail/2"));
+        router.popCurrentController();
+
+        assertTrue(controller.isDestroyed());
+        assertFalse(otherController.isDestroyed());
+
+        router.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+        assertFalse(otherController.isDestroyed());
+
+        router.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+
+        assertTrue(otherController.isDestroyed());
+    }
+
+    @Test
+    public void testPushCachedController() {
+        router.setForwardCacheSize(1);
+        router.setRoot(RouterTransaction.with(new TestController()));
+
+        assertFalse(router.pushCachedController("detail/1"));
+        assertEquals(1, router.getBackstackSize());
+
+        TestController controller = new TestController();
+        router.pushController(RouterTransaction.with(controller).tag("detail").cacheKey("detail/1"));
+        router.popCurrentController();
+
+        assertTrue(router.pushCachedController("detail/1"));
+        assertEquals(controller, router.getControllerWithTag("detail"));
+        assertTrue(controller.isAttached());
+        assertEquals(1, controller.currentCallState.createViewCalls);
+
+        router.popCurrentController();
+
+        assertFalse(router.pushCachedController("detail/2"));
+        assertTrue(router.pushCachedController("detail/1"));
+        assertFalse(router.pushCachedController("detail/1"));
+    }
+
+    @Test
+    public void testForwardCacheIgnoresTags() {
+        router.setForwardCacheSize(1);
+        router.setRoot(RouterTransaction.with(new TestController()));
+
+        Controller controller = new TestController();
+        router.pushController(RouterTransaction.with(controller).tag("detail"));
+        router.popCurrentController();
+
+        assertTrue(controller.isBeingDestroyed() || controller.isDestroyed());
+
+        Controller newController = new TestController();
+        router.pushController(RouterTransaction.with(newController).tag("detail"));
+
+        assertEquals(newController, router.getControllerWithTag("detail"));
+        assertTrue(newController.isAttached());
+    }
+
+    @Test
+    public void testControllerPool() {
+        router.setControllerPoolSize(TestController.class, 1);
+        router.setRoot(RouterTransaction.with(new TestController()));
+
+        Bundle args = new Bundle();
+        args.putString("key", "value");
+
+        TestController controller = router.obtainController(TestController.class, args);
+        String instanceId = controller.getInstanceId();
+        router.pushController(RouterTransaction.with(controller));
+        router.popCurrentController();
+
+        assertTrue(controller.isDestroyed());
+
+        TestController reused = router.obtainController(TestController.class, null);
+
+        assertEquals(controller, reused);
+        assertFalse(reused.isDestroyed());
+        assertFalse(reused.isBeingDestroyed());
+        assertNull(reused.getRouter());
+        assertNull(reused.getArgs().getString("key"));
+        assertFalse(instanceId.equals(reused.getInstanceId()));
+
+        router.pushController(RouterTransaction.with(reused));
+
+        assertTrue(reused.isAttached());
+        assertEquals(router, reused.getRouter());
+
+        router.popCurrentController();
+        router.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+        router.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+
+        assertNotSame(controller, router.obtainController(TestController.class, null));
+    }
+
+    @Test
+    public void testControllerPoolRejectsStaleIdentities() {
+        router.setControllerPoolSize(TestController.class, 1);
+        router.setRoot(RouterTransaction.with(new TestController()));
+
+        TestController controller = router.obtainController(TestController.class, null);
+        String instanceId = controller.getInstanceId();
+        router.pushController(RouterTransaction.with(controller));
+        router.popCurrentController();
+
+        IllegalStateException thrown = null;
+        try {
+            RouterTransaction.with(controller);
+        } catch (IllegalStateException e) {
+            thrown = e;
+        }
+        assertNotNull(thrown);
+
+        TestController reused = router.obtainController(TestController.class, null);
+        router.pushController(RouterTransaction.with(reused));
+
+        assertEquals(reused, router.getControllerWithInstanceId(reused.getInstanceId()));
+
+        thrown = null;
+        try {
+            router.getControllerWithInstanceId(instanceId);
+        } catch (IllegalStateException e) {
+            thrown = e;
+        }
+        assertNotNull(thrown);
+    }
+
+    @Test
+    public void testControllerPoolKeepsConstructorListeners() {
+        router.setControllerPoolSize(ListeningController.class, 1);
+        router.setRoot(RouterTransaction.with(new TestController()));
+
+        ListeningController controller = router.obtainController(ListeningController.class, null);
+        router.pushController(RouterTransaction.with(controller));
+        controller.addLifecycleListener(new Controller.LifecycleListener() {
+            @Override
+            public void postAttach(@NonNull Controller controller, @NonNull View view) {
+                ((ListeningController)controller).events.add("other attached");
+            }
+        });
+        router.popCurrentController();
+        controller.events.clear();
+
+        ListeningController reused = router.obtainController(ListeningController.class, null);
+        assertEquals(controller, reused);
+
+        router.pushController(RouterTransaction.with(reused));
+
+        assertEquals(Arrays.asList("reset", "attached"), reused.events);
+    }
+
+    @Test
+    public void testMultipleBackstacks() {
+        Controller homeController = new TestController();
+        Controller searchRootController = new TestController();
+        Controller searchDetailController = new TestController();
+
+        router.setRoot(RouterTransaction.with(homeController));
+        router.switchToBackstack("search", RouterTransaction.with(searchRootController), MockChangeHandler.defaultHandler());
+
+        assertEquals("search", router.getActiveBackstackName());
+        assertTrue(router.hasBackstack(Router.DEFAULT_BACKSTACK));
+        assertFalse(homeController.isAttached());
+        assertFalse(homeController.isDestroyed());
+        assertNotNull(homeController.getView());
+        assertTrue(searchRootController.isAttached());
+
+        router.pushController(RouterTransaction.with(searchDetailController));
+        router.switchToBackstack(Router.DEFAULT_BACKSTACK, null, MockChangeHandler.defaultHandler());
+
+        assertEquals(1, router.getBackstackSize());
+        assertTrue(homeController.isAttached());
+        assertFalse(searchDetailController.isAttached());
+        assertFalse(searchDetailController.isDestroyed());
+
+        router.setWarmBackstackCount(0);
+
+        assertNull(searchDetailController.getView());
+
+        router.switchToBackstack("search", null, MockChangeHandler.defaultHandler());
+
+        assertEquals(2, router.getBackstackSize());
+        assertEquals(searchDetailController, router.getBackstack().get(1).controller());
+        assertTrue(searchDetailController.isAttached());
+
+        router.switchToBackstack(Router.DEFAULT_BACKSTACK, null, MockChangeHandler.defaultHandler());
+
+        assertTrue(router.removeBackstack("search"));
+        assertTrue(searchRootController.isDestroyed());
+        assertTrue(searchDetailController.isDestroyed());
+        assertFalse(router.hasBackstack("search"));
+    }
+
+    @Test
+    public void testSwitchToBackstackKeepsCallerHandler() {
+        router.setRoot(RouterTransaction.with(new TestController()));
+
+        MockChangeHandler changeHandler = MockChangeHandler.noRemoveViewOnPushHandler();
+        router.switchToBackstack("search", RouterTransaction.with(new TestController()), changeHandler);
+
+        assertFalse(ReflectionHelpers.<Boolean>getField(changeHandler, "forceRemoveViewOnPush"));
+    }
+
+    @Test
+    public void testInactiveBackstacksReceiveActivityLifecycle() {
+        ActivityLifecycleController homeController = new ActivityLifecycleController();
+        router.setRoot(RouterTransaction.with(homeController));
+        router.switchToBackstack("search", RouterTransaction.with(new TestController()), MockChangeHandler.defaultHandler());
+
+        Activity activity = router.getActivity();
+        router.onActivityPaused(activity);
+        router.onActivityStopped(activity);
+        router.onActivityStarted(activity);
+        router.onActivityResumed(activity);
+
+        assertEquals(Arrays.asList("paused", "stopped", "started", "resumed"), homeController.activityEvents);
+        assertFalse(homeController.isAttached());
+    }
+
+    @Test
+    public void testCoordinatedTransaction() {
+        Controller parent = new TestController();
+        router.setRoot(RouterTransaction.with(parent));
+
+        Router masterRouter = parent.getChildRouter((ViewGroup)parent.getView().findViewById(TestController.CHILD_VIEW_ID_1));
+        Router detailRouter = parent.getChildRouter((ViewGroup)parent.getView().findViewById(TestController.CHILD_VIEW_ID_2));
+
+        final Controller master = new TestController();
+        final Controller detail = new TestController();
+        final List<Boolean> attachedWhenStarted = new ArrayList<>();
+        final int[] completedCount = new int[1];
+
+        masterRouter.addChangeListener(new ControllerChangeHandler.ControllerChangeListener() {
+            @Override
+            public void onChangeStarted(Controller to, Controller from, boolean isPush, @NonNull ViewGroup container, @NonNull ControllerChangeHandler handler) {
+                // Both backstacks should be updated before any change starts.
+                attachedWhenStarted.add(detail.getRouter() != null);
+            }
+
+            @Override
+            public void onChangeCompleted(Controller to, Controller from, boolean isPush, @NonNull ViewGroup container, @NonNull ControllerChangeHandler handler) { }
+        });
+
+        CoordinatedTransaction transaction = new CoordinatedTransaction()
+                .setRoot(masterRouter, RouterTransaction.with(master))
+                .setRoot(detailRouter, RouterTransaction.with(detail))
+                .setCompletionListener(new CoordinatedTransaction.CompletionListener() {
+                    @Override
+                    public void onTransactionCompleted() {
+                        completedCount[0]++;
+                    }
+                });
+
+        assertFalse(masterRouter.hasRootController());
+
+        transaction.commit();
+
+        assertEquals(Collections.singletonList(true), attachedWhenStarted);
+        assertTrue(master.isAttached());
+        assertTrue(detail.isAttached());
+        assertEquals(1, completedCount[0]);
+    }
+
+    @Test
+    public void testFailedCoordinatedTransaction() {
+        Controller parent = new TestController();
+        router.setRoot(RouterTransaction.with(parent));
+
+        Router masterRouter = parent.getChildRouter((ViewGroup)parent.getView().findViewById(TestController.CHILD_VIEW_ID_1));
+        Router detailRouter = parent.getChildRouter((ViewGroup)parent.getView().findViewById(TestController.CHILD_VIEW_ID_2));
+
+        Controller master = new TestController();
+        final int[] completedCount = new int[1];
+
+        CoordinatedTransaction transaction = new CoordinatedTransaction()
+                .setRoot(masterRouter, RouterTransaction.with(master))
+                .popCurrentController(detailRouter)
+                .setCompletionListener(new CoordinatedTransaction.CompletionListener() {
+                    @Override
+                    public void onTransactionCompleted() {
+                        completedCount[0]++;
+                    }
+                });
+
+        IllegalStateException thrown = null;
+        try {
+            transaction.commit();
+        } catch (IllegalStateException e) {
+            thrown = e;
+        }
+
+        assertNotNull(thrown);
+        assertEquals(1, masterRouter.getBackstackSize());
+        assertTrue(master.isAttached());
+        assertEquals(masterRouter.container, master.getView().getParent());
+        assertEquals(0, completedCount[0]);
+
+        Controller detail = new TestController();
+        detailRouter.setRoot(RouterTransaction.with(detail));
+
+        assertTrue(detail.isAttached());
+    }
+
+    @Test
+    public void testCoalescedChanges() {
+        Controller rootController = new TestController();
+        Controller skippedController = new TestController();
+        Controller topController = new TestController();
+
+        router.setRoot(RouterTransaction.with(rootController));
+        router.setCoalescesChanges(true);
+
+        ShadowLooper.pauseMainLooper();
+        try {
+            router.pushController(RouterTransaction.with(skippedController));
+            router.popCurrentController();
+            router.pushController(RouterTransaction.with(topController));
+
+            assertEquals(2, router.getBackstackSize());
+            assertTrue(rootController.isAttached());
+            assertTrue(skippedController.isDestroyed());
+            assertNull(skippedController.getView());
+            assertNull(topController.getView());
+
+            router.executePendingChanges();
+
+            assertFalse(rootController.isAttached());
+            assertTrue(topController.isAttached());
+
+            router.pushController(RouterTransaction.with(new TestController()));
+            router.popCurrentController();
+            router.executePendingChanges();
+
+            assertTrue(topController.isAttached());
+        } finally {
+            ShadowLooper.unPauseMainLooper();
+        }
+    }
+
+    @Test
+    public void testTransitionMetrics() {
+        final List<Sample> samples = new ArrayList<>();
+        final TransitionMetrics[] reportedMetrics = new TransitionMetrics[1];
+        TransitionMetricsListener metricsListener = new TransitionMetricsListener() {
+            @Override
+            public void onTransitionMeasured(@NonNull Sample sample, @NonNull TransitionMetrics metrics) {
+                samples.add(sample);
+                reportedMetrics[0] = metrics;
+            }
+        };
+        router.addTransitionMetricsListener(metricsListener);
+
+        router.setRoot(RouterTransaction.with(new TestController()));
+        router.pushController(RouterTransaction.with(new TestController()));
+        router.popCurrentController();
+
+        // Without a drawn frame, a change is only reported once the next one starts.
+        assertTrue(samples.size() >= 2);
+
+        Sample sample = samples.get(1);
+        assertEquals(TestController.class, sample.getControllerClass());
+        assertEquals(SimpleSwapChangeHandler.class, sample.getChangeHandlerClass());
+        assertTrue(sample.isPush());
+        assertTrue(sample.getDurationNanos(Stage.CHANGE_STARTED) >= 0);
+        assertTrue(sample.getDurationNanos(Stage.CHANGE_COMPLETED) >= sample.getDurationNanos(Stage.CHANGE_STARTED));
+
+        Aggregate aggregate = reportedMetrics[0].getAggregate(TestController.class, SimpleSwapChangeHandler.class);
+        assertEquals(samples.size(), aggregate.getSampleCount());
+        assertTrue(aggregate.getP50Nanos(Stage.CHANGE_COMPLETED) >= 0);
+        assertTrue(aggregate.getP50Nanos(Stage.CHANGE_COMPLETED) <= aggregate.getP95Nanos(Stage.CHANGE_COMPLETED));
+        assertTrue(aggregate.getP95Nanos(Stage.CHANGE_COMPLETED) <= aggregate.getMaxNanos(Stage.CHANGE_COMPLETED));
+        assertEquals(1, reportedMetrics[0].getAggregates().size());
+
+        router.removeTransitionMetricsListener(metricsListener);
+        int sampleCount = samples.size();
+        router.pushController(RouterTransaction.with(new TestController()));
+        router.popCurrentController();
+        assertEquals(sampleCount, samples.size());
+    }
+
+    @Test
+    public void testConductorObserver() {
+        final List<Router> createdRouters = new ArrayList<>();
+        final List<Router> changedRouters = new ArrayList<>();
+        final List<Controller> attachedControllers = new ArrayList<>();
+        final int[] changeCounts = new int[3];
+        ConductorObserver observer = new ConductorObserver() {
+            @Override
+            public void onRouterCreated(@NonNull Router router) {
+                createdRouters.add(router);
+            }
+
+            @Override
+            public void onChangeRequested(@NonNull Router router, Controller to, Controller from, boolean isPush, ControllerChangeHandler changeHandler) {
+                changeCounts[0]++;
+            }
+
+            @Override
+            public void onChangeStarted(@NonNull Router router, Controller to, Controller from, boolean isPush, @NonNull ViewGroup container, @NonNull ControllerChangeHandler changeHandler) {
+                changeCounts[1]++;
+            }
+
+            @Override
+            public void onChangeCompleted(@NonNull Router router, Controller to, Controller from, boolean isPush, @NonNull ViewGroup container, @NonNull ControllerChangeHandler changeHandler) {
+                changeCounts[2]++;
+                changedRouters.add(router);
+            }
+
+            @Override
+            public void postAttach(@NonNull Controller controller, @NonNull View view) {
+                attachedControllers.add(controller);
+            }
+        };
+        Conductor.addObserver(observer);
+
+        TestController parent = new TestController();
+        TestController child = new TestController();
+        Router childRouter;
+        try {
+            router.setRoot(RouterTransaction.with(parent));
+            childRouter = parent.getChildRouter((ViewGroup)parent.getView().findViewById(TestController.CHILD_VIEW_ID_1));
+            childRouter.setRoot(RouterTransaction.with(child));
+        } finally {
+            Conductor.removeObserver(observer);
+        }
+
+        assertEquals(Collections.singletonList(childRouter), createdRouters);
+        assertEquals(Arrays.asList(router, childRouter), changedRouters);
+        assertEquals(2, changeCounts[0]);
+        assertEquals(2, changeCounts[1]);
+        assertEquals(2, changeCounts[2]);
+        assertTrue(attachedControllers.contains(parent));
+        assertTrue(attachedControllers.contains(child));
+
+        router.pushController(RouterTransaction.with(new TestController()));
+        assertEquals(2, changeCounts[2]);
+    }
+
+    @Test
+    public void testDump() {
+        TestController parent = new TestController();
+        TestController child = new TestController();
+        router.setRoot(RouterTransaction.with(parent).tag("parent"));
+        Router childRouter = parent.getChildRouter((ViewGroup)parent.getView().findViewById(TestController.CHILD_VIEW_ID_1));
+        childRouter.setRoot(RouterTransaction.with(child));
+        String parentInstanceId = parent.getInstanceId();
+
+        StringWriter stringWriter = new StringWriter();
+        router.dump("", new PrintWriter(stringWriter));
+        String dump = stringWriter.toString();
+
+        assertTrue(dump.contains("Backstack " + Router.DEFAULT_BACKSTACK + " size=1"));
+        assertTrue(dump.contains(TestController.class.getName() + " instanceId=" + parentInstanceId + " tag=parent"));
+        assertTrue(dump.contains("state=ATTACHED retainViewMode=RELEASE_DETACH hasView=true"));
+        assertTrue(dump.contains("ControllerHostedRouter containerId=" + TestController.CHILD_VIEW_ID_1));
+        assertTrue(dump.contains(TestController.class.getName() + " instanceId=unassigned tag=null"));
+    }
+
+    @Test
+    public void testLifecycleEventLog() throws IOException {
+        Controller controller = new TestController();
+
+        LifecycleEventLog.clear();
+        router.pushController(RouterTransaction.with(controller));
+
+        String identityHash = Integer.toHexString(System.identityHashCode(controller));
+        String[] events = LifecycleEventLog.exportAsString().split("\n");
+        assertTrue(events[0].endsWith(" PUSH_REQUESTED " + TestController.class.getName() + " #" + identityHash));
+        assertTrue(events[1].endsWith(" CHANGE_STARTED " + TestController.class.getName() + " #" + identityHash));
+        assertTrue(Arrays.toString(events).contains(" CREATE_VIEW " + TestController.class.getName() + " #" + identityHash));
+        assertTrue(Arrays.toString(events).contains(" ATTACH " + TestController.class.getName() + " #" + identityHash));
+
+        LifecycleEventLog.setCapacity(4);
+        try {
+            router.pushController(RouterTransaction.with(new TestController()));
+            router.popController(controller);
+
+            assertEquals(4, LifecycleEventLog.exportAsString().split("\n").length);
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(LifecycleEventLog.exportAsBytes()));
+            assertEquals(1, in.readInt());
+            int classCount = in.readInt();
+            for (int i = 0; i < classCount; i++) {
+                in.readUTF();
+            }
+            assertEquals(4, in.readInt());
+
+            long lastTimestamp = 0;
+            for (int i = 0; i < 4; i++) {
+                long timestamp = in.readLong();
+                assertTrue(timestamp >= lastTimestamp);
+                lastTimestamp = timestamp;
+                in.readByte();
+                assertTrue(in.readInt() < classCount);
+                in.readInt();
+            }
+            assertEquals(-1, in.read());
+        } finally {
+            LifecycleEventLog.setCapacity(LifecycleEventLog.DEFAULT_CAPACITY);
+        }
+    }
+
+    @Test
+    public void testNavigationRecorder() throws IOException {
+        NavigationRecorder recorder = new NavigationRecorder();
+        router.setNavigationRecorder(recorder);
+
+        Controller controller = new TestController();
+        router.setRoot(RouterTransaction.with(new TestController()).tag("root"));
+        router.pushController(RouterTransaction.with(controller).tag("pushed"));
+        router.pushController(RouterTransaction.with(new TestController()));
+        router.popController(controller);
+        router.handleBack();
+
+        router.setNavigationRecorder(null);
+        router.pushController(RouterTransaction.with(new TestController()));
+
+        List<NavigationRecorder.Step> steps = NavigationRecorder.readSteps(recorder.toByteArray());
+        List<NavigationRecorder.Operation> operations = new ArrayList<>();
+        for (NavigationRecorder.Step step : steps) {
+            operations.add(step.getOperation());
+        }
+        assertEquals(Arrays.asList(
+                NavigationRecorder.Operation.SET_ROOT,
+                NavigationRecorder.Operation.SET_BACKSTACK,
+                NavigationRecorder.Operation.PUSH,
+                NavigationRecorder.Operation.PUSH,
+                NavigationRecorder.Operation.POP,
+                NavigationRecorder.Operation.HANDLE_BACK,
+                NavigationRecorder.Operation.POP_CURRENT,
+                NavigationRecorder.Operation.POP
+        ), operations);
+
+        assertEquals("root", steps.get(1).getTransactions().get(0).getTag());
+
+        NavigationRecorder.RecordedTransaction pushed = steps.get(2).getTransactions().get(0);
+        assertEquals("pushed", pushed.getTag());
+        assertEquals(TestController.class.getName(), pushed.getControllerClassName());
+        assertEquals(pushed.getControllerId(), steps.get(4).getTransactions().get(0).getControllerId());
+        assertEquals(steps.get(3).getTransactions().get(0).getControllerId(), steps.get(7).getTransactions().get(0).getControllerId());
+        assertTrue(steps.get(7).getTimeMillis() >= steps.get(0).getTimeMillis());
+    }
+
+    @Test
+    public void testNavigationRecorderBackstacks() throws IOException {
+        NavigationRecorder recorder = new NavigationRecorder();
+        router.setNavigationRecorder(recorder);
+
+        router.setRoot(RouterTransaction.with(new TestController()));
+        router.switchToBackstack("other", RouterTransaction.with(new TestController()).tag("otherRoot"), null);
+        router.switchToBackstack(Router.DEFAULT_BACKSTACK, null, null);
+        router.removeBackstack("other");
+
+        List<NavigationRecorder.Step> steps = NavigationRecorder.readSteps(recorder.toByteArray());
+        assertEquals(5, steps.size());
+
+        NavigationRecorder.Step switchStep = steps.get(2);
+        assertEquals(NavigationRecorder.Operation.SWITCH_TO_BACKSTACK, switchStep.getOperation());
+        assertEquals("other", switchStep.getBackstackName());
+        assertEquals("otherRoot", switchStep.getTransactions().get(0).getTag());
+
+        assertEquals(Router.DEFAULT_BACKSTACK, steps.get(3).getBackstackName());
+        assertTrue(steps.get(3).getTransactions().isEmpty());
+
+        assertEquals(NavigationRecorder.Operation.REMOVE_BACKSTACK, steps.get(4).getOperation());
+        assertEquals("other", steps.get(4).getBackstackName());
+    }
+
+    @Test
+    public void testNavigationRecorderMaxSize() throws IOException {
+        NavigationRecorder recorder = new NavigationRecorder(64);
+        router.setNavigationRecorder(recorder);
+
+        router.setRoot(RouterTransaction.with(new TestController()));
+        while (!recorder.isFull()) {
+            router.pushController(RouterTransaction.with(new TestController()));
+        }
+
+        final int size = recorder.toByteArray().length;
+        router.pushController(RouterTransaction.with(new TestController()));
+        router.handleBack();
+
+        assertEquals(size, recorder.toByteArray().length);
+        assertFalse(NavigationRecorder.readSteps(recorder.toByteArray()).isEmpty());
+    }
+
     @Test
     public void testPopToTag() {
         String controller1Tag = "controller1";
@@ -281,6 +940,120 @@ public class RouterTests {
         assertFalse(transaction2.controller.isAttached());
     }
 
+    @Test
+    public void testPopToRootDestroyingWhenIdle() {
+        router.setDestroysWhenIdle(true);
+
+        RouterTransaction rootTransaction = RouterTransaction.with(new TestController());
+        RouterTransaction transaction1 = RouterTransaction.with(new TestController());
+        RouterTransaction transaction2 = RouterTransaction.with(new TestController());
+
+        List<RouterTransaction> backstack = Arrays.asList(rootTransaction, transaction1, transaction2);
+        router.setBackstack(backstack, null);
+
+        router.popToRoot();
+
+        assertEquals(1, router.getBackstackSize());
+        assertTrue(rootTransaction.controller.isAttached());
+
+        assertTrue(transaction1.controller.isBeingDestroyed());
+        assertFalse(transaction1.controller.isDestroyed());
+        assertTrue(router.destroyingControllers.contains(transaction1.controller));
+
+        assertTrue(transaction2.controller.isBeingDestroyed());
+        assertTrue(transaction2.controller.isDestroyed());
+
+        router.setDestroysWhenIdle(false);
+
+        assertTrue(transaction1.controller.isDestroyed());
+        assertFalse(router.destroyingControllers.contains(transaction1.controller));
+    }
+
+    @Test
+    public void testDestroysWhenIdle() {
+        router.setDestroysWhenIdle(true);
+
+        List<RouterTransaction> backstack = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            backstack.add(RouterTransaction.with(new TestController()));
+        }
+        router.setBackstack(backstack, null);
+
+        router.popToRoot();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        for (int i = 1; i < 4; i++) {
+            Controller controller = backstack.get(i).controller;
+            assertTrue(controller.isBeingDestroyed());
+            assertFalse(controller.isDestroyed());
+            assertTrue(router.destroyingControllers.contains(controller));
+        }
+
+        for (int i = 0; i < backstack.size() && !router.destroyingControllers.isEmpty(); i++) {
+            LooperUtils.idleMainLooper();
+        }
+
+        for (int i = 1; i < backstack.size(); i++) {
+            assertTrue(backstack.get(i).controller.isDestroyed());
+        }
+        assertTrue(router.destroyingControllers.isEmpty());
+        assertTrue(backstack.get(0).controller.isAttached());
+    }
+
+    @Test
+    public void testIdleDestroyTimeSlice() {
+        router.setDestroysWhenIdle(true).setIdleDestroyTimeSlice(0);
+
+        List<RouterTransaction> backstack = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            backstack.add(RouterTransaction.with(new TestController()));
+        }
+        router.setBackstack(backstack, null);
+
+        router.popToRoot();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        // Only the controllers beneath the top one were queued, and each pass destroys exactly one of them.
+        assertEquals(2, router.destroyingControllers.size());
+
+        LooperUtils.idleMainLooper();
+        assertEquals(1, router.destroyingControllers.size());
+
+        LooperUtils.idleMainLooper();
+        assertTrue(backstack.get(1).controller.isDestroyed());
+        assertTrue(backstack.get(2).controller.isDestroyed());
+        assertTrue(router.destroyingControllers.isEmpty());
+    }
+
+    @Test
+    public void testRemoveBackstackDestroyingWhenIdle() {
+        router.setDestroysWhenIdle(true);
+
+        Controller homeController = new TestController();
+        router.setRoot(RouterTransaction.with(homeController));
+
+        Controller searchRootController = new TestController();
+        Controller searchDetailController = new TestController();
+        router.switchToBackstack("search", RouterTransaction.with(searchRootController), MockChangeHandler.defaultHandler());
+        router.pushController(RouterTransaction.with(searchDetailController));
+        router.switchToBackstack(Router.DEFAULT_BACKSTACK, null, MockChangeHandler.defaultHandler());
+
+        assertTrue(router.removeBackstack("search"));
+
+        assertTrue(searchRootController.isBeingDestroyed());
+        assertFalse(searchRootController.isDestroyed());
+        assertTrue(searchDetailController.isBeingDestroyed());
+        assertFalse(searchDetailController.isDestroyed());
+        assertTrue(router.destroyingControllers.contains(searchDetailController));
+
+        LooperUtils.idleMainLooper();
+
+        assertTrue(searchRootController.isDestroyed());
+        assertTrue(searchDetailController.isDestroyed());
+        assertTrue(router.destroyingControllers.isEmpty());
+        assertTrue(homeController.isAttached());
+    }
+
     @Test
     public void testPopToRootWithNoRemoveViewOnPush() {
         RouterTransaction rootTransaction = RouterTransaction.with(new TestController()).pushChangeHandler(new HorizontalChangeHandler(false));
@@ -431,4 +1204,48 @@ public class RouterTests {
         assertEquals(0, router.container.getChildCount());
     }
 
+    public static class ListeningController extends TestController {
+
+        final List<String> events = new ArrayList<>();
+
+        public ListeningController() {
+            addLifecycleListener(new LifecycleListener() {
+                @Override
+                public void postAttach(@NonNull Controller controller, @NonNull View view) {
+                    events.add("attached");
+                }
+
+                @Override
+                public void onReset(@NonNull Controller controller) {
+                    events.add("reset");
+                }
+            });
+        }
+    }
+
+    public static class ActivityLifecycleController extends TestController {
+
+        final List<String> activityEvents = new ArrayList<>();
+
+        @Override
+        protected void onActivityStarted(@NonNull Activity activity) {
+            activityEvents.add("started");
+        }
+
+        @Override
+        protected void onActivityResumed(@NonNull Activity activity) {
+            activityEvents.add("resumed");
+        }
+
+        @Override
+        protected void onActivityPaused(@NonNull Activity activity) {
+            activityEvents.add("paused");
+        }
+
+        @Override
+        protected void onActivityStopped(@NonNull Activity activity) {
+            activityEvents.add("stopped");
+        }
+    }
+
 }
@@ -3,11 +3,13 @@ package com.bluelinelabs.conductor;
 import android.app.Activity;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.LinearLayout;
+import android.widget.FrameLayout;
 
+import com.bluelinelabs.conductor.internal.ContainerAttachHandler;
 import com.bluelinelabs.conductor.internal.ViewAttachHandler;
 import com.bluelinelabs.conductor.internal.ViewAttachHandler.ViewAttachListener;
 import com.bluelinelabs.conductor.util.ActivityProxy;
+import com.bluelinelabs.conductor.util.AttachFakingFrameLayout;
 import com.bluelinelabs.conductor.util.ViewUtils;
 
 import org.junit.Before;
@@ -15,6 +17,12 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 
@@ -23,46 +31,49 @@ import static org.junit.Assert.assertEquals;
 public class ViewAttachHandlerTests {
 
     private Activity activity;
+    private AttachFakingFrameLayout container;
     private ViewAttachHandler viewAttachHandler;
     private CountingViewAttachListener viewAttachListener;
 
     @Before
     public void setup() {
         activity = new ActivityProxy().create(null).getActivity();
+        container = new AttachFakingFrameLayout(activity);
         viewAttachListener = new CountingViewAttachListener();
         viewAttachHandler = new ViewAttachHandler(viewAttachListener);
     }
 
     @Test
-    public void testSimpleViewAttachDetach() {
+    public void testContainerAttachDetach() {
         View view = new View(activity);
-        viewAttachHandler.listenForAttach(view);
+        container.addView(view);
+        viewAttachHandler.listenForAttach(container, view);
 
         assertEquals(0, viewAttachListener.attaches);
         assertEquals(0, viewAttachListener.detaches);
         assertEquals(0, viewAttachListener.detachAfterStops);
 
-        ViewUtils.reportAttached(view, true);
+        ViewUtils.reportAttached(container, true);
         assertEquals(1, viewAttachListener.attaches);
         assertEquals(0, viewAttachListener.detaches);
         assertEquals(0, viewAttachListener.detachAfterStops);
 
-        ViewUtils.reportAttached(view, true);
+        ViewUtils.reportAttached(container, true);
         assertEquals(1, viewAttachListener.attaches);
         assertEquals(0, viewAttachListener.detaches);
         assertEquals(0, viewAttachListener.detachAfterStops);
 
-        ViewUtils.reportAttached(view, false);
+        ViewUtils.reportAttached(container, false);
         assertEquals(1, viewAttachListener.attaches);
         assertEquals(1, viewAttachListener.detaches);
         assertEquals(0, viewAttachListener.detachAfterStops);
 
-        ViewUtils.reportAttached(view, false);
+        ViewUtils.reportAttached(container, false);
         assertEquals(1, viewAttachListener.attaches);
         assertEquals(1, viewAttachListener.detaches);
         assertEquals(0, viewAttachListener.detachAfterStops);
 
-        ViewUtils.reportAttached(view, true);
+        ViewUtils.reportAttached(container, true);
         assertEquals(2, viewAttachListener.attaches);
         assertEquals(1, viewAttachListener.detaches);
         assertEquals(0, viewAttachListener.detachAfterStops);
@@ -72,12 +83,12 @@ public class ViewAttachHandlerTests {
         assertEquals(2, viewAttachListener.detaches);
         assertEquals(0, viewAttachListener.detachAfterStops);
 
-        ViewUtils.reportAttached(view, false);
+        ViewUtils.reportAttached(container, false);
         assertEquals(2, viewAttachListener.attaches);
         assertEquals(2, viewAttachListener.detaches);
         assertEquals(1, viewAttachListener.detachAfterStops);
 
-        ViewUtils.reportAttached(view, true);
+        ViewUtils.reportAttached(container, true);
         assertEquals(2, viewAttachListener.attaches);
         assertEquals(2, viewAttachListener.detaches);
         assertEquals(1, viewAttachListener.detachAfterStops);
@@ -89,35 +100,26 @@ public class ViewAttachHandlerTests {
     }
 
     @Test
-    public void testSimpleViewGroupAttachDetach() {
+    public void testViewAddRemove() {
         View view = new View(activity);
-        viewAttachHandler.listenForAttach(view);
+        container.setAttached(true);
+        viewAttachHandler.listenForAttach(container, view);
 
         assertEquals(0, viewAttachListener.attaches);
         assertEquals(0, viewAttachListener.detaches);
         assertEquals(0, viewAttachListener.detachAfterStops);
 
-        ViewUtils.reportAttached(view, true);
-        assertEquals(1, viewAttachListener.attaches);
-        assertEquals(0, viewAttachListener.detaches);
-        assertEquals(0, viewAttachListener.detachAfterStops);
-
-        ViewUtils.reportAttached(view, true);
+        container.addView(view);
         assertEquals(1, viewAttachListener.attaches);
         assertEquals(0, viewAttachListener.detaches);
         assertEquals(0, viewAttachListener.detachAfterStops);
 
-        ViewUtils.reportAttached(view, false);
+        container.removeView(view);
         assertEquals(1, viewAttachListener.attaches);
         assertEquals(1, viewAttachListener.detaches);
         assertEquals(0, viewAttachListener.detachAfterStops);
 
-        ViewUtils.reportAttached(view, false);
-        assertEquals(1, viewAttachListener.attaches);
-        assertEquals(1, viewAttachListener.detaches);
-        assertEquals(0, viewAttachListener.detachAfterStops);
-
-        ViewUtils.reportAttached(view, true);
+        container.addView(view);
         assertEquals(2, viewAttachListener.attaches);
         assertEquals(1, viewAttachListener.detaches);
         assertEquals(0, viewAttachListener.detachAfterStops);
@@ -127,12 +129,12 @@ public class ViewAttachHandlerTests {
         assertEquals(2, viewAttachListener.detaches);
         assertEquals(0, viewAttachListener.detachAfterStops);
 
-        ViewUtils.reportAttached(view, false);
+        container.removeView(view);
         assertEquals(2, viewAttachListener.attaches);
         assertEquals(2, viewAttachListener.detaches);
         assertEquals(1, viewAttachListener.detachAfterStops);
 
-        ViewUtils.reportAttached(view, true);
+        container.addView(view);
         assertEquals(2, viewAttachListener.attaches);
         assertEquals(2, viewAttachListener.detaches);
         assertEquals(1, viewAttachListener.detachAfterStops);
@@ -144,72 +146,159 @@ public class ViewAttachHandlerTests {
     }
 
     @Test
-    public void testNestedViewGroupAttachDetach() {
-        ViewGroup view = new LinearLayout(activity);
-        View child = new LinearLayout(activity);
-        view.addView(child);
-        viewAttachHandler.listenForAttach(view);
+    public void testSharedContainer() {
+        CountingViewAttachListener otherViewAttachListener = new CountingViewAttachListener();
+        ViewAttachHandler otherViewAttachHandler = new ViewAttachHandler(otherViewAttachListener);
 
-        assertEquals(0, viewAttachListener.attaches);
+        View view = new View(activity);
+        View otherView = new View(activity);
+        container.addView(view);
+        container.addView(otherView);
+        viewAttachHandler.listenForAttach(container, view);
+        otherViewAttachHandler.listenForAttach(container, otherView);
+
+        container.setAttached(true);
+        assertEquals(1, viewAttachListener.attaches);
+        assertEquals(1, otherViewAttachListener.attaches);
+
+        container.removeView(otherView);
         assertEquals(0, viewAttachListener.detaches);
-        assertEquals(0, viewAttachListener.detachAfterStops);
+        assertEquals(1, otherViewAttachListener.detaches);
 
-        ViewUtils.reportAttached(view, true, false);
+        otherViewAttachHandler.unregisterAttachListener(otherView);
+        container.addView(otherView);
+        assertEquals(1, otherViewAttachListener.attaches);
+
+        container.setAttached(false);
+        assertEquals(1, viewAttachListener.detaches);
+        assertEquals(1, otherViewAttachListener.detaches);
+
+        viewAttachHandler.unregisterAttachListener(view);
+        container.setAttached(true);
+        assertEquals(1, viewAttachListener.attaches);
+        assertEquals(1, otherViewAttachListener.attaches);
+    }
+
+    @Test
+    public void testContainerAttachWaitsForTraversal() {
+        View view = new View(activity);
+        container.addView(view);
+        viewAttachHandler.listenForAttach(container, view);
+
+        ShadowLooper.pauseMainLooper();
+        try {
+            container.setAttached(true);
+            assertEquals(0, viewAttachListener.attaches);
+
+            ShadowLooper.runUiThreadTasks();
+            assertEquals(1, viewAttachListener.attaches);
+        } finally {
+            ShadowLooper.unPauseMainLooper();
+        }
+
+        container.setAttached(false);
+        assertEquals(1, viewAttachListener.detaches);
+    }
+
+    @Test
+    public void testPlainContainerChecksViews() {
+        FrameLayout plainContainer = new FrameLayout(activity);
+        View view = new View(activity);
+        viewAttachHandler.listenForAttach(plainContainer, view);
+        ViewUtils.reportAttached(plainContainer, true, false);
+
+        plainContainer.addView(view);
         assertEquals(0, viewAttachListener.attaches);
-        assertEquals(0, viewAttachListener.detaches);
-        assertEquals(0, viewAttachListener.detachAfterStops);
 
-        ViewUtils.reportAttached(child, true, false);
+        ContainerAttachHandler.forContainer(plainContainer).checkViews();
         assertEquals(1, viewAttachListener.attaches);
         assertEquals(0, viewAttachListener.detaches);
-        assertEquals(0, viewAttachListener.detachAfterStops);
 
-        ViewUtils.reportAttached(view, true, false);
-        ViewUtils.reportAttached(child, true, false);
-        assertEquals(1, viewAttachListener.attaches);
+        plainContainer.removeView(view);
         assertEquals(0, viewAttachListener.detaches);
-        assertEquals(0, viewAttachListener.detachAfterStops);
 
-        ViewUtils.reportAttached(view, false, false);
+        ContainerAttachHandler.forContainer(plainContainer).checkViews();
         assertEquals(1, viewAttachListener.attaches);
         assertEquals(1, viewAttachListener.detaches);
-        assertEquals(0, viewAttachListener.detachAfterStops);
+    }
 
-        ViewUtils.reportAttached(view, false, false);
-        assertEquals(1, viewAttachListener.attaches);
-        assertEquals(1, viewAttachListener.detaches);
-        assertEquals(0, viewAttachListener.detachAfterStops);
+    @Test
+    public void testHostedContainer() {
+        final List<String> events = new ArrayList<>();
+        View view = new View(activity);
+        View otherView = new View(activity);
+        container.addView(view);
+        container.addView(otherView);
+        new ViewAttachHandler(new RecordingViewAttachListener("view", events)).listenForAttach(container, view);
+        new ViewAttachHandler(new RecordingViewAttachListener("otherView", events)).listenForAttach(container, otherView);
+
+        ContainerAttachHandler attachHandler = ContainerAttachHandler.forContainer(container);
+        attachHandler.setHostAttached(false);
+
+        // Once hosted, the container's own window attachment no longer matters.
+        container.setAttached(true);
+        assertEquals(Collections.emptyList(), events);
+
+        attachHandler.setHostAttached(true);
+        assertEquals(Arrays.asList("view attached", "otherView attached"), events);
+
+        events.clear();
+        attachHandler.setHostAttached(false);
+        assertEquals(Arrays.asList("otherView detached", "view detached"), events);
+
+        events.clear();
+        container.setAttached(false);
+        container.setAttached(true);
+        assertEquals(Collections.emptyList(), events);
+    }
 
-        ViewUtils.reportAttached(view, true, false);
+    @Test
+    public void testKeepsExistingHierarchyListener() {
+        final int[] addedChildren = new int[1];
+        container.setOnHierarchyChangeListener(new ViewGroup.OnHierarchyChangeListener() {
+            @Override
+            public void onChildViewAdded(View parent, View child) {
+                addedChildren[0]++;
+            }
+
+            @Override
+            public void onChildViewRemoved(View parent, View child) { }
+        });
+
+        View view = new View(activity);
+        container.setAttached(true);
+        viewAttachHandler.listenForAttach(container, view);
+        container.addView(view);
         assertEquals(1, viewAttachListener.attaches);
-        assertEquals(1, viewAttachListener.detaches);
-        assertEquals(0, viewAttachListener.detachAfterStops);
 
-        ViewUtils.reportAttached(child, true, false);
-        assertEquals(2, viewAttachListener.attaches);
-        assertEquals(1, viewAttachListener.detaches);
-        assertEquals(0, viewAttachListener.detachAfterStops);
+        viewAttachHandler.unregisterAttachListener(view);
+        container.addView(new View(activity));
+        assertEquals(2, addedChildren[0]);
+    }
 
-        viewAttachHandler.onActivityStopped();
-        assertEquals(2, viewAttachListener.attaches);
-        assertEquals(2, viewAttachListener.detaches);
-        assertEquals(0, viewAttachListener.detachAfterStops);
+    private static class RecordingViewAttachListener implements ViewAttachListener {
+        private final String name;
+        private final List<String> events;
 
-        ViewUtils.reportAttached(view, false, false);
-        assertEquals(2, viewAttachListener.attaches);
-        assertEquals(2, viewAttachListener.detaches);
-        assertEquals(1, viewAttachListener.detachAfterStops);
+        RecordingViewAttachListener(String name, List<String> events) {
+            this.name = name;
+            this.events = events;
+        }
 
-        ViewUtils.reportAttached(view, true, false);
-        ViewUtils.reportAttached(child, true, false);
-        assertEquals(2, viewAttachListener.attaches);
-        assertEquals(2, viewAttachListener.detaches);
-        assertEquals(1, viewAttachListener.detachAfterStops);
+        @Override
+        public void onAttached() {
+            events.add(name + " attached");
+        }
 
-        viewAttachHandler.onActivityStarted();
-        assertEquals(3, viewAttachListener.attaches);
-        assertEquals(2, viewAttachListener.detaches);
-        assertEquals(1, viewAttachListener.detachAfterStops);
+        @Override
+        public void onDetached(boolean fromActivityStop) {
+            events.add(name + " detached");
+        }
+
+        @Override
+        public void onViewDetachAfterStop() {
+            events.add(name + " detached after stop");
+        }
     }
 
     private static class CountingViewAttachListener implements ViewAttachListener {
@@ -7,11 +7,12 @@ import android.os.Parcel;
 import android.os.RemoteException;
 import android.util.AttributeSet;
 import android.view.View;
-import android.widget.FrameLayout;
+
+import com.bluelinelabs.conductor.ChangeHandlerFrameLayout;
 
 import java.io.FileDescriptor;
 
-public class AttachFakingFrameLayout extends FrameLayout {
+public class AttachFakingFrameLayout extends ChangeHandlerFrameLayout {
 
     final IBinder fakeWindowToken = new IBinder() {
         @Override
@@ -0,0 +1,31 @@
+package com.bluelinelabs.conductor.util;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.MessageQueue.IdleHandler;
+
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.util.ReflectionHelpers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LooperUtils {
+
+    /**
+     * Runs all pending main thread tasks, then lets the main thread go idle once, running its IdleHandlers the same
+     * way the real Looper would. Robolectric's scheduler never gets the main queue to that point itself.
+     */
+    public static void idleMainLooper() {
+        ShadowLooper.idleMainLooper();
+
+        MessageQueue queue = ReflectionHelpers.getField(Looper.getMainLooper(), "mQueue");
+        List<IdleHandler> idleHandlers = ReflectionHelpers.getField(queue, "mIdleHandlers");
+        for (IdleHandler idleHandler : new ArrayList<>(idleHandlers)) {
+            if (!idleHandler.queueIdle()) {
+                queue.removeIdleHandler(idleHandler);
+            }
+        }
+    }
+
+}
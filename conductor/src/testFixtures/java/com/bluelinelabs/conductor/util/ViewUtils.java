@@ -0,0 +1,69 @@
+package com.bluelinelabs.conductor.util;
+
+import android.view.View;
+import android.view.View.OnAttachStateChangeListener;
+import android.view.ViewGroup;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+
+public class ViewUtils {
+
+    private static Method getListenerInfo;
+    private static Field attachStateListeners;
+
+    public static void reportAttached(View view, boolean attached) {
+        reportAttached(view, attached, true);
+    }
+
+    public static void reportAttached(View view, boolean attached, boolean propogateToChildren) {
+        if (view instanceof AttachFakingFrameLayout) {
+            ((AttachFakingFrameLayout)view).setAttached(attached, false);
+        }
+
+        // Views without any attach listeners never initialize their listener list, so there's nothing to report to.
+        List<OnAttachStateChangeListener> listeners = getAttachStateListeners(view);
+        if (listeners != null) {
+            for (OnAttachStateChangeListener listener : listeners) {
+                if (attached) {
+                    listener.onViewAttachedToWindow(view);
+                } else {
+                    listener.onViewDetachedFromWindow(view);
+                }
+            }
+        }
+
+        if (propogateToChildren && view instanceof ViewGroup) {
+            ViewGroup viewGroup = (ViewGroup)view;
+            int childCount = viewGroup.getChildCount();
+            for (int i = 0; i < childCount; i++) {
+                reportAttached(viewGroup.getChildAt(i), attached, true);
+            }
+        }
+
+    }
+
+    // Looked up once, as the allocation benchmarks call this for every view they add or remove.
+    @SuppressWarnings("unchecked")
+    private static List<OnAttachStateChangeListener> getAttachStateListeners(View view) {
+        try {
+            if (getListenerInfo == null) {
+                getListenerInfo = View.class.getDeclaredMethod("getListenerInfo");
+                getListenerInfo.setAccessible(true);
+            }
+
+            Object listenerInfo = getListenerInfo.invoke(view);
+
+            if (attachStateListeners == null) {
+                attachStateListeners = listenerInfo.getClass().getDeclaredField("mOnAttachStateChangeListeners");
+                attachStateListeners.setAccessible(true);
+            }
+
+            return (List<OnAttachStateChangeListener>)attachStateListeners.get(listenerInfo);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}